@@ -0,0 +1,4 @@
+package bench.jmh_generated;
+public class BitPackingBenchmark_jmhType extends BitPackingBenchmark_jmhType_B3 {
+}
+
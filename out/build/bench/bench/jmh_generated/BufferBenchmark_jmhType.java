@@ -0,0 +1,4 @@
+package bench.jmh_generated;
+public class BufferBenchmark_jmhType extends BufferBenchmark_jmhType_B3 {
+}
+
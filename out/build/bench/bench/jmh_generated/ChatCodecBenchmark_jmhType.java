@@ -0,0 +1,4 @@
+package bench.jmh_generated;
+public class ChatCodecBenchmark_jmhType extends ChatCodecBenchmark_jmhType_B3 {
+}
+
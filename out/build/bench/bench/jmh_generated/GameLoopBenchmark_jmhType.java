@@ -0,0 +1,4 @@
+package bench.jmh_generated;
+public class GameLoopBenchmark_jmhType extends GameLoopBenchmark_jmhType_B3 {
+}
+
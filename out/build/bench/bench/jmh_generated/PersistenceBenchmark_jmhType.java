@@ -0,0 +1,4 @@
+package bench.jmh_generated;
+public class PersistenceBenchmark_jmhType extends PersistenceBenchmark_jmhType_B3 {
+}
+
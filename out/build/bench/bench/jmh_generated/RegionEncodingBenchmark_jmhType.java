@@ -0,0 +1,4 @@
+package bench.jmh_generated;
+public class RegionEncodingBenchmark_jmhType extends RegionEncodingBenchmark_jmhType_B3 {
+}
+
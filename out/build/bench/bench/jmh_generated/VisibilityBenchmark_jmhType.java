@@ -0,0 +1,4 @@
+package bench.jmh_generated;
+public class VisibilityBenchmark_jmhType extends VisibilityBenchmark_jmhType_B3 {
+}
+
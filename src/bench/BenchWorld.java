@@ -0,0 +1,82 @@
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Synthetic world for the benchmarks.
+ *
+ * Initializes a {@link ServerContext} once per JVM with definitions from
+ * doc/rs-data (override with -Dbench.data=...) but no spawns, so each
+ * benchmark places exactly the players and NPCs it measures. Nothing is
+ * started: no network, no tick thread.
+ */
+final class BenchWorld {
+    // Lumbridge, well inside the map on plane 0
+    static final int CENTER_X = 122;
+    static final int CENTER_Y = 657;
+
+    private static int nextPlayer = 0;
+
+    private BenchWorld() {}
+
+    static synchronized ServerContext context() {
+        try {
+            return ServerContext.get();
+        } catch (IllegalStateException notYet) {
+            Logger.setLogLevel(Logger.LEVEL_WARN);
+            ServerContext.initialize(ServerConfig.builder()
+                .updateThreads(1)
+                .metricsSummaryTicks(0)
+                .build());
+            ServerContext context = ServerContext.get();
+            context.getWorldService().loadDefinitions(System.getProperty("bench.data", "doc/rs-data"));
+            return context;
+        }
+    }
+
+    /**
+     * Log in {@code count} players at random tiles in a square of side
+     * {@code spread} around the center. Sockets are unconnected; packets
+     * only go as far as each player's outbound queue.
+     */
+    static synchronized List<Player> addPlayers(int count, int spread, long seed) {
+        PlayerRepository players = context().getPlayers();
+        Random random = new Random(seed);
+        List<Player> added = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int id = nextPlayer++;
+            Player player = new Player(new Socket(), "bench" + id, 1_000_000L + id);
+            player.setX(CENTER_X - spread / 2 + random.nextInt(spread));
+            player.setY(CENTER_Y - spread / 2 + random.nextInt(spread));
+            players.addPlayer(player);
+            added.add(player);
+        }
+        return added;
+    }
+
+    static synchronized void removePlayers(List<Player> added) {
+        PlayerRepository players = context().getPlayers();
+        for (Player player : added) {
+            players.removePlayer(player);
+        }
+    }
+
+    /**
+     * Spawn {@code count} NPCs of defined types with a small walk area each.
+     */
+    static synchronized List<Npc> addNpcs(int count, int spread, long seed) {
+        WorldService world = context().getWorldService();
+        Random random = new Random(seed);
+        List<Npc> added = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int x = CENTER_X - spread / 2 + random.nextInt(spread);
+            int y = CENTER_Y - spread / 2 + random.nextInt(spread);
+            int typeId = random.nextInt(Math.max(1, world.getNpcDefinitions().size()));
+            Npc npc = new Npc(typeId, x, y, x - 4, x + 4, y - 4, y + 4);
+            world.addNpc(npc);
+            added.add(npc);
+        }
+        return added;
+    }
+}
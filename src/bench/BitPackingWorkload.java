@@ -0,0 +1,64 @@
+import bench.Workload;
+import java.util.concurrent.Callable;
+
+/**
+ * Packing the fields of a region update for {@code size} entities:
+ * {@link NetHelper#setBitMask} one range at a time versus {@link BitWriter}.
+ * Each entity writes the 1+1+3 bit "moved" record.
+ */
+public class BitPackingWorkload implements Workload {
+    private final byte[] data = new byte[500];
+    private int entities;
+
+    @Override
+    public void setup(int size) {
+        entities = size;
+    }
+
+    @Override
+    public Callable<Object> operation(String name) {
+        switch (name) {
+            case "setBitMask":
+                return this::setBitMask;
+            case "bitWriter":
+                return this::bitWriter;
+            default:
+                throw new IllegalArgumentException(name);
+        }
+    }
+
+    private Object setBitMask() {
+        int offset = 0;
+        NetHelper.setBitMask(data, offset, 11, BenchWorld.CENTER_X);
+        offset += 11;
+        NetHelper.setBitMask(data, offset, 13, BenchWorld.CENTER_Y);
+        offset += 13;
+        NetHelper.setBitMask(data, offset, 4, 2);
+        offset += 4;
+        NetHelper.setBitMask(data, offset, 8, entities);
+        offset += 8;
+        for (int i = 0; i < entities; i++) {
+            NetHelper.setBitMask(data, offset, 1, 1);
+            offset += 1;
+            NetHelper.setBitMask(data, offset, 1, 0);
+            offset += 1;
+            NetHelper.setBitMask(data, offset, 3, i & 7);
+            offset += 3;
+        }
+        return data;
+    }
+
+    private Object bitWriter() {
+        BitWriter bits = BitWriter.get();
+        bits.write(11, BenchWorld.CENTER_X);
+        bits.write(13, BenchWorld.CENTER_Y);
+        bits.write(4, 2);
+        bits.write(8, entities);
+        for (int i = 0; i < entities; i++) {
+            bits.write(1, 1);
+            bits.write(1, 0);
+            bits.write(3, i & 7);
+        }
+        return bits.finish();
+    }
+}
@@ -0,0 +1,51 @@
+import bench.Workload;
+import java.util.concurrent.Callable;
+
+/**
+ * {@link Buffer} put/get for a typical small packet (opcode, a few ints/shorts/bytes, a long and a string).
+ */
+public class BufferWorkload implements Workload {
+    private byte[] encoded;
+
+    @Override
+    public void setup(int size) {
+        encoded = writePacket().toArray();
+    }
+
+    @Override
+    public Callable<Object> operation(String name) {
+        switch (name) {
+            case "put":
+                return () -> writePacket().toArrayWithLen();
+            case "get":
+                return this::readPacket;
+            default:
+                throw new IllegalArgumentException(name);
+        }
+    }
+
+    private Object readPacket() {
+        Buffer in = new Buffer(encoded);
+        long sum = in.getShort();
+        for (int i = 0; i < 8; i++) {
+            sum += in.getInt();
+            sum += in.getShort();
+            sum += in.getByte();
+        }
+        sum += in.getLong();
+        return in.getString().length() + sum;
+    }
+
+    private static Buffer writePacket() {
+        Buffer out = new Buffer();
+        out.putShort((short) 191);
+        for (int i = 0; i < 8; i++) {
+            out.putInt(i * 1000);
+            out.putShort((short) i);
+            out.putByte((byte) i);
+        }
+        out.putLong(0x1234_5678_9ABCL);
+        out.putString("Welcome to RuneScape");
+        return out;
+    }
+}
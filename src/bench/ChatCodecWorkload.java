@@ -0,0 +1,29 @@
+import bench.Workload;
+import common.ChatCodec;
+import java.util.concurrent.Callable;
+
+/**
+ * Chat compression, run for every public chat line and private message.
+ */
+public class ChatCodecWorkload implements Workload {
+    private static final String MESSAGE = "selling rune platebody 84k, or trade for lobsters at the bank!";
+
+    private byte[] scrambled;
+
+    @Override
+    public void setup(int size) {
+        scrambled = ChatCodec.scramble(MESSAGE);
+    }
+
+    @Override
+    public Callable<Object> operation(String name) {
+        switch (name) {
+            case "scramble":
+                return () -> ChatCodec.scramble(MESSAGE);
+            case "descramble":
+                return () -> ChatCodec.descramble(scrambled, 0, scrambled.length);
+            default:
+                throw new IllegalArgumentException(name);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+import bench.Workload;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * The NPC and combat phases of a {@link GameLoop} tick with {@code size}
+ * players each fighting their own NPC, plus as many idle NPCs walking around.
+ * Both sides get enough hitpoints that nobody dies or retreats.
+ */
+public class GameLoopWorkload implements Workload {
+    private GameLoop gameLoop;
+    private List<Player> players;
+
+    @Override
+    public void setup(int size) {
+        gameLoop = BenchWorld.context().getGameLoop();
+        players = BenchWorld.addPlayers(size, 256, 5);
+        List<Npc> npcs = BenchWorld.addNpcs(size * 2, 256, 6);
+        for (int i = 0; i < size; i++) {
+            Player player = players.get(i);
+            Npc npc = npcs.get(i);
+            npc.setMaxHits(1_000_000);
+            npc.setCurrentHits(1_000_000);
+            npc.setInCombat(true);
+            npc.setCombatTarget(player);
+            player.getCurrentStats()[3] = 1_000_000;
+            player.setAttackingNpc(npc);
+            player.setInCombat(true);
+        }
+    }
+
+    @Override
+    public void tearDown() {
+        BenchWorld.removePlayers(players);
+    }
+
+    @Override
+    public Callable<Object> operation(String name) {
+        switch (name) {
+            case "npcPhase":
+                return () -> {
+                    gameLoop.processNpcs();
+                    return gameLoop;
+                };
+            case "combatPhase":
+                return () -> {
+                    gameLoop.processCombat();
+                    for (Player player : players) {
+                        player.getOutbound().clear();
+                    }
+                    return gameLoop;
+                };
+            default:
+                throw new IllegalArgumentException(name);
+        }
+    }
+}
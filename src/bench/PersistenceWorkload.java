@@ -0,0 +1,59 @@
+import bench.Workload;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * Saving and loading one player's data. The store is data/bench-players.db
+ * relative to the working directory, which the ant bench target points at
+ * out/bench-work. It is a file of its own because the server context that
+ * BenchWorld starts already holds data/players.db locked. "snapshot" is the
+ * part of a save that runs on the game thread, "save" the writer thread's
+ * part (without fsync; compaction runs whenever enough of the file is
+ * garbage, as on the server).
+ */
+public class PersistenceWorkload implements Workload {
+    private Player player;
+    private PlayerStore store;
+
+    @Override
+    public void setup(int size) {
+        player = BenchWorld.addPlayers(1, 8, 7).get(0);
+        try {
+            store = PlayerStore.open(Paths.get("data/bench-players.db"));
+            store.append(PlayerSave.of(player));
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @Override
+    public void tearDown() {
+        BenchWorld.removePlayers(List.of(player));
+        try {
+            store.close();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @Override
+    public Callable<Object> operation(String name) {
+        switch (name) {
+            case "snapshot":
+                return () -> PlayerSave.of(player);
+            case "save":
+                return () -> {
+                    store.append(PlayerSave.of(player));
+                    store.compactIfNeeded();
+                    return player;
+                };
+            case "load":
+                return () -> store.read(player.getUsername());
+            default:
+                throw new IllegalArgumentException(name);
+        }
+    }
+}
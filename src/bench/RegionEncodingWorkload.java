@@ -0,0 +1,58 @@
+import bench.Workload;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * Building one player's SV_REGION_PLAYERS and SV_REGION_NPCS packets with
+ * {@code size} players and NPCs in view. Every other visible player is
+ * marked as moved on each call so the moved-record path is exercised.
+ */
+public class RegionEncodingWorkload implements Workload {
+    private Player viewer;
+    private List<Player> others;
+
+    @Override
+    public void setup(int size) throws Exception {
+        BenchWorld.context();
+        viewer = BenchWorld.addPlayers(1, 1, 1).get(0);
+        others = BenchWorld.addPlayers(size, 20, 2);
+        BenchWorld.addNpcs(size, 20, 3);
+
+        viewer.getKnownPlayers().addAll(others);
+        PlayerPacketSender.sendRegionNpcs(viewer); // learn the NPCs once
+        viewer.getOutbound().clear();
+    }
+
+    @Override
+    public void tearDown() {
+        BenchWorld.removePlayers(others);
+        BenchWorld.removePlayers(List.of(viewer));
+    }
+
+    @Override
+    public Callable<Object> operation(String name) {
+        switch (name) {
+            case "regionPlayers":
+                return this::regionPlayers;
+            case "regionNpcs":
+                return this::regionNpcs;
+            default:
+                throw new IllegalArgumentException(name);
+        }
+    }
+
+    private Object regionPlayers() throws Exception {
+        for (int i = 0; i < others.size(); i += 2) {
+            viewer.getMovedPlayers().add(others.get(i));
+        }
+        CL_WalkHandler.sendRegionPlayersUpdate(viewer);
+        viewer.getOutbound().clear();
+        return viewer;
+    }
+
+    private Object regionNpcs() throws Exception {
+        PlayerPacketSender.sendRegionNpcs(viewer);
+        viewer.getOutbound().clear();
+        return viewer;
+    }
+}
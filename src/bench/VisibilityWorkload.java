@@ -0,0 +1,42 @@
+import bench.Workload;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * One tick's worth of {@link VisibilityService#refreshVisibility} for
+ * {@code size} players crowded into a 96x96 tile area. Known sets are
+ * settled during setup, so this measures the steady state.
+ */
+public class VisibilityWorkload implements Workload {
+    private VisibilityService visibility;
+    private List<Player> online;
+
+    @Override
+    public void setup(int size) {
+        visibility = BenchWorld.context().getVisibilityService();
+        online = BenchWorld.addPlayers(size, 96, 4);
+        for (Player player : online) {
+            visibility.refreshVisibility(player);
+            player.getKnownPlayers().addAll(player.getAddedPlayers());
+            player.getAddedPlayers().clear();
+        }
+    }
+
+    @Override
+    public void tearDown() {
+        BenchWorld.removePlayers(online);
+    }
+
+    @Override
+    public Callable<Object> operation(String name) {
+        if (!name.equals("refreshAll")) {
+            throw new IllegalArgumentException(name);
+        }
+        return () -> {
+            for (Player player : online) {
+                visibility.refreshVisibility(player);
+            }
+            return online;
+        };
+    }
+}
@@ -0,0 +1,57 @@
+package bench;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * NetHelper.setBitMask versus BitWriter for a region update body. See {@code BitPackingWorkload}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BitPackingBenchmark {
+    @Param({"16", "250"})
+    public int entities;
+
+    private Workload workload;
+    private Callable<Object> setBitMaskOp;
+    private Callable<Object> bitWriterOp;
+
+    @Setup
+    public void setup() throws Exception {
+        workload = Workload.create("BitPackingWorkload");
+        workload.setup(entities);
+        setBitMaskOp = workload.operation("setBitMask");
+        bitWriterOp = workload.operation("bitWriter");
+    }
+
+    @TearDown
+    public void tearDown() {
+        workload.tearDown();
+    }
+
+    @Benchmark
+    public Object setBitMask() throws Exception {
+        return setBitMaskOp.call();
+    }
+
+    @Benchmark
+    public Object bitWriter() throws Exception {
+        return bitWriterOp.call();
+    }
+}
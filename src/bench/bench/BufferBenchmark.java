@@ -0,0 +1,53 @@
+package bench;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * common Buffer put/get throughput. See {@code BufferWorkload}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BufferBenchmark {
+    private Workload workload;
+    private Callable<Object> putOp;
+    private Callable<Object> getOp;
+
+    @Setup
+    public void setup() throws Exception {
+        workload = Workload.create("BufferWorkload");
+        workload.setup(0);
+        putOp = workload.operation("put");
+        getOp = workload.operation("get");
+    }
+
+    @TearDown
+    public void tearDown() {
+        workload.tearDown();
+    }
+
+    @Benchmark
+    public Object put() throws Exception {
+        return putOp.call();
+    }
+
+    @Benchmark
+    public Object get() throws Exception {
+        return getOp.call();
+    }
+}
@@ -0,0 +1,53 @@
+package bench;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * ChatCodec scramble/descramble. See {@code ChatCodecWorkload}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ChatCodecBenchmark {
+    private Workload workload;
+    private Callable<Object> scrambleOp;
+    private Callable<Object> descrambleOp;
+
+    @Setup
+    public void setup() throws Exception {
+        workload = Workload.create("ChatCodecWorkload");
+        workload.setup(0);
+        scrambleOp = workload.operation("scramble");
+        descrambleOp = workload.operation("descramble");
+    }
+
+    @TearDown
+    public void tearDown() {
+        workload.tearDown();
+    }
+
+    @Benchmark
+    public Object scramble() throws Exception {
+        return scrambleOp.call();
+    }
+
+    @Benchmark
+    public Object descramble() throws Exception {
+        return descrambleOp.call();
+    }
+}
@@ -0,0 +1,57 @@
+package bench;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * GameLoop NPC and combat phases. See {@code GameLoopWorkload}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GameLoopBenchmark {
+    @Param({"500", "2000"})
+    public int fighters;
+
+    private Workload workload;
+    private Callable<Object> npcPhaseOp;
+    private Callable<Object> combatPhaseOp;
+
+    @Setup
+    public void setup() throws Exception {
+        workload = Workload.create("GameLoopWorkload");
+        workload.setup(fighters);
+        npcPhaseOp = workload.operation("npcPhase");
+        combatPhaseOp = workload.operation("combatPhase");
+    }
+
+    @TearDown
+    public void tearDown() {
+        workload.tearDown();
+    }
+
+    @Benchmark
+    public Object npcPhase() throws Exception {
+        return npcPhaseOp.call();
+    }
+
+    @Benchmark
+    public Object combatPhase() throws Exception {
+        return combatPhaseOp.call();
+    }
+}
@@ -0,0 +1,60 @@
+package bench;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * PlayerPersistence save/load of one player. See {@code PersistenceWorkload}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PersistenceBenchmark {
+    private Workload workload;
+    private Callable<Object> snapshotOp;
+    private Callable<Object> saveOp;
+    private Callable<Object> loadOp;
+
+    @Setup
+    public void setup() throws Exception {
+        workload = Workload.create("PersistenceWorkload");
+        workload.setup(0);
+        snapshotOp = workload.operation("snapshot");
+        saveOp = workload.operation("save");
+        loadOp = workload.operation("load");
+    }
+
+    @TearDown
+    public void tearDown() {
+        workload.tearDown();
+    }
+
+    @Benchmark
+    public Object snapshot() throws Exception {
+        return snapshotOp.call();
+    }
+
+    @Benchmark
+    public Object save() throws Exception {
+        return saveOp.call();
+    }
+
+    @Benchmark
+    public Object load() throws Exception {
+        return loadOp.call();
+    }
+}
@@ -0,0 +1,57 @@
+package bench;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Region player/NPC packet encoding for one viewer. See {@code RegionEncodingWorkload}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RegionEncodingBenchmark {
+    @Param({"10", "100", "250"})
+    public int visible;
+
+    private Workload workload;
+    private Callable<Object> regionPlayersOp;
+    private Callable<Object> regionNpcsOp;
+
+    @Setup
+    public void setup() throws Exception {
+        workload = Workload.create("RegionEncodingWorkload");
+        workload.setup(visible);
+        regionPlayersOp = workload.operation("regionPlayers");
+        regionNpcsOp = workload.operation("regionNpcs");
+    }
+
+    @TearDown
+    public void tearDown() {
+        workload.tearDown();
+    }
+
+    @Benchmark
+    public Object regionPlayers() throws Exception {
+        return regionPlayersOp.call();
+    }
+
+    @Benchmark
+    public Object regionNpcs() throws Exception {
+        return regionNpcsOp.call();
+    }
+}
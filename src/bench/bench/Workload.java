@@ -0,0 +1,30 @@
+package bench;
+
+import java.util.concurrent.Callable;
+
+/**
+ * A piece of server code set up for measuring.
+ *
+ * The server classes live in the default package, which JMH benchmark
+ * classes (required to be in a named package) cannot reference. Workloads
+ * are therefore written next to BenchWorld in the default package, and the
+ * benchmarks in this package load them by name and time their operations.
+ */
+public interface Workload {
+    /**
+     * Build whatever the operations need; {@code size} is the benchmark's parameter.
+     */
+    void setup(int size) throws Exception;
+
+    /**
+     * The operation with the given name, resolved once so the timed call is a plain invocation.
+     */
+    Callable<Object> operation(String name);
+
+    default void tearDown() {
+    }
+
+    static Workload create(String className) throws ReflectiveOperationException {
+        return (Workload) Class.forName(className).getDeclaredConstructor().newInstance();
+    }
+}
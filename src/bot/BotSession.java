@@ -0,0 +1,328 @@
+import common.ChatCodec;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Random;
+
+/**
+ * One headless bot connection.
+ *
+ * Goes through CL_SESSION (8 byte session id back) and CL_LOGIN (4 byte
+ * response code back), then reads framed packets and plays: random walks
+ * around its position, chat lines, attacks on NPCs it has seen in
+ * SV_REGION_NPCS, and pings. Driven entirely by the {@link LoadBot} thread.
+ */
+final class BotSession {
+    enum State {
+        CONNECTING,
+        SESSION,
+        LOGIN,
+        IN_GAME,
+        CLOSED
+    }
+
+    private static final String PING_REPLY = "Hi from the server";
+    private static final String[] CHAT_LINES = {
+        "hello", "anyone want to trade?", "selling lobsters", "lol", "where is the bank", "nice"
+    };
+
+    private final String username;
+    private final SocketChannel channel;
+    private final BotStats stats;
+    private final long tickMicros;
+    private final Random random;
+    private final ArrayDeque<ByteBuffer> writeQueue = new ArrayDeque<>();
+    private ByteBuffer readBuffer = ByteBuffer.allocate(8192);
+    private SelectionKey key;
+
+    private State state = State.CONNECTING;
+    private long connectStarted;
+    private long lastRegionUpdate;
+    private int regionUpdates;
+    private long pingSentAt;
+    private int x;
+    private int y;
+    private final int[] seenNpcs = new int[32];
+    private int seenNpcCount;
+
+    private long nextWalk;
+    private long nextChat;
+    private long nextAttack;
+    private long nextPing;
+
+    BotSession(String username, SocketChannel channel, BotStats stats, long tickMicros, Random random) {
+        this.username = username;
+        this.channel = channel;
+        this.stats = stats;
+        this.tickMicros = tickMicros;
+        this.random = random;
+        this.connectStarted = System.nanoTime();
+    }
+
+    void attach(SelectionKey key) {
+        this.key = key;
+    }
+
+    State getState() {
+        return state;
+    }
+
+    /**
+     * The non-blocking connect completed: ask for a session.
+     */
+    void onConnected() throws IOException {
+        channel.finishConnect();
+        state = State.SESSION;
+        Buffer out = new Buffer();
+        out.putShort(Opcodes.Client.CL_SESSION.value);
+        out.putString(username);
+        send(out);
+    }
+
+    void onReadable() throws IOException {
+        int read = channel.read(readBuffer);
+        if (read < 0) {
+            close(true);
+            return;
+        }
+        stats.bytesReceived += read;
+        readBuffer.flip();
+        while (state != State.CLOSED && consume()) {
+            // keep going while whole messages are buffered
+        }
+        readBuffer.compact();
+        if (!readBuffer.hasRemaining()) {
+            ByteBuffer larger = ByteBuffer.allocate(readBuffer.capacity() * 2);
+            readBuffer.flip();
+            larger.put(readBuffer);
+            readBuffer = larger;
+        }
+    }
+
+    void onWritable() throws IOException {
+        while (!writeQueue.isEmpty()) {
+            ByteBuffer head = writeQueue.peek();
+            channel.write(head);
+            if (head.hasRemaining()) {
+                return;
+            }
+            writeQueue.poll();
+        }
+        key.interestOps(SelectionKey.OP_READ);
+    }
+
+    /**
+     * Take one message from the read buffer; false when more bytes are needed.
+     */
+    private boolean consume() throws IOException {
+        switch (state) {
+            case SESSION: {
+                if (readBuffer.remaining() < 8) {
+                    return false;
+                }
+                long sessionId = readBuffer.getLong();
+                state = State.LOGIN;
+                Buffer out = new Buffer();
+                out.putShort(Opcodes.Client.CL_LOGIN.value);
+                out.putInt(204);
+                out.putLong(sessionId);
+                out.putString(username);
+                out.putString("bot");
+                send(out);
+                return true;
+            }
+            case LOGIN: {
+                if (readBuffer.remaining() < 4) {
+                    return false;
+                }
+                int code = readBuffer.getInt();
+                if (code != 0) {
+                    stats.failed++;
+                    LoadBot.log(username + " login rejected with code " + code);
+                    close(false);
+                    return false;
+                }
+                state = State.IN_GAME;
+                stats.online++;
+                stats.loginMicros.record((System.nanoTime() - connectStarted) / 1000);
+                long now = System.nanoTime();
+                nextWalk = now + randomMillis(1000, 4000);
+                nextChat = now + randomMillis(5000, 30000);
+                nextAttack = now + randomMillis(10000, 30000);
+                nextPing = now + randomMillis(1000, 5000);
+                return true;
+            }
+            case IN_GAME: {
+                if (readBuffer.remaining() < 2) {
+                    return false;
+                }
+                int length = readBuffer.getShort(readBuffer.position()) & 0xFFFF;
+                if (readBuffer.remaining() < 2 + length) {
+                    return false;
+                }
+                readBuffer.getShort();
+                byte[] packet = new byte[length];
+                readBuffer.get(packet);
+                stats.packetsReceived++;
+                handlePacket(packet);
+                return true;
+            }
+            default:
+                return false;
+        }
+    }
+
+    private void handlePacket(byte[] packet) {
+        if (packet.length < 2) {
+            return;
+        }
+        int opcode = ((packet[0] & 0xFF) << 8) | (packet[1] & 0xFF);
+        if (opcode == Opcodes.Server.SV_REGION_PLAYERS.value) {
+            long now = System.nanoTime();
+            // The login burst sends an extra update outside the tick; start measuring after it
+            if (++regionUpdates > 2) {
+                long interval = (now - lastRegionUpdate) / 1000;
+                stats.tickJitterMicros.record(Math.abs(interval - tickMicros));
+            }
+            lastRegionUpdate = now;
+            if (packet.length >= 2 + 3) {
+                x = readBits(packet, 16, 11);
+                y = readBits(packet, 27, 13);
+            }
+        } else if (opcode == Opcodes.Server.SV_REGION_NPCS.value) {
+            readNewNpcs(packet);
+        } else if (opcode == Opcodes.Server.SV_MESSAGE.value && pingSentAt != 0) {
+            Buffer in = new Buffer(packet);
+            in.getShort();
+            if (PING_REPLY.equals(in.getString())) {
+                stats.pingMicros.record((System.nanoTime() - pingSentAt) / 1000);
+                pingSentAt = 0;
+            }
+        }
+    }
+
+    /**
+     * Skip the known-NPC records and remember the server indexes of newly added NPCs.
+     */
+    private void readNewNpcs(byte[] packet) {
+        int bit = 16;
+        int end = packet.length * 8;
+        if (bit + 8 > end) {
+            return;
+        }
+        int known = readBits(packet, bit, 8);
+        bit += 8;
+        for (int i = 0; i < known && bit < end; i++) {
+            if (readBits(packet, bit++, 1) == 0) {
+                continue;
+            }
+            bit += readBits(packet, bit++, 1) == 0 ? 3 : 4;
+        }
+        while (bit + 36 <= end) {
+            int serverIndex = readBits(packet, bit, 12);
+            seenNpcs[seenNpcCount++ % seenNpcs.length] = serverIndex;
+            bit += 36;
+        }
+    }
+
+    /**
+     * Called every loop iteration for in-game bots; sends whatever action is due.
+     */
+    void act(long now) throws IOException {
+        if (now >= nextWalk && x > 0) {
+            Buffer out = new Buffer();
+            out.putShort(Opcodes.Client.CL_WALK.value);
+            out.putShort((short) x);
+            out.putShort((short) y);
+            int steps = 1 + random.nextInt(3);
+            for (int i = 0; i < steps; i++) {
+                out.putByte((byte) (random.nextInt(13) - 6));
+                out.putByte((byte) (random.nextInt(13) - 6));
+            }
+            send(out);
+            stats.walks++;
+            nextWalk = now + randomMillis(2000, 6000);
+        }
+        if (now >= nextChat) {
+            Buffer out = new Buffer();
+            out.putShort(Opcodes.Client.CL_CHAT.value);
+            out.putBytes(ChatCodec.scramble(CHAT_LINES[random.nextInt(CHAT_LINES.length)]));
+            send(out);
+            stats.chats++;
+            nextChat = now + randomMillis(15000, 45000);
+        }
+        if (now >= nextAttack && seenNpcCount > 0) {
+            Buffer out = new Buffer();
+            out.putShort(Opcodes.Client.CL_NPC_ATTACK.value);
+            out.putShort((short) seenNpcs[random.nextInt(Math.min(seenNpcCount, seenNpcs.length))]);
+            send(out);
+            stats.attacks++;
+            nextAttack = now + randomMillis(20000, 40000);
+        }
+        if (now >= nextPing && pingSentAt == 0) {
+            Buffer out = new Buffer();
+            out.putShort(Opcodes.Client.CL_PING.value);
+            send(out);
+            stats.pings++;
+            pingSentAt = now;
+            nextPing = now + randomMillis(4000, 6000);
+        }
+    }
+
+    void logout() throws IOException {
+        if (state == State.IN_GAME) {
+            Buffer out = new Buffer();
+            out.putShort(Opcodes.Client.CL_LOGOUT.value);
+            send(out);
+        }
+    }
+
+    void close(boolean unexpected) {
+        if (state == State.CLOSED) {
+            return;
+        }
+        if (state == State.IN_GAME) {
+            stats.online--;
+            if (unexpected) {
+                stats.disconnected++;
+            }
+        } else if (unexpected) {
+            stats.failed++;
+        }
+        state = State.CLOSED;
+        if (key != null) {
+            key.cancel();
+        }
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    private void send(Buffer packet) throws IOException {
+        ByteBuffer bytes = ByteBuffer.wrap(packet.toArrayWithLen());
+        if (writeQueue.isEmpty()) {
+            channel.write(bytes);
+            if (!bytes.hasRemaining()) {
+                return;
+            }
+        }
+        writeQueue.add(bytes);
+        key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+    }
+
+    private long randomMillis(int min, int max) {
+        return (min + random.nextInt(max - min)) * 1_000_000L;
+    }
+
+    private static int readBits(byte[] data, int bitOffset, int numBits) {
+        int value = 0;
+        for (int i = 0; i < numBits; i++) {
+            int bit = bitOffset + i;
+            value = (value << 1) | ((data[bit >> 3] >> (7 - (bit & 7))) & 1);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,43 @@
+/**
+ * Counters and latency histograms shared by every bot of a {@link LoadBot} run.
+ * Only the LoadBot thread touches them. Latencies are recorded in microseconds.
+ */
+final class BotStats {
+    final LatencyHistogram loginMicros = new LatencyHistogram();
+    final LatencyHistogram pingMicros = new LatencyHistogram();
+    final LatencyHistogram tickJitterMicros = new LatencyHistogram();
+
+    int started;
+    int online;
+    int failed;
+    int disconnected;
+    long bytesReceived;
+    long packetsReceived;
+    long walks;
+    long chats;
+    long attacks;
+    long pings;
+
+    String summary(long elapsedMillis) {
+        double seconds = Math.max(0.001, elapsedMillis / 1000.0);
+        int bots = Math.max(1, started - failed);
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("t=%.0fs bots: started=%d online=%d failed=%d disconnected=%d%n",
+            seconds, started, online, failed, disconnected));
+        sb.append(String.format("  login    %s%n", latency(loginMicros)));
+        sb.append(String.format("  ping rtt %s (includes waiting for the tick flush)%n", latency(pingMicros)));
+        sb.append(String.format("  tick jitter %s%n", latency(tickJitterMicros)));
+        sb.append(String.format("  received %d bytes, %d packets; %.0f bytes/s per bot%n",
+            bytesReceived, packetsReceived, bytesReceived / seconds / bots));
+        sb.append(String.format("  sent walks=%d chats=%d attacks=%d pings=%d", walks, chats, attacks, pings));
+        return sb.toString();
+    }
+
+    private static String latency(LatencyHistogram histogram) {
+        return String.format("n=%d p50=%.1fms p99=%.1fms max=%.1fms",
+            histogram.getCount(),
+            histogram.getPercentile(50) / 1000.0,
+            histogram.getPercentile(99) / 1000.0,
+            histogram.getMax() / 1000.0);
+    }
+}
@@ -0,0 +1,168 @@
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Headless load generator: logs in many bot sessions against a running
+ * server and reports login latency, ping round-trip, tick jitter seen by the
+ * bots and bytes received.
+ *
+ * All sessions share one selector thread, so thousands of bots need no more
+ * than a single core on the load machine.
+ *
+ * Usage: java -jar bot.jar [--host 127.0.0.1] [--port 43594] [--bots 100]
+ *        [--ramp 50] [--duration 60] [--prefix bot] [--tick 640] [--report 10]
+ */
+public final class LoadBot {
+    private String host = "127.0.0.1";
+    private int port = 43594;
+    private int bots = 100;
+    private int rampPerSecond = 50;
+    private int durationSeconds = 60;
+    private String prefix = "bot";
+    private int tickMillis = 640;
+    private int reportSeconds = 10;
+
+    private final BotStats stats = new BotStats();
+    private final List<BotSession> sessions = new ArrayList<>();
+    private final Random random = new Random();
+
+    public static void main(String[] args) throws IOException {
+        LoadBot loadBot = new LoadBot();
+        loadBot.parseArgs(args);
+        loadBot.run();
+    }
+
+    static void log(String message) {
+        System.out.println("[LoadBot] " + message);
+    }
+
+    private void parseArgs(String[] args) {
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--host": host = value; break;
+                case "--port": port = Integer.parseInt(value); break;
+                case "--bots": bots = Integer.parseInt(value); break;
+                case "--ramp": rampPerSecond = Integer.parseInt(value); break;
+                case "--duration": durationSeconds = Integer.parseInt(value); break;
+                case "--prefix": prefix = value; break;
+                case "--tick": tickMillis = Integer.parseInt(value); break;
+                case "--report": reportSeconds = Integer.parseInt(value); break;
+                default: throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        if (prefix.length() + String.valueOf(bots - 1).length() > 12) {
+            throw new IllegalArgumentException("Usernames are limited to 12 characters; use a shorter --prefix");
+        }
+    }
+
+    private void run() throws IOException {
+        log("Starting " + bots + " bots against " + host + ":" + port + " (" + rampPerSecond + "/s, "
+            + (durationSeconds > 0 ? durationSeconds + "s" : "until killed") + ")");
+        Selector selector = Selector.open();
+        InetSocketAddress address = new InetSocketAddress(host, port);
+
+        long start = System.nanoTime();
+        long end = durationSeconds > 0 ? start + durationSeconds * 1_000_000_000L : Long.MAX_VALUE;
+        long nextReport = start + reportSeconds * 1_000_000_000L;
+
+        while (System.nanoTime() < end) {
+            selector.select(20);
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                SelectionKey key = keys.next();
+                keys.remove();
+                handle(key);
+            }
+
+            long now = System.nanoTime();
+            long due = Math.min(bots, (now - start) / 1_000_000L * rampPerSecond / 1000 + 1);
+            while (stats.started < due) {
+                startBot(selector, address, stats.started);
+            }
+
+            for (BotSession session : sessions) {
+                if (session.getState() != BotSession.State.IN_GAME) {
+                    continue;
+                }
+                try {
+                    session.act(now);
+                } catch (IOException ex) {
+                    session.close(true);
+                }
+            }
+
+            if (now >= nextReport) {
+                log(stats.summary((now - start) / 1_000_000L));
+                nextReport = now + reportSeconds * 1_000_000_000L;
+            }
+        }
+
+        for (BotSession session : sessions) {
+            try {
+                session.logout();
+            } catch (IOException ignored) {
+            }
+        }
+        log("Final report:\n" + stats.summary((System.nanoTime() - start) / 1_000_000L));
+        try {
+            Thread.sleep(500); // let the logouts reach the server
+        } catch (InterruptedException ignored) {
+            Thread.currentThread().interrupt();
+        }
+        for (BotSession session : sessions) {
+            session.close(false);
+        }
+        selector.close();
+    }
+
+    private void startBot(Selector selector, InetSocketAddress address, int index) {
+        stats.started++;
+        try {
+            SocketChannel channel = SocketChannel.open();
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            BotSession session = new BotSession(prefix + index, channel, stats, tickMillis * 1000L,
+                                                new Random(random.nextLong()));
+            sessions.add(session);
+            if (channel.connect(address)) {
+                session.attach(channel.register(selector, SelectionKey.OP_READ, session));
+                session.onConnected();
+            } else {
+                session.attach(channel.register(selector, SelectionKey.OP_CONNECT, session));
+            }
+        } catch (IOException ex) {
+            stats.failed++;
+            log(prefix + index + " could not connect: " + ex.getMessage());
+        }
+    }
+
+    private void handle(SelectionKey key) {
+        BotSession session = (BotSession) key.attachment();
+        try {
+            if (!key.isValid()) {
+                return;
+            }
+            if (key.isConnectable()) {
+                key.interestOps(SelectionKey.OP_READ);
+                session.onConnected();
+                return;
+            }
+            if (key.isWritable()) {
+                session.onWritable();
+            }
+            if (key.isReadable()) {
+                session.onReadable();
+            }
+        } catch (IOException ex) {
+            session.close(true);
+        }
+    }
+}
@@ -31,6 +31,13 @@ public class Logger {
         return LOG_LEVEL;
     }
     
+    /**
+     * Whether debug messages are shown; check it before building expensive debug strings.
+     */
+    public static boolean isDebugEnabled() {
+        return LOG_LEVEL >= LEVEL_DEBUG;
+    }
+    
     /**
      * Log a debug message (only shown when LOG_LEVEL >= LEVEL_DEBUG)
      */
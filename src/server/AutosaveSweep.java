@@ -0,0 +1,85 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Periodic autosave, spread evenly over the autosave interval.
+ *
+ * Each round takes the online players in turn and snapshots a slice of them
+ * every tick, sized so the round ends within the interval. Only players with
+ * changes since their last snapshot are queued for the writer, so the disk
+ * load follows how much is actually changing, not how many players are on.
+ * A player who joins mid-round is first visited in the next round, so
+ * nobody goes more than two intervals without a save. Game thread only.
+ */
+public final class AutosaveSweep {
+    private final PlayerRepository players;
+    private final PlayerSaveService saves;
+    private final long intervalTicks;
+    private final List<Player> round = new ArrayList<>();
+    private int cursor = 0;
+    private long ticksIntoRound;
+    private long roundSnapshots = 0;
+
+    /**
+     * @param intervalTicks ticks per round; 0 disables autosave
+     */
+    public AutosaveSweep(PlayerRepository players, PlayerSaveService saves, long intervalTicks) {
+        this.players = players;
+        this.saves = saves;
+        this.intervalTicks = intervalTicks;
+        this.ticksIntoRound = intervalTicks; // Start the first round on the first tick
+    }
+
+    /**
+     * Snapshot this tick's slice of the round.
+     *
+     * @return the number of snapshots queued
+     */
+    public int tick() {
+        if (intervalTicks <= 0) {
+            return 0;
+        }
+        if (ticksIntoRound >= intervalTicks) {
+            if (!round.isEmpty()) {
+                Logger.debug("Autosave round visited " + round.size() + " players, saved " + roundSnapshots);
+            }
+            round.clear();
+            round.addAll(players.getOnlinePlayers());
+            cursor = 0;
+            ticksIntoRound = 0;
+            roundSnapshots = 0;
+        }
+        ticksIntoRound++;
+
+        // Spread what is left of the round over the ticks left in it
+        int left = round.size() - cursor;
+        long ticksLeft = intervalTicks - ticksIntoRound + 1;
+        int slice = (int) ((left + ticksLeft - 1) / ticksLeft);
+        int queued = 0;
+        for (int i = 0; i < slice; i++) {
+            Player player = round.get(cursor);
+            round.set(cursor++, null);
+            // Skip players who left; their logout already saved them
+            if (players.findByUsername(player.getUsername()).orElse(null) == player && saves.snapshot(player)) {
+                queued++;
+            }
+        }
+        roundSnapshots += queued;
+        return queued;
+    }
+
+    /**
+     * Snapshot every online player with unsaved changes, e.g. before shutdown.
+     *
+     * @return the number of snapshots queued
+     */
+    public int saveAll() {
+        int queued = 0;
+        for (Player player : players.getOnlinePlayers()) {
+            if (saves.snapshot(player)) {
+                queued++;
+            }
+        }
+        return queued;
+    }
+}
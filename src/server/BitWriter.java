@@ -0,0 +1,80 @@
+/**
+ * Reusable writer for bit-packed packet bodies (region players/NPCs).
+ *
+ * Bits are written most-significant first, the same layout as
+ * {@link NetHelper#setBitMask}, but collected in a 64-bit accumulator and
+ * emitted a whole byte at a time. The backing array is kept between packets,
+ * so encoding into a writer from {@link #get()} does not allocate once the
+ * array has grown to the largest packet seen.
+ */
+public final class BitWriter {
+    private static final int INITIAL_CAPACITY = 512;
+
+    private static final ThreadLocal<BitWriter> PER_THREAD = ThreadLocal.withInitial(BitWriter::new);
+
+    private byte[] data = new byte[INITIAL_CAPACITY];
+    private int length = 0;
+    private long accumulator = 0;
+    private int pendingBits = 0;
+
+    /**
+     * The calling thread's writer, reset and ready for a new packet.
+     * Each game/update thread encodes one packet at a time, so one writer per thread is enough.
+     */
+    public static BitWriter get() {
+        BitWriter writer = PER_THREAD.get();
+        writer.reset();
+        return writer;
+    }
+
+    public void reset() {
+        length = 0;
+        accumulator = 0;
+        pendingBits = 0;
+    }
+
+    /**
+     * Append the low {@code numBits} bits of {@code value} (1-32 bits).
+     */
+    public void write(int numBits, int value) {
+        accumulator = (accumulator << numBits) | (value & (0xFFFFFFFFL >>> (32 - numBits)));
+        pendingBits += numBits;
+        while (pendingBits >= 8) {
+            pendingBits -= 8;
+            if (length == data.length) {
+                grow();
+            }
+            data[length++] = (byte) (accumulator >>> pendingBits);
+        }
+    }
+
+    /**
+     * Number of bits written since the last reset.
+     */
+    public int bitPosition() {
+        return length * 8 + pendingBits;
+    }
+
+    /**
+     * Pad the last partial byte with zero bits and return the packet length in bytes.
+     */
+    public int finish() {
+        if (pendingBits > 0) {
+            write(8 - pendingBits, 0);
+        }
+        return length;
+    }
+
+    /**
+     * Backing array; bytes {@code [0, finish())} hold the packet.
+     */
+    public byte[] data() {
+        return data;
+    }
+
+    private void grow() {
+        byte[] larger = new byte[data.length * 2];
+        System.arraycopy(data, 0, larger, 0, length);
+        data = larger;
+    }
+}
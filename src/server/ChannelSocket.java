@@ -0,0 +1,106 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.net.SocketException;
+
+/**
+ * {@link Socket} facade over an {@link NioConnection}.
+ *
+ * Handlers and {@link Player} keep talking to a plain Socket: every
+ * {@code getOutputStream().write(...)} call is queued on the connection as one
+ * chunk and sent by its reactor, and {@code close()} closes the channel.
+ * Reading is owned by the reactor, so there is no input stream.
+ */
+public final class ChannelSocket extends Socket {
+    private final NioConnection connection;
+    private final SocketAddress remoteAddress;
+    private final OutputStream outputStream;
+
+    ChannelSocket(NioConnection connection) {
+        this.connection = connection;
+        this.remoteAddress = connection.getChannel().socket().getRemoteSocketAddress();
+        this.outputStream = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[] {(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                if (connection.isClosed()) {
+                    throw new SocketException("Socket is closed");
+                }
+                connection.send(b, off, len);
+            }
+        };
+    }
+
+    public NioConnection getConnection() {
+        return connection;
+    }
+
+    @Override
+    public OutputStream getOutputStream() throws IOException {
+        if (connection.isClosed()) {
+            throw new SocketException("Socket is closed");
+        }
+        return outputStream;
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        throw new SocketException("Input is read by the NIO reactor");
+    }
+
+    @Override
+    public SocketAddress getRemoteSocketAddress() {
+        return remoteAddress;
+    }
+
+    @Override
+    public InetAddress getInetAddress() {
+        if (remoteAddress instanceof InetSocketAddress) {
+            return ((InetSocketAddress) remoteAddress).getAddress();
+        }
+        return null;
+    }
+
+    @Override
+    public int getPort() {
+        if (remoteAddress instanceof InetSocketAddress) {
+            return ((InetSocketAddress) remoteAddress).getPort();
+        }
+        return 0;
+    }
+
+    @Override
+    public boolean isConnected() {
+        return true;
+    }
+
+    @Override
+    public boolean isClosed() {
+        return connection.isClosed();
+    }
+
+    @Override
+    public void close() {
+        connection.close();
+    }
+
+    /**
+     * Close once the queued output has been sent; {@link #close()} drops it.
+     */
+    public void closeAfterFlush() {
+        connection.closeAfterFlush();
+    }
+
+    @Override
+    public String toString() {
+        return "ChannelSocket[" + remoteAddress + "]";
+    }
+}
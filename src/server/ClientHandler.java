@@ -86,13 +86,17 @@ public class ClientHandler implements Runnable {
             Logger.warn("Failed to close socket: " + ex.getMessage());
         }
 
+        releaseSession(context, socket);
+    }
+
+    /**
+     * Remove whatever player (online or pending) is bound to a closed socket.
+     * Shared by the blocking handler and the NIO transport.
+     */
+    static void releaseSession(ServerContext context, Socket socket) {
         PlayerRepository players = context.getPlayers();
-        players.findBySocket(socket).ifPresent(player -> {
-            // Save player data before cleanup
-            PlayerPersistence.save(player);
-            context.getVisibilityService().handlePlayerRemoval(player);
-            players.removePlayer(player);
-        });
+        // The game thread removes and saves it at the next tick boundary
+        players.findBySocket(socket).ifPresent(context.getLogins()::submitRemoval);
 
         players.findPendingBySocket(socket).ifPresent(players::removePending);
         Logger.info("Client disconnected: " + socket.getRemoteSocketAddress());
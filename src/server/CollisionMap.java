@@ -0,0 +1,334 @@
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Per-tile collision flags for the whole world, all four planes.
+ *
+ * Built at boot from the landscape archive (doc/rs-data/landscape/maps63.jag
+ * plus the members' maps63.mem) and the spawned objects and wall objects. The
+ * flags and the step rules are the client's own (World.objectAdjacency and
+ * World.route), so a path the client computed passes validation here.
+ *
+ * One byte per tile in a flat array; queries do a bounds check and a few
+ * array reads and never allocate. Tiles outside the loaded landscape are open.
+ */
+public final class CollisionMap {
+    // Edge walls; +x is west and +y is south, as on the client's minimap
+    public static final int WALL_NORTH = 0x01;
+    public static final int WALL_EAST = 0x02;
+    public static final int WALL_SOUTH = 0x04;
+    public static final int WALL_WEST = 0x08;
+    // Diagonal walls across the tile, either way round
+    public static final int DIAGONAL_WALL = 0x10;
+    public static final int DIAGONAL_WALL_REVERSED = 0x20;
+    // Scenery or terrain (water, trees, ...) filling the whole tile
+    public static final int SOLID = 0x40;
+
+    private static final int FULL_BLOCK = DIAGONAL_WALL | DIAGONAL_WALL_REVERSED | SOLID;
+
+    // Landscape sectors are 48x48 tiles; sector (48, 37) starts at world (0, 0)
+    private static final int SECTOR_SIZE = 48;
+    private static final int SECTOR_TILES = SECTOR_SIZE * SECTOR_SIZE;
+    private static final int FIRST_SECTOR_X = 48;
+    private static final int FIRST_SECTOR_Y = 37;
+    private static final int MAX_SECTORS_X = 48;
+    private static final int PLANES = 4;
+    private static final int PLANE_HEIGHT = 944;
+    private static final int SECTORS_Y = PLANE_HEIGHT / SECTOR_SIZE + 1;
+
+    // Wall values in the diagonal layer: 1..11999 one way, 12001..23999 the other way
+    private static final int REVERSED_DIAGONAL_OFFSET = 12000;
+
+    public static final CollisionMap EMPTY = new CollisionMap(0, 0, new byte[0]);
+
+    private final int width;
+    private final int height;
+    private final byte[] flags;
+
+    private CollisionMap(int width, int height, byte[] flags) {
+        this.width = width;
+        this.height = height;
+        this.flags = flags;
+    }
+
+    /**
+     * Flags as stored by {@link WorldSnapshot}.
+     */
+    static CollisionMap fromFlags(int width, int height, byte[] flags) {
+        if (flags.length != width * height) {
+            throw new IllegalArgumentException("expected " + width * height + " tiles, got " + flags.length);
+        }
+        return new CollisionMap(width, height, flags);
+    }
+
+    /**
+     * Build the map from the landscape archives in {@code dataPath}/landscape,
+     * the tile/object/wall definitions in {@code dataPath}/config and the given spawns.
+     */
+    public static CollisionMap build(String dataPath,
+                                     List<DataLoader.GameObjectData> objects,
+                                     List<DataLoader.WallObjectData> wallObjects) throws IOException {
+        long start = System.nanoTime();
+        List<TileDefinition> tiles = DataLoader.loadTileDefinitions(dataPath + "/config/tiles.json");
+        List<GameObjectDefinition> objectDefinitions =
+            DataLoader.loadGameObjectDefinitions(dataPath + "/config/objects.json");
+        List<WallObjectDefinition> wallDefinitions =
+            DataLoader.loadWallObjectDefinitions(dataPath + "/config/wall-objects.json");
+        JagArchive maps = JagArchive.open(dataPath + "/landscape/maps63.jag");
+        String membersPath = dataPath + "/landscape/maps63.mem";
+        JagArchive membersMaps = new File(membersPath).isFile() ? JagArchive.open(membersPath) : null;
+
+        // Decode every sector first so the map can be sized to the landscape that exists
+        List<int[]> sectorPositions = new ArrayList<>();
+        List<byte[]> sectorData = new ArrayList<>();
+        int maxSectorX = -1;
+        for (int plane = 0; plane < PLANES; plane++) {
+            for (int sx = 0; sx < MAX_SECTORS_X; sx++) {
+                for (int sy = 0; sy < SECTORS_Y; sy++) {
+                    String name = sectorName(plane, FIRST_SECTOR_X + sx, FIRST_SECTOR_Y + sy) + ".dat";
+                    byte[] data = maps.get(name);
+                    if (data == null && membersMaps != null) {
+                        data = membersMaps.get(name);
+                    }
+                    if (data == null || data.length == 0) {
+                        continue;
+                    }
+                    sectorPositions.add(new int[] {plane, sx, sy});
+                    sectorData.add(data);
+                    maxSectorX = Math.max(maxSectorX, sx);
+                }
+            }
+        }
+
+        CollisionMap map = new CollisionMap((maxSectorX + 1) * SECTOR_SIZE, PLANES * PLANE_HEIGHT,
+                                            new byte[(maxSectorX + 1) * SECTOR_SIZE * PLANES * PLANE_HEIGHT]);
+        boolean[] blockingTiles = new boolean[tiles.size()];
+        for (TileDefinition tile : tiles) {
+            blockingTiles[tile.getId()] = tile.isBlocked();
+        }
+        // Walls drawn from the landscape only collide when visible, like on the client
+        boolean[] blockingMapWalls = new boolean[wallDefinitions.size()];
+        for (WallObjectDefinition wall : wallDefinitions) {
+            blockingMapWalls[wall.getId()] = wall.isBlocked() && !wall.isInvisible();
+        }
+        for (int i = 0; i < sectorData.size(); i++) {
+            int[] position = sectorPositions.get(i);
+            // The last row of sectors runs past the plane; those tiles belong to nothing
+            int rows = Math.min(SECTOR_SIZE, PLANE_HEIGHT - position[2] * SECTOR_SIZE);
+            map.applySector(sectorData.get(i), position[1] * SECTOR_SIZE,
+                            position[0] * PLANE_HEIGHT + position[2] * SECTOR_SIZE, rows,
+                            blockingTiles, blockingMapWalls);
+        }
+
+        for (DataLoader.GameObjectData obj : objects) {
+            if (obj.id >= 0 && obj.id < objectDefinitions.size()) {
+                map.addObject(objectDefinitions.get(obj.id), obj.x, obj.y, obj.direction);
+            }
+        }
+        for (DataLoader.WallObjectData wall : wallObjects) {
+            if (wall.id >= 0 && wall.id < wallDefinitions.size() && wallDefinitions.get(wall.id).isBlocked()) {
+                map.addWallObject(wall.x, wall.y, wall.direction);
+            }
+        }
+
+        Logger.info("Built collision map: " + sectorData.size() + " landscape sectors, " +
+                    map.width + "x" + map.height + " tiles in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+        return map;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * The raw flags, row by row ({@code y * width + x}), for {@link WorldSnapshot}.
+     */
+    byte[] flags() {
+        return flags;
+    }
+
+    /**
+     * Collision flags of a tile (0 outside the map).
+     */
+    public int getFlags(int x, int y) {
+        if (x < 0 || y < 0 || x >= width || y >= height) {
+            return 0;
+        }
+        return flags[y * width + x];
+    }
+
+    /**
+     * Whether nothing at all can stand on the tile.
+     */
+    public boolean isBlocked(int x, int y) {
+        return (getFlags(x, y) & FULL_BLOCK) != 0;
+    }
+
+    /**
+     * Whether a single step from (x, y) by (dx, dy), each -1, 0 or 1, is allowed.
+     * A diagonal step also needs both orthogonal tiles it cuts past to be passable.
+     */
+    public boolean canStep(int x, int y, int dx, int dy) {
+        int xWall = dx > 0 ? WALL_EAST : WALL_WEST;
+        int yWall = dy > 0 ? WALL_NORTH : WALL_SOUTH;
+        if (dx == 0) {
+            return dy == 0 || (getFlags(x, y + dy) & (FULL_BLOCK | yWall)) == 0;
+        }
+        if (dy == 0) {
+            return (getFlags(x + dx, y) & (FULL_BLOCK | xWall)) == 0;
+        }
+        return (getFlags(x + dx, y + dy) & (FULL_BLOCK | xWall | yWall)) == 0
+            && (getFlags(x + dx, y) & (FULL_BLOCK | xWall)) == 0
+            && (getFlags(x, y + dy) & (FULL_BLOCK | yWall)) == 0;
+    }
+
+    // ===== Building =====
+
+    /**
+     * Apply one decoded sector (.dat entry). Layout, per tile in x-major order:
+     * north-south walls, east-west walls, two diagonal wall layers, then the
+     * run-length encoded roof, decoration and direction layers.
+     */
+    private void applySector(byte[] data, int baseX, int baseY, int rows,
+                             boolean[] blockingTiles, boolean[] blockingWalls) {
+        int off = 0;
+        int northSouthOffset = off;
+        off += SECTOR_TILES;
+        int eastWestOffset = off;
+        off += SECTOR_TILES;
+        int[] diagonal = new int[SECTOR_TILES];
+        for (int tile = 0; tile < SECTOR_TILES; tile++) {
+            diagonal[tile] = data[off++] & 0xff;
+        }
+        for (int tile = 0; tile < SECTOR_TILES; tile++) {
+            int value = data[off++] & 0xff;
+            if (value > 0) {
+                diagonal[tile] = value + REVERSED_DIAGONAL_OFFSET;
+            }
+        }
+        // Roofs do not matter for collision
+        for (int tile = 0; tile < SECTOR_TILES; ) {
+            int value = data[off++] & 0xff;
+            tile += value < 128 ? 1 : value - 128;
+        }
+        int[] decoration = new int[SECTOR_TILES];
+        int last = 0;
+        for (int tile = 0; tile < SECTOR_TILES; ) {
+            int value = data[off++] & 0xff;
+            if (value < 128) {
+                decoration[tile++] = value;
+                last = value;
+            } else {
+                for (int i = 0; i < value - 128; i++) {
+                    decoration[tile++] = last;
+                }
+            }
+        }
+
+        for (int tx = 0; tx < SECTOR_SIZE; tx++) {
+            for (int ty = 0; ty < rows; ty++) {
+                int tile = tx * SECTOR_SIZE + ty;
+                int x = baseX + tx;
+                int y = baseY + ty;
+
+                int deco = decoration[tile];
+                if (deco > 0 && deco <= blockingTiles.length && blockingTiles[deco - 1]) {
+                    set(x, y, SOLID);
+                }
+
+                int eastWest = data[eastWestOffset + tile] & 0xff;
+                if (eastWest > 0 && blocks(blockingWalls, eastWest - 1)) {
+                    set(x, y, WALL_NORTH);
+                    if (y % PLANE_HEIGHT > 0) {
+                        set(x, y - 1, WALL_SOUTH);
+                    }
+                }
+                int northSouth = data[northSouthOffset + tile] & 0xff;
+                if (northSouth > 0 && blocks(blockingWalls, northSouth - 1)) {
+                    set(x, y, WALL_EAST);
+                    if (x > 0) {
+                        set(x - 1, y, WALL_WEST);
+                    }
+                }
+                int diag = diagonal[tile];
+                if (diag > 0 && diag < REVERSED_DIAGONAL_OFFSET && blocks(blockingWalls, diag - 1)) {
+                    set(x, y, DIAGONAL_WALL_REVERSED);
+                } else if (diag > REVERSED_DIAGONAL_OFFSET && blocks(blockingWalls, diag - REVERSED_DIAGONAL_OFFSET - 1)) {
+                    set(x, y, DIAGONAL_WALL);
+                }
+            }
+        }
+    }
+
+    /**
+     * Mark a spawned scenery object: solid objects fill their footprint, closed
+     * doors and gates block the edge they face.
+     */
+    private void addObject(GameObjectDefinition def, int x, int y, int direction) {
+        if (!def.isSolid() && !def.isDoor()) {
+            return;
+        }
+        int sizeX = def.getWidth();
+        int sizeY = def.getHeight();
+        if (direction != 0 && direction != 4) {
+            sizeX = def.getHeight();
+            sizeY = def.getWidth();
+        }
+        for (int ox = x; ox < x + sizeX; ox++) {
+            for (int oy = y; oy < y + sizeY; oy++) {
+                if (def.isSolid()) {
+                    set(ox, oy, SOLID);
+                } else if (direction == 0) {
+                    set(ox, oy, WALL_EAST);
+                    set(ox - 1, oy, WALL_WEST);
+                } else if (direction == 2) {
+                    set(ox, oy, WALL_SOUTH);
+                    set(ox, oy + 1, WALL_NORTH);
+                } else if (direction == 4) {
+                    set(ox, oy, WALL_WEST);
+                    set(ox + 1, oy, WALL_EAST);
+                } else if (direction == 6) {
+                    set(ox, oy, WALL_NORTH);
+                    set(ox, oy - 1, WALL_SOUTH);
+                }
+            }
+        }
+    }
+
+    /**
+     * Mark a spawned wall object (door, fence, ...) on its tile edge or diagonal.
+     */
+    private void addWallObject(int x, int y, int direction) {
+        if (direction == 0) {
+            set(x, y, WALL_NORTH);
+            set(x, y - 1, WALL_SOUTH);
+        } else if (direction == 1) {
+            set(x, y, WALL_EAST);
+            set(x - 1, y, WALL_WEST);
+        } else if (direction == 2) {
+            set(x, y, DIAGONAL_WALL);
+        } else if (direction == 3) {
+            set(x, y, DIAGONAL_WALL_REVERSED);
+        }
+    }
+
+    private void set(int x, int y, int flag) {
+        if (x >= 0 && y >= 0 && x < width && y < height) {
+            flags[y * width + x] |= flag;
+        }
+    }
+
+    private static boolean blocks(boolean[] blockingWalls, int id) {
+        return id < blockingWalls.length && blockingWalls[id];
+    }
+
+    private static String sectorName(int plane, int sectorX, int sectorY) {
+        return "m" + plane + sectorX / 10 + sectorX % 10 + sectorY / 10 + sectorY % 10;
+    }
+}
@@ -1,48 +1,57 @@
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * Loads game data from JSON files in doc/rs-data/.
- * Uses simple regex-based parsing since the JSON formats are predictable.
+ * Every file is read in a single pass with {@link JsonReader}; fields are
+ * pulled straight into locals and each loader logs how long its file took.
  */
 public class DataLoader {
+    // Marks a required field that was not present in an object
+    private static final int MISSING = Integer.MIN_VALUE;
 
     /**
      * Load NPC spawn locations from locations/npcs.json.
      * Format: [{"id": N, "x": N, "y": N, "minX": N, "maxX": N, "minY": N, "maxY": N}, ...]
      */
     public static List<Npc> loadNpcs(String filePath) throws IOException {
-        String content = new String(Files.readAllBytes(Paths.get(filePath)));
+        long start = System.nanoTime();
         List<Npc> npcs = new ArrayList<>();
 
-        // Match each JSON object
-        Pattern objPattern = Pattern.compile("\\{[^}]+\\}");
-        Matcher objMatcher = objPattern.matcher(content);
-
-        int serverId = 0;
-        while (objMatcher.find()) {
-            String obj = objMatcher.group();
-            int id = extractInt(obj, "id");
-            int x = extractInt(obj, "\"x\"");
-            int y = extractInt(obj, "\"y\"");
-            int minX = extractIntOr(obj, "minX", x);
-            int maxX = extractIntOr(obj, "maxX", x);
-            int minY = extractIntOr(obj, "minY", y);
-            int maxY = extractIntOr(obj, "maxY", y);
-
-            Npc npc = new Npc(id, x, y, minX, maxX, minY, maxY);
-            npc.setServerId(serverId++);
-            npcs.add(npc);
+        try (JsonReader json = JsonReader.open(filePath)) {
+            int serverId = 0;
+            json.beginArray();
+            while (json.hasNext()) {
+                int id = MISSING, x = MISSING, y = MISSING;
+                int minX = MISSING, maxX = MISSING, minY = MISSING, maxY = MISSING;
+                json.beginObject();
+                while (json.hasNext()) {
+                    switch (json.nextName()) {
+                        case "id": id = json.nextInt(); break;
+                        case "x": x = json.nextInt(); break;
+                        case "y": y = json.nextInt(); break;
+                        case "minX": minX = json.nextInt(); break;
+                        case "maxX": maxX = json.nextInt(); break;
+                        case "minY": minY = json.nextInt(); break;
+                        case "maxY": maxY = json.nextInt(); break;
+                        default: json.skipValue();
+                    }
+                }
+                json.endObject();
+                require(id, "id", filePath);
+                require(x, "x", filePath);
+                require(y, "y", filePath);
+
+                Npc npc = new Npc(id, x, y, or(minX, x), or(maxX, x), or(minY, y), or(maxY, y));
+                npc.setServerId(serverId++);
+                npcs.add(npc);
+            }
+            json.endArray();
+            logLoaded(npcs.size(), "NPC spawns", filePath, json, start);
         }
-
-        Logger.info("Loaded " + npcs.size() + " NPC spawns from " + filePath);
         return npcs;
     }
 
@@ -102,22 +111,19 @@ public class DataLoader {
      * Format: [{"id": N, "direction": N, "x": N, "y": N}, ...]
      */
     public static List<GameObjectData> loadObjects(String filePath) throws IOException {
-        String content = new String(Files.readAllBytes(Paths.get(filePath)));
+        long start = System.nanoTime();
         List<GameObjectData> objects = new ArrayList<>();
 
-        Pattern objPattern = Pattern.compile("\\{[^}]+\\}");
-        Matcher objMatcher = objPattern.matcher(content);
-
-        while (objMatcher.find()) {
-            String obj = objMatcher.group();
-            int id = extractInt(obj, "id");
-            int direction = extractIntOr(obj, "direction", 0);
-            int x = extractInt(obj, "\"x\"");
-            int y = extractInt(obj, "\"y\"");
-            objects.add(new GameObjectData(id, direction, x, y));
+        try (JsonReader json = JsonReader.open(filePath)) {
+            int[] fields = new int[4];
+            json.beginArray();
+            while (json.hasNext()) {
+                readLocation(json, filePath, fields);
+                objects.add(new GameObjectData(fields[0], fields[1], fields[2], fields[3]));
+            }
+            json.endArray();
+            logLoaded(objects.size(), "game objects", filePath, json, start);
         }
-
-        Logger.info("Loaded " + objects.size() + " game objects from " + filePath);
         return objects;
     }
 
@@ -126,22 +132,19 @@ public class DataLoader {
      * Format: [{"id": N, "direction": N, "x": N, "y": N}, ...]
      */
     public static List<WallObjectData> loadWallObjects(String filePath) throws IOException {
-        String content = new String(Files.readAllBytes(Paths.get(filePath)));
+        long start = System.nanoTime();
         List<WallObjectData> walls = new ArrayList<>();
 
-        Pattern objPattern = Pattern.compile("\\{[^}]+\\}");
-        Matcher objMatcher = objPattern.matcher(content);
-
-        while (objMatcher.find()) {
-            String obj = objMatcher.group();
-            int id = extractInt(obj, "id");
-            int direction = extractIntOr(obj, "direction", 0);
-            int x = extractInt(obj, "\"x\"");
-            int y = extractInt(obj, "\"y\"");
-            walls.add(new WallObjectData(id, direction, x, y));
+        try (JsonReader json = JsonReader.open(filePath)) {
+            int[] fields = new int[4];
+            json.beginArray();
+            while (json.hasNext()) {
+                readLocation(json, filePath, fields);
+                walls.add(new WallObjectData(fields[0], fields[1], fields[2], fields[3]));
+            }
+            json.endArray();
+            logLoaded(walls.size(), "wall objects", filePath, json, start);
         }
-
-        Logger.info("Loaded " + walls.size() + " wall objects from " + filePath);
         return walls;
     }
 
@@ -150,55 +153,77 @@ public class DataLoader {
      * Format: [{"id": N, "respawn": N, "x": N, "y": N}, ...]
      */
     public static List<GroundItemData> loadGroundItems(String filePath) throws IOException {
-        String content = new String(Files.readAllBytes(Paths.get(filePath)));
+        long start = System.nanoTime();
         List<GroundItemData> items = new ArrayList<>();
 
-        Pattern objPattern = Pattern.compile("\\{[^}]+\\}");
-        Matcher objMatcher = objPattern.matcher(content);
-
-        while (objMatcher.find()) {
-            String obj = objMatcher.group();
-            int id = extractInt(obj, "id");
-            int x = extractInt(obj, "\"x\"");
-            int y = extractInt(obj, "\"y\"");
-            int respawn = extractIntOr(obj, "respawn", 60000);
-            items.add(new GroundItemData(id, x, y, respawn));
+        try (JsonReader json = JsonReader.open(filePath)) {
+            json.beginArray();
+            while (json.hasNext()) {
+                int id = MISSING, x = MISSING, y = MISSING, respawn = 60000;
+                json.beginObject();
+                while (json.hasNext()) {
+                    switch (json.nextName()) {
+                        case "id": id = json.nextInt(); break;
+                        case "x": x = json.nextInt(); break;
+                        case "y": y = json.nextInt(); break;
+                        case "respawn": respawn = json.nextInt(); break;
+                        default: json.skipValue();
+                    }
+                }
+                json.endObject();
+                require(id, "id", filePath);
+                require(x, "x", filePath);
+                require(y, "y", filePath);
+                items.add(new GroundItemData(id, x, y, respawn));
+            }
+            json.endArray();
+            logLoaded(items.size(), "ground items", filePath, json, start);
         }
-
-        Logger.info("Loaded " + items.size() + " ground items from " + filePath);
         return items;
     }
 
     // ===== Helper methods =====
 
-    private static int extractInt(String obj, String key) {
-        Pattern p = Pattern.compile(quote(key) + "\\s*:\\s*(-?\\d+)");
-        Matcher m = p.matcher(obj);
-        if (m.find()) {
-            return Integer.parseInt(m.group(1));
+    /**
+     * Read one {"id", "direction", "x", "y"} object into {@code fields}
+     * as (id, direction, x, y); direction defaults to 0.
+     */
+    private static void readLocation(JsonReader json, String filePath, int[] fields) throws IOException {
+        int id = MISSING, direction = 0, x = MISSING, y = MISSING;
+        json.beginObject();
+        while (json.hasNext()) {
+            switch (json.nextName()) {
+                case "id": id = json.nextInt(); break;
+                case "direction": direction = json.nextInt(); break;
+                case "x": x = json.nextInt(); break;
+                case "y": y = json.nextInt(); break;
+                default: json.skipValue();
+            }
         }
-        throw new RuntimeException("Key '" + key + "' not found in: " + obj);
+        json.endObject();
+        require(id, "id", filePath);
+        require(x, "x", filePath);
+        require(y, "y", filePath);
+        fields[0] = id;
+        fields[1] = direction;
+        fields[2] = x;
+        fields[3] = y;
     }
 
-    private static int extractIntOr(String obj, String key, int defaultValue) {
-        Pattern p = Pattern.compile(quote(key) + "\\s*:\\s*(-?\\d+)");
-        Matcher m = p.matcher(obj);
-        if (m.find()) {
-            return Integer.parseInt(m.group(1));
+    private static void require(int value, String key, String filePath) {
+        if (value == MISSING) {
+            throw new RuntimeException("Key '" + key + "' missing from an entry in " + filePath);
         }
-        return defaultValue;
     }
 
-    /**
-     * Quote a key for regex, handling both "key" and key formats.
-     */
-    private static String quote(String key) {
-        if (key.startsWith("\"") && key.endsWith("\"")) {
-            // Already quoted
-            return Pattern.quote(key);
-        }
-        // Match with or without quotes
-        return "\"" + Pattern.quote(key) + "\"";
+    private static int or(int value, int defaultValue) {
+        return value == MISSING ? defaultValue : value;
+    }
+
+    private static void logLoaded(int count, String what, String filePath, JsonReader json, long startNanos) {
+        long micros = (System.nanoTime() - startNanos) / 1000;
+        Logger.info("Loaded " + count + " " + what + " from " + filePath
+                    + " (" + (json.getBytesRead() / 1024) + " KB in " + (micros / 1000.0) + " ms)");
     }
 
     // ===== Item & NPC Definition Loading =====
@@ -208,37 +233,50 @@ public class DataLoader {
      * Format: Array of objects with name, description, command, sprite, price, stackable, etc.
      */
     public static List<ItemDefinition> loadItemDefinitions(String filePath) throws IOException {
-        String content = new String(Files.readAllBytes(Paths.get(filePath)));
+        long start = System.nanoTime();
         List<ItemDefinition> items = new ArrayList<>();
 
-        // Split by each JSON object boundary - items.json has clean formatting
-        // Match each top-level object: { ... }
-        Pattern objPattern = Pattern.compile("\\{\\s*\"name\"[^}]+\\}", Pattern.DOTALL);
-        Matcher objMatcher = objPattern.matcher(content);
-
-        int id = 0;
-        while (objMatcher.find()) {
-            String obj = objMatcher.group();
-
-            String name = extractString(obj, "name");
-            String description = extractStringOrNull(obj, "description");
-            String command = extractStringOrNull(obj, "command");
-            int sprite = extractIntOr(obj, "sprite", 0);
-            int price = extractIntOr(obj, "price", 0);
-            boolean stackable = extractBoolOr(obj, "stackable", false);
-            boolean special = extractBoolOr(obj, "special", false);
-            boolean members = extractBoolOr(obj, "members", false);
-            boolean untradeable = extractBoolOr(obj, "untradeable", false);
-
-            // Parse equip slots: "equip": ["right-hand"] or "equip": null
-            List<String> equipSlots = extractStringArray(obj, "equip");
-
-            items.add(new ItemDefinition(id, name, description, command, sprite, price,
-                                         stackable, special, members, untradeable, equipSlots));
-            id++;
+        try (JsonReader json = JsonReader.open(filePath)) {
+            int id = 0;
+            json.beginArray();
+            while (json.hasNext()) {
+                String name = "";
+                String description = null;
+                String command = null;
+                int sprite = 0;
+                int price = 0;
+                boolean stackable = false;
+                boolean special = false;
+                boolean members = false;
+                boolean untradeable = false;
+                List<String> equipSlots = null;
+
+                json.beginObject();
+                while (json.hasNext()) {
+                    switch (json.nextName()) {
+                        case "name": name = orEmpty(json.nextString()); break;
+                        case "description": description = json.nextString(); break;
+                        case "command": command = json.nextString(); break;
+                        case "sprite": sprite = json.nextInt(); break;
+                        case "price": price = json.nextInt(); break;
+                        case "stackable": stackable = json.nextBoolean(); break;
+                        case "special": special = json.nextBoolean(); break;
+                        case "members": members = json.nextBoolean(); break;
+                        case "untradeable": untradeable = json.nextBoolean(); break;
+                        // "equip": ["right-hand"] or "equip": null
+                        case "equip": equipSlots = readStringArray(json); break;
+                        default: json.skipValue();
+                    }
+                }
+                json.endObject();
+
+                items.add(new ItemDefinition(id, name, description, command, sprite, price,
+                                             stackable, special, members, untradeable, equipSlots));
+                id++;
+            }
+            json.endArray();
+            logLoaded(items.size(), "item definitions", filePath, json, start);
         }
-
-        Logger.info("Loaded " + items.size() + " item definitions from " + filePath);
         return items;
     }
 
@@ -247,31 +285,37 @@ public class DataLoader {
      * Format: { "itemId": { "animation": N, "armour": N, ... }, ... }
      */
     public static void loadWieldableData(String filePath, List<ItemDefinition> items) throws IOException {
-        String content = new String(Files.readAllBytes(Paths.get(filePath)));
-
-        // Match key-value pairs: "itemId": { ... }
-        Pattern entryPattern = Pattern.compile("\"(\\d+)\"\\s*:\\s*\\{([^}]+)\\}");
-        Matcher entryMatcher = entryPattern.matcher(content);
-
+        long start = System.nanoTime();
         int count = 0;
-        while (entryMatcher.find()) {
-            int itemId = Integer.parseInt(entryMatcher.group(1));
-            String obj = entryMatcher.group(2);
-
-            if (itemId >= 0 && itemId < items.size()) {
-                int animation = extractIntOr(obj, "animation", 0);
-                int armour = extractIntOr(obj, "armour", 0);
-                int weaponAim = extractIntOr(obj, "weaponAim", 0);
-                int weaponPower = extractIntOr(obj, "weaponPower", 0);
-                int magic = extractIntOr(obj, "magic", 0);
-                int prayer = extractIntOr(obj, "prayer", 0);
-
-                items.get(itemId).setWieldableStats(animation, armour, weaponAim, weaponPower, magic, prayer);
-                count++;
+
+        try (JsonReader json = JsonReader.open(filePath)) {
+            json.beginObject();
+            while (json.hasNext()) {
+                int itemId = Integer.parseInt(json.nextName());
+                int animation = 0, armour = 0, weaponAim = 0, weaponPower = 0, magic = 0, prayer = 0;
+
+                json.beginObject();
+                while (json.hasNext()) {
+                    switch (json.nextName()) {
+                        case "animation": animation = json.nextInt(); break;
+                        case "armour": armour = json.nextInt(); break;
+                        case "weaponAim": weaponAim = json.nextInt(); break;
+                        case "weaponPower": weaponPower = json.nextInt(); break;
+                        case "magic": magic = json.nextInt(); break;
+                        case "prayer": prayer = json.nextInt(); break;
+                        default: json.skipValue();
+                    }
+                }
+                json.endObject();
+
+                if (itemId >= 0 && itemId < items.size()) {
+                    items.get(itemId).setWieldableStats(animation, armour, weaponAim, weaponPower, magic, prayer);
+                    count++;
+                }
             }
+            json.endObject();
+            logLoaded(count, "wieldable data entries", filePath, json, start);
         }
-
-        Logger.info("Loaded " + count + " wieldable data entries from " + filePath);
     }
 
     /**
@@ -279,112 +323,244 @@ public class DataLoader {
      * Format: Array of objects with name, attack, strength, hits, defense, hostility, etc.
      */
     public static List<NpcDefinition> loadNpcDefinitions(String filePath) throws IOException {
-        String content = new String(Files.readAllBytes(Paths.get(filePath)));
+        long start = System.nanoTime();
         List<NpcDefinition> npcs = new ArrayList<>();
 
-        Pattern objPattern = Pattern.compile("\\{\\s*\"name\"[^}]+\"combatAnimation\"\\s*:\\s*\\d+\\s*\\}", Pattern.DOTALL);
-        Matcher objMatcher = objPattern.matcher(content);
-
-        int id = 0;
-        while (objMatcher.find()) {
-            String obj = objMatcher.group();
-
-            String name = extractString(obj, "name");
-            String description = extractStringOrNull(obj, "description");
-            String command = extractStringOrNull(obj, "command");
-            int attack = extractIntOr(obj, "attack", 0);
-            int strength = extractIntOr(obj, "strength", 0);
-            int hits = extractIntOr(obj, "hits", 0);
-            int defense = extractIntOr(obj, "defense", 0);
-            String hostility = extractStringOrNull(obj, "hostility");
-            int combatAnimation = extractIntOr(obj, "combatAnimation", 0);
-
-            npcs.add(new NpcDefinition(id, name, description, command,
-                                       attack, strength, hits, defense,
-                                       hostility, combatAnimation));
-            id++;
+        try (JsonReader json = JsonReader.open(filePath)) {
+            int id = 0;
+            json.beginArray();
+            while (json.hasNext()) {
+                String name = "";
+                String description = null;
+                String command = null;
+                int attack = 0, strength = 0, hits = 0, defense = 0, combatAnimation = 0;
+                String hostility = null;
+
+                json.beginObject();
+                while (json.hasNext()) {
+                    switch (json.nextName()) {
+                        case "name": name = orEmpty(json.nextString()); break;
+                        case "description": description = json.nextString(); break;
+                        case "command": command = json.nextString(); break;
+                        case "attack": attack = json.nextInt(); break;
+                        case "strength": strength = json.nextInt(); break;
+                        case "hits": hits = json.nextInt(); break;
+                        case "defense": defense = json.nextInt(); break;
+                        case "hostility": hostility = json.nextString(); break;
+                        case "combatAnimation": combatAnimation = json.nextInt(); break;
+                        default: json.skipValue();
+                    }
+                }
+                json.endObject();
+
+                npcs.add(new NpcDefinition(id, name, description, command,
+                                           attack, strength, hits, defense,
+                                           hostility, combatAnimation));
+                id++;
+            }
+            json.endArray();
+            logLoaded(npcs.size(), "NPC definitions", filePath, json, start);
         }
-
-        Logger.info("Loaded " + npcs.size() + " NPC definitions from " + filePath);
         return npcs;
     }
 
     /**
      * Load edible item data from edible.json.
+     * Entries are either "id": healAmount or "id": { "hits": N, ... }.
      * Returns map of itemId -> healAmount.
      */
     public static Map<Integer, Integer> loadEdibleData(String filePath) throws IOException {
-        String content = new String(Files.readAllBytes(Paths.get(filePath)));
+        long start = System.nanoTime();
         Map<Integer, Integer> edible = new HashMap<>();
 
-        // Match simple entries: "id": healAmount
-        Pattern simplePattern = Pattern.compile("\"(\\d+)\"\\s*:\\s*(\\d+)");
-        Matcher simpleMatcher = simplePattern.matcher(content);
-        while (simpleMatcher.find()) {
-            int itemId = Integer.parseInt(simpleMatcher.group(1));
-            int heal = Integer.parseInt(simpleMatcher.group(2));
-            edible.put(itemId, heal);
-        }
-
-        // Match object entries: "id": { "hits": N, ... }
-        Pattern objPattern = Pattern.compile("\"(\\d+)\"\\s*:\\s*\\{[^}]*\"hits\"\\s*:\\s*(\\d+)[^}]*\\}");
-        Matcher objMatcher = objPattern.matcher(content);
-        while (objMatcher.find()) {
-            int itemId = Integer.parseInt(objMatcher.group(1));
-            int heal = Integer.parseInt(objMatcher.group(2));
-            edible.put(itemId, heal);
+        try (JsonReader json = JsonReader.open(filePath)) {
+            json.beginObject();
+            while (json.hasNext()) {
+                int itemId = Integer.parseInt(json.nextName());
+                int heal = -1;
+                if (json.peek() != '{') {
+                    heal = json.nextInt();
+                } else {
+                    json.beginObject();
+                    while (json.hasNext()) {
+                        if (json.nextName().equals("hits")) {
+                            heal = json.nextInt();
+                        } else {
+                            json.skipValue();
+                        }
+                    }
+                    json.endObject();
+                }
+
+                // Negative amounts (harmful food) are not handled as edible yet
+                if (heal >= 0) {
+                    edible.put(itemId, heal);
+                }
+            }
+            json.endObject();
+            logLoaded(edible.size(), "edible items", filePath, json, start);
         }
-
-        Logger.info("Loaded " + edible.size() + " edible items from " + filePath);
         return edible;
     }
 
-    // ===== Additional helper methods =====
-
-    private static String extractString(String obj, String key) {
-        Pattern p = Pattern.compile("\"" + Pattern.quote(key) + "\"\\s*:\\s*\"([^\"]*?)\"");
-        Matcher m = p.matcher(obj);
-        if (m.find()) return m.group(1);
-        return "";
+    /**
+     * Load NPC respawn delays from npc-respawn.json.
+     * Format: { "npcTypeId": milliseconds, ... }
+     */
+    public static Map<Integer, Integer> loadNpcRespawnTimes(String filePath) throws IOException {
+        long start = System.nanoTime();
+        Map<Integer, Integer> respawnTimes = new HashMap<>();
+
+        try (JsonReader json = JsonReader.open(filePath)) {
+            json.beginObject();
+            while (json.hasNext()) {
+                int typeId = Integer.parseInt(json.nextName());
+                respawnTimes.put(typeId, json.nextInt());
+            }
+            json.endObject();
+            logLoaded(respawnTimes.size(), "NPC respawn times", filePath, json, start);
+        }
+        return respawnTimes;
     }
 
-    private static String extractStringOrNull(String obj, String key) {
-        // Check for null value first
-        Pattern nullP = Pattern.compile("\"" + Pattern.quote(key) + "\"\\s*:\\s*null");
-        if (nullP.matcher(obj).find()) return null;
-
-        Pattern p = Pattern.compile("\"" + Pattern.quote(key) + "\"\\s*:\\s*\"([^\"]*?)\"");
-        Matcher m = p.matcher(obj);
-        if (m.find()) return m.group(1);
-        return null;
+    /**
+     * Load terrain tile definitions from config/tiles.json.
+     * Format: Array of objects with colour, texture, type, blocked.
+     */
+    public static List<TileDefinition> loadTileDefinitions(String filePath) throws IOException {
+        long start = System.nanoTime();
+        List<TileDefinition> tiles = new ArrayList<>();
+
+        try (JsonReader json = JsonReader.open(filePath)) {
+            int id = 0;
+            json.beginArray();
+            while (json.hasNext()) {
+                String type = null;
+                boolean blocked = false;
+
+                json.beginObject();
+                while (json.hasNext()) {
+                    switch (json.nextName()) {
+                        case "type": type = json.nextString(); break;
+                        case "blocked": blocked = json.nextBoolean(); break;
+                        default: json.skipValue();
+                    }
+                }
+                json.endObject();
+
+                tiles.add(new TileDefinition(id++, type, blocked));
+            }
+            json.endArray();
+            logLoaded(tiles.size(), "tile definitions", filePath, json, start);
+        }
+        return tiles;
     }
 
-    private static boolean extractBoolOr(String obj, String key, boolean defaultValue) {
-        Pattern p = Pattern.compile("\"" + Pattern.quote(key) + "\"\\s*:\\s*(true|false)");
-        Matcher m = p.matcher(obj);
-        if (m.find()) return Boolean.parseBoolean(m.group(1));
-        return defaultValue;
+    /**
+     * Load scenery object definitions from config/objects.json.
+     * Format: Array of objects with name, description, commands, model, width, height, type, itemHeight.
+     */
+    public static List<GameObjectDefinition> loadGameObjectDefinitions(String filePath) throws IOException {
+        long start = System.nanoTime();
+        List<GameObjectDefinition> objects = new ArrayList<>();
+
+        try (JsonReader json = JsonReader.open(filePath)) {
+            int id = 0;
+            json.beginArray();
+            while (json.hasNext()) {
+                String name = "";
+                String description = null;
+                List<String> commands = null;
+                String type = null;
+                int width = 1, height = 1;
+
+                json.beginObject();
+                while (json.hasNext()) {
+                    switch (json.nextName()) {
+                        case "name": name = orEmpty(json.nextString()); break;
+                        case "description": description = json.nextString(); break;
+                        case "commands": commands = readStringArray(json); break;
+                        case "type": type = json.nextString(); break;
+                        case "width": width = json.nextInt(); break;
+                        case "height": height = json.nextInt(); break;
+                        default: json.skipValue();
+                    }
+                }
+                json.endObject();
+
+                objects.add(new GameObjectDefinition(id++, name, description, commands, type, width, height));
+            }
+            json.endArray();
+            logLoaded(objects.size(), "object definitions", filePath, json, start);
+        }
+        return objects;
     }
 
-    private static List<String> extractStringArray(String obj, String key) {
-        // Check for null
-        Pattern nullP = Pattern.compile("\"" + Pattern.quote(key) + "\"\\s*:\\s*null");
-        if (nullP.matcher(obj).find()) return null;
+    /**
+     * Load wall object definitions from config/wall-objects.json.
+     * Format: Array of objects with name, description, commands, height, colours, textures, blocked, invisible.
+     */
+    public static List<WallObjectDefinition> loadWallObjectDefinitions(String filePath) throws IOException {
+        long start = System.nanoTime();
+        List<WallObjectDefinition> walls = new ArrayList<>();
+
+        try (JsonReader json = JsonReader.open(filePath)) {
+            int id = 0;
+            json.beginArray();
+            while (json.hasNext()) {
+                String name = "";
+                String description = null;
+                List<String> commands = null;
+                boolean blocked = false;
+                boolean invisible = false;
+
+                json.beginObject();
+                while (json.hasNext()) {
+                    switch (json.nextName()) {
+                        case "name": name = orEmpty(json.nextString()); break;
+                        case "description": description = json.nextString(); break;
+                        case "commands": commands = readStringArray(json); break;
+                        case "blocked": blocked = json.nextBoolean(); break;
+                        case "invisible": invisible = json.nextBoolean(); break;
+                        default: json.skipValue();
+                    }
+                }
+                json.endObject();
+
+                walls.add(new WallObjectDefinition(id++, name, description, commands, blocked, invisible));
+            }
+            json.endArray();
+            logLoaded(walls.size(), "wall object definitions", filePath, json, start);
+        }
+        return walls;
+    }
 
-        // Match array: "key": ["val1", "val2"]
-        Pattern p = Pattern.compile("\"" + Pattern.quote(key) + "\"\\s*:\\s*\\[([^\\]]*)\\]");
-        Matcher m = p.matcher(obj);
-        if (!m.find()) return null;
+    // ===== Additional helper methods =====
 
-        String arrayContent = m.group(1).trim();
-        if (arrayContent.isEmpty()) return new ArrayList<>();
+    private static String orEmpty(String value) {
+        return value == null ? "" : value;
+    }
 
+    /**
+     * A list of the non-empty strings in an array. [] gives an empty list;
+     * null, or an array holding only empty strings, gives null.
+     */
+    private static List<String> readStringArray(JsonReader json) throws IOException {
+        if (json.peek() == 'n') {
+            json.nextNull();
+            return null;
+        }
         List<String> result = new ArrayList<>();
-        Pattern valP = Pattern.compile("\"([^\"]+)\"");
-        Matcher valM = valP.matcher(arrayContent);
-        while (valM.find()) {
-            result.add(valM.group(1));
+        boolean sawEntry = false;
+        json.beginArray();
+        while (json.hasNext()) {
+            sawEntry = true;
+            String value = json.nextString();
+            if (value != null && !value.isEmpty()) {
+                result.add(value);
+            }
         }
-        return result.isEmpty() ? null : result;
+        json.endArray();
+        return sawEntry && result.isEmpty() ? null : result;
     }
 }
@@ -1,162 +1,257 @@
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
 
 
 public final class GameLoop {
+    // Below this many players the per-player phases run on the game thread
+    private static final int PARALLEL_THRESHOLD = 16;
+    // Below this many NPCs or fights the region phases run on the game thread
+    private static final int REGION_PARALLEL_THRESHOLD = 64;
+
     private final ServerContext context;
-    private final Timer timer;
-    private final Random random = new Random();
+    private final TickScheduler scheduler;
+    private final ForkJoinPool updatePool;
+    private final WorldRegions regions = new WorldRegions();
+    private final TickMetrics metrics;
+    private final AutosaveSweep autosave;
     private long tickCount = 0;
 
     public GameLoop(ServerContext context) {
         this.context = context;
-        this.timer = new Timer("GameLoop", true);
+        ServerConfig config = context.getConfig();
+        this.scheduler = new TickScheduler("GameLoop", config.getTickInterval().toNanos(),
+                                           config.getCatchUpPolicy(), this::runTick);
+        this.metrics = new TickMetrics(config.getTickInterval().toNanos(), config.getMetricsSummaryTicks());
+        this.metrics.attach(scheduler);
+        this.updatePool = config.getUpdateThreads() > 1 ? createUpdatePool(config.getUpdateThreads()) : null;
+        long autosaveTicks = config.getAutosaveMinutes() * 60_000L / config.getTickInterval().toMillis();
+        this.autosave = new AutosaveSweep(context.getPlayers(), context.getPlayerSaves(), autosaveTicks);
+    }
+
+    private static ForkJoinPool createUpdatePool(int threads) {
+        return new ForkJoinPool(threads, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("PlayerUpdate-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
     }
 
     public void start() {
-        long interval = context.getConfig().getTickInterval().toMillis();
-        timer.scheduleAtFixedRate(new TimerTask() {
-            @Override
-            public void run() {
-                try {
-                    tick();
-                } catch (Exception ex) {
-                    Logger.error("GameLoop tick failed: " + ex.getMessage());
-                    ex.printStackTrace();
-                }
-            }
-        }, interval, interval);
-        Logger.info("GameLoop started (interval=" + interval + "ms)");
+        scheduler.start();
+        metrics.register();
+        Logger.info("GameLoop started (interval=" + context.getConfig().getTickInterval().toMillis()
+            + "ms, catch-up=" + scheduler.getPolicy() + ")");
     }
 
     public void stop() {
-        timer.cancel();
+        scheduler.stop();
+        if (updatePool != null) {
+            updatePool.shutdown();
+        }
         Logger.info("GameLoop stopped");
     }
 
+    public AutosaveSweep getAutosave() {
+        return autosave;
+    }
+
+    /**
+     * Run ticks synchronously on the calling thread, without waiting for the clock.
+     * For tests and benchmarks; the loop must not be started.
+     */
+    public void step(int ticks) {
+        scheduler.step(ticks);
+    }
+
+    /**
+     * Nanoseconds left in the current tick's budget; work that can be deferred
+     * (saves, path searches) should check this.
+     */
+    public long getRemainingBudgetNanos() {
+        return scheduler.getRemainingBudgetNanos();
+    }
+
+    private void runTick() {
+        try {
+            tick();
+        } catch (Exception ex) {
+            Logger.error("GameLoop tick failed: " + ex.getMessage());
+            ex.printStackTrace();
+        }
+    }
+
     private void tick() throws Exception {
         tickCount++;
         Logger.debug("=== TICK " + tickCount + " START ===");
 
-        processNpcs();
-        processCombat();
-        processPlayers();
+        metrics.beginTick();
+        try {
+            context.getTimers().advance();
+            context.getLogins().removeLeaving();
+            context.getLogins().registerReady();
+            metrics.endPhase(TickMetrics.Phase.LOGINS);
+            processNpcs();
+            metrics.endPhase(TickMetrics.Phase.NPCS);
+            processCombat();
+            metrics.endPhase(TickMetrics.Phase.COMBAT);
+            processPlayers();
+            context.getPlayerSaves().snapshotRequested();
+            autosave.tick();
+            metrics.endPhase(TickMetrics.Phase.PLAYERS);
+            flushOutbound();
+            metrics.endPhase(TickMetrics.Phase.FLUSH);
+        } finally {
+            metrics.recordPopulation(context.getPlayers().getOnlinePlayers().size(),
+                                     context.getWorldService().getNpcs().size(),
+                                     context.getNpcActivity().getActiveCount());
+            PlayerSaveService saves = context.getPlayerSaves();
+            metrics.recordSaves(saves.getPendingCount(), saves.getSaveLagMillis(), saves.getMaxSaveLagMillis());
+            metrics.recordLoginQueue(context.getLogins().getQueuedCount());
+            metrics.endTick();
+        }
 
         Logger.debug("=== TICK " + tickCount + " END ===");
     }
 
     /**
-     * Process all NPC AI: random walking within bounds, respawn timers.
+     * Process NPC AI (random walking within bounds) for the NPCs near a player.
+     * NPCs elsewhere are dormant; respawns run off the timer wheel. Each region
+     * is one task; steps across a region border wait for the barrier.
      */
-    private void processNpcs() {
-        List<Npc> npcs = context.getWorldService().getNpcs();
-        for (Npc npc : npcs) {
-            // Handle respawn timers for dead NPCs
-            if (npc.isDead()) {
-                npc.decrementRespawnTimer();
-                if (npc.getRespawnTimer() <= 0) {
-                    npc.respawn();
+    void processNpcs() {
+        List<Npc> awake = context.getNpcActivity().update();
+        CollisionMap collision = context.getWorldService().getCollisionMap();
+        List<WorldRegions.Region> busy = regions.partitionNpcs(awake);
+        forEachRegion(busy, awake.size(), "NPC AI", region -> {
+            for (Npc npc : region.getNpcs()) {
+                // Only walk if alive and not in combat
+                if (npc.isDead() || npc.isInCombat()) {
+                    continue;
+                }
+                int direction = npc.pickRandomStep(collision, region.getRandom());
+                if (direction < 0) {
+                    continue;
+                }
+                if (region.contains(npc.stepX(direction), npc.stepY(direction))) {
+                    npc.walk(direction);
+                } else {
+                    region.handOff(() -> npc.walk(direction));
                 }
-                continue; // Dead NPCs don't walk
             }
+        });
+        regions.applyHandOffs();
+    }
 
-            // Only walk if not in combat
-            if (!npc.isInCombat()) {
-                npc.tryRandomWalk();
+    /**
+     * Process all active combat between players and NPCs.
+     * Uses a 3-tick combat cycle matching RSC mechanics. Fights are grouped by
+     * the NPC's region, so each NPC is only ever handled by one task.
+     */
+    void processCombat() {
+        List<Player> fighters = new ArrayList<>();
+        for (Player player : context.getPlayers().getOnlinePlayers()) {
+            if (player != null && player.isInCombat()) {
+                fighters.add(player);
             }
         }
+        List<WorldRegions.Region> busy = regions.partitionFights(fighters);
+        forEachRegion(busy, fighters.size(), "Combat", region -> {
+            for (Player player : region.getFighters()) {
+                try {
+                    processFight(player, region);
+                } catch (Exception ex) {
+                    Logger.error("Combat failed for " + player.getUsername() + ": " + ex.getMessage());
+                    ex.printStackTrace();
+                }
+            }
+        });
+        regions.applyHandOffs();
     }
 
     /**
-     * Process all active combat between players and NPCs.
-     * Uses a 3-tick combat cycle matching RSC mechanics.
+     * One player's fight for this tick.
      */
-    private void processCombat() throws Exception {
-        List<Player> snapshot = new ArrayList<>(context.getPlayers().getOnlinePlayers());
+    private void processFight(Player player, WorldRegions.Region region) throws Exception {
         WorldService world = context.getWorldService();
+        Random random = region.getRandom();
 
-        for (Player player : snapshot) {
-            if (player == null || !player.isInCombat()) continue;
-
-            Npc npc = player.getAttackingNpc();
-            if (npc == null || npc.isDead()) {
-                endCombat(player, npc);
-                continue;
-            }
-
-            // Decrement combat timer
-            player.decrementCombatTimer();
-            if (player.getCombatTimer() > 0) continue;
+        Npc npc = player.getAttackingNpc();
+        if (npc == null || npc.isDead()) {
+            endCombat(player, npc);
+            return;
+        }
 
-            // Reset timer for next round (3 ticks = ~1.9 seconds)
-            player.setCombatTimer(3);
-            npc.setCombatTimer(3);
+        // Decrement combat timer
+        player.decrementCombatTimer();
+        if (player.getCombatTimer() > 0) return;
 
-            NpcDefinition npcDef = world.getNpcDefinition(npc.getTypeId());
-            if (npcDef == null) {
-                endCombat(player, npc);
-                continue;
-            }
+        // Reset timer for next round (3 ticks = ~1.9 seconds)
+        player.setCombatTimer(3);
+        npc.setCombatTimer(3);
 
-            // Player attacks NPC
-            int playerDamage = rollPlayerDamage(player, npcDef);
-            int actualDamage = npc.takeDamage(playerDamage);
-
-            // Send NPC damage update to all nearby players
-            int radius = context.getConfig().getVisibilityRadius();
-            List<Player> nearbyPlayers = new ArrayList<>(context.getPlayers().getOnlinePlayers());
-            for (Player viewer : nearbyPlayers) {
-                if (viewer != null && Math.abs(viewer.getX() - npc.getX()) <= radius
-                        && Math.abs(viewer.getY() - npc.getY()) <= radius) {
-                    try {
-                        PlayerPacketSender.sendNpcDamage(viewer, npc, actualDamage,
-                                npc.getCurrentHits(), npc.getMaxHits());
-                    } catch (Exception ex) {
-                        Logger.error("Failed to send NPC damage to " + viewer.getUsername());
-                    }
-                }
-            }
+        NpcDefinition npcDef = world.getNpcDefinition(npc.getTypeId());
+        if (npcDef == null) {
+            endCombat(player, npc);
+            return;
+        }
 
-            Logger.debug("Combat: " + player.getUsername() + " hits " + npcDef.getName() +
-                         " for " + actualDamage + " (HP: " + npc.getCurrentHits() + "/" + npc.getMaxHits() + ")");
+        // Player attacks NPC
+        int playerDamage = rollPlayerDamage(player, npcDef, random);
+        int actualDamage = npc.takeDamage(playerDamage);
 
-            // Check if NPC died
-            if (npc.isDead()) {
-                handleNpcDeath(player, npc, npcDef);
-                continue;
+        // Send NPC damage update to all nearby players
+        int radius = context.getConfig().getVisibilityRadius();
+        List<Player> nearbyPlayers = context.getPlayers().findNearby(npc.getX(), npc.getY(), radius);
+        for (Player viewer : nearbyPlayers) {
+            try {
+                PlayerPacketSender.sendNpcDamage(viewer, npc, actualDamage,
+                        npc.getCurrentHits(), npc.getMaxHits());
+            } catch (Exception ex) {
+                Logger.error("Failed to send NPC damage to " + viewer.getUsername());
             }
+        }
 
-            // Check if NPC should retreat
-            if (npcDef.willRetreat() && npc.shouldRetreat()) {
-                PlayerPacketSender.sendMessage(player, "The " + npcDef.getName() + " is retreating");
-                endCombat(player, npc);
-                continue;
-            }
+        Logger.debug("Combat: " + player.getUsername() + " hits " + npcDef.getName() +
+                     " for " + actualDamage + " (HP: " + npc.getCurrentHits() + "/" + npc.getMaxHits() + ")");
 
-            // NPC attacks player
-            int npcDamage = rollNpcDamage(npcDef, player);
-            int curHP = player.getCurrentStats()[3]; // Hits stat at index 3
-            int actualNpcDamage = Math.min(npcDamage, curHP);
-            player.getCurrentStats()[3] = curHP - actualNpcDamage;
-            player.setLastDamageTaken(actualNpcDamage);
+        // Check if NPC died
+        if (npc.isDead()) {
+            handleNpcDeath(player, npc, npcDef);
+            return;
+        }
 
-            Logger.debug("Combat: " + npcDef.getName() + " hits " + player.getUsername() +
-                         " for " + actualNpcDamage + " (HP: " + player.getCurrentStats()[3] + "/" + player.getBaseStats()[3] + ")");
+        // Check if NPC should retreat
+        if (npcDef.willRetreat() && npc.shouldRetreat()) {
+            PlayerPacketSender.sendMessage(player, "The " + npcDef.getName() + " is retreating");
+            endCombat(player, npc);
+            return;
+        }
 
-            // Send player stat update (HP)
-            try {
-                PlayerPacketSender.sendStatUpdate(player, 3); // Hits
-            } catch (Exception ex) {
-                Logger.error("Failed to send stat update to " + player.getUsername());
-            }
+        // NPC attacks player
+        int npcDamage = rollNpcDamage(npcDef, player, random);
+        int curHP = player.getCurrentStats()[3]; // Hits stat at index 3
+        int actualNpcDamage = Math.min(npcDamage, curHP);
+        player.getCurrentStats()[3] = curHP - actualNpcDamage;
+        player.markDirty();
+        player.setLastDamageTaken(actualNpcDamage);
+
+        Logger.debug("Combat: " + npcDef.getName() + " hits " + player.getUsername() +
+                     " for " + actualNpcDamage + " (HP: " + player.getCurrentStats()[3] + "/" + player.getBaseStats()[3] + ")");
+
+        // Send player stat update (HP)
+        try {
+            PlayerPacketSender.sendStatUpdate(player, 3); // Hits
+        } catch (Exception ex) {
+            Logger.error("Failed to send stat update to " + player.getUsername());
+        }
 
-            // Check if player died
-            if (player.getCurrentStats()[3] <= 0) {
-                handlePlayerDeath(player, npc);
-            }
+        // Check if player died
+        if (player.getCurrentStats()[3] <= 0) {
+            handlePlayerDeath(player, npc, region);
         }
     }
 
@@ -164,7 +259,7 @@ public final class GameLoop {
      * Roll player's damage against an NPC using RSC combat formulas.
      * Formula from reference: combat.js
      */
-    private int rollPlayerDamage(Player player, NpcDefinition npcDef) {
+    private int rollPlayerDamage(Player player, NpcDefinition npcDef, Random random) {
         // Player accuracy
         double attackLevel = player.getCurrentStats()[0]; // Attack
         double styleBonus = getStyleBonus(player.getCombatStyle(), "attack");
@@ -194,7 +289,7 @@ public final class GameLoop {
     /**
      * Roll NPC's damage against a player using RSC combat formulas.
      */
-    private int rollNpcDamage(NpcDefinition npcDef, Player player) {
+    private int rollNpcDamage(NpcDefinition npcDef, Player player, Random random) {
         // NPC accuracy
         double npcAttack = npcDef.getAttack() * (1.0 / 600 + 0.1);
 
@@ -274,14 +369,14 @@ public final class GameLoop {
         // End combat
         endCombat(player, npc);
 
-        // Start NPC respawn timer
-        npc.startRespawnTimer();
+        // Bring the NPC back after the respawn delay
+        context.getWorldService().scheduleNpcRespawn(npc);
     }
 
     /**
      * Handle player death: reset position, restore HP.
      */
-    private void handlePlayerDeath(Player player, Npc npc) throws Exception {
+    private void handlePlayerDeath(Player player, Npc npc, WorldRegions.Region region) throws Exception {
         Logger.info(player.getUsername() + " was killed by an NPC");
 
         // End combat
@@ -289,11 +384,14 @@ public final class GameLoop {
 
         // Reset HP to base level
         player.getCurrentStats()[3] = player.getBaseStats()[3];
+        player.markDirty();
         PlayerPacketSender.sendStatUpdate(player, 3);
 
-        // Teleport to spawn
-        player.setX(122);
-        player.setY(657);
+        // Teleport to spawn once all regions are done
+        region.handOff(() -> {
+            player.setX(122);
+            player.setY(657);
+        });
 
         // Send death notification
         PlayerPacketSender.sendMessage(player, "@red@Oh dear! You are dead...");
@@ -320,6 +418,7 @@ public final class GameLoop {
      */
     private void addExperience(Player player, int statId, int amount) {
         player.getExperience()[statId] += amount;
+        player.markDirty();
         int newLevel = experienceToLevel(player.getExperience()[statId]);
         if (newLevel > player.getBaseStats()[statId]) {
             int levelDiff = newLevel - player.getBaseStats()[statId];
@@ -354,50 +453,128 @@ public final class GameLoop {
         return (statId >= 0 && statId < names.length) ? names[statId] : "Unknown";
     }
 
-    private void processPlayers() throws Exception {
-        List<Player> snapshot = new ArrayList<>(context.getPlayers().getOnlinePlayers());
-        VisibilityService visibility = context.getVisibilityService();
-
-        for (Player player : snapshot) {
+    /**
+     * Per-player update, in three phases separated by barriers:
+     * visibility refresh (parallel), movement (sequential, it moves players in
+     * the grid and touches other players' tracking sets), then building each
+     * player's region packets (parallel, only reads other players).
+     */
+    private void processPlayers() {
+        List<Player> snapshot = new ArrayList<>();
+        for (Player player : context.getPlayers().getOnlinePlayers()) {
             if (player != null) {
-                visibility.refreshVisibility(player);
+                snapshot.add(player);
             }
         }
+        VisibilityService visibility = context.getVisibilityService();
 
-        for (Player player : snapshot) {
-            if (player == null) {
-                continue;
-            }
+        // Routes requested since the last tick become walk queues before anyone moves
+        context.getPathfinding().process();
+
+        forEachPlayer(snapshot, "Visibility refresh", visibility::refreshVisibility);
 
+        for (Player player : snapshot) {
             if (processMovement(player)) {
                 visibility.recordMovement(player);
                 visibility.establishMutualVisibility(player);
             }
         }
 
-        for (Player player : snapshot) {
-            if (player == null) {
-                continue;
-            }
+        forEachPlayer(snapshot, "Region update", player -> {
+            CL_WalkHandler.sendRegionPlayersUpdate(player);
+            PlayerPacketSender.sendRegionNpcs(player);
+        });
+    }
 
-            try {
-                CL_WalkHandler.sendRegionPlayersUpdate(player);
-            } catch (Exception ex) {
-                Logger.error("Region update failed for " + player.getUsername() + ": " + ex.getMessage());
-                ex.printStackTrace();
+    private interface PlayerTask {
+        void run(Player player) throws Exception;
+    }
+
+    /**
+     * Run {@code task} for every player and return once all of them are done.
+     * Large snapshots are split into chunks on the update pool; a failure for
+     * one player is logged and does not affect the others.
+     */
+    private void forEachPlayer(List<Player> snapshot, String phase, PlayerTask task) {
+        if (updatePool == null || snapshot.size() < PARALLEL_THRESHOLD) {
+            for (Player player : snapshot) {
+                runPlayerTask(player, phase, task);
             }
+            return;
         }
 
-        // Send NPC region updates to all players
-        for (Player player : snapshot) {
-            if (player == null) {
-                continue;
+        int chunks = Math.min(snapshot.size(), updatePool.getParallelism() * 4);
+        List<Callable<Void>> work = new ArrayList<>(chunks);
+        for (int i = 0; i < chunks; i++) {
+            int from = i * snapshot.size() / chunks;
+            int to = (i + 1) * snapshot.size() / chunks;
+            work.add(() -> {
+                for (int j = from; j < to; j++) {
+                    runPlayerTask(snapshot.get(j), phase, task);
+                }
+                return null;
+            });
+        }
+        updatePool.invokeAll(work);
+    }
+
+    private interface RegionTask {
+        void run(WorldRegions.Region region) throws Exception;
+    }
+
+    /**
+     * Run {@code task} for every region and return once all of them are done
+     * (the barrier before hand-offs). Each region is one task on the update
+     * pool; small amounts of work stay on the game thread.
+     */
+    private void forEachRegion(List<WorldRegions.Region> busy, int work, String phase, RegionTask task) {
+        if (updatePool == null || busy.size() < 2 || work < REGION_PARALLEL_THRESHOLD) {
+            for (WorldRegions.Region region : busy) {
+                runRegionTask(region, phase, task);
             }
+            return;
+        }
+
+        List<Callable<Void>> tasks = new ArrayList<>(busy.size());
+        for (WorldRegions.Region region : busy) {
+            tasks.add(() -> {
+                runRegionTask(region, phase, task);
+                return null;
+            });
+        }
+        updatePool.invokeAll(tasks);
+    }
+
+    private static void runRegionTask(WorldRegions.Region region, String phase, RegionTask task) {
+        try {
+            task.run(region);
+        } catch (Exception ex) {
+            Logger.error(phase + " failed for a region: " + ex.getMessage());
+            ex.printStackTrace();
+        }
+    }
 
+    private static void runPlayerTask(Player player, String phase, PlayerTask task) {
+        try {
+            task.run(player);
+        } catch (Exception ex) {
+            Logger.error(phase + " failed for " + player.getUsername() + ": " + ex.getMessage());
+            ex.printStackTrace();
+        }
+    }
+
+    /**
+     * Write every player's queued packets, one write per player per tick.
+     */
+    private void flushOutbound() {
+        for (Player player : context.getPlayers().getOnlinePlayers()) {
             try {
-                PlayerPacketSender.sendRegionNpcs(player);
+                int bytes = player.flushOutbound();
+                if (bytes > 0) {
+                    metrics.recordSent(bytes, player.getOutbound().getLastFlushPackets());
+                }
             } catch (Exception ex) {
-                Logger.error("NPC region update failed for " + player.getUsername() + ": " + ex.getMessage());
+                Logger.warn("Outbound flush failed for " + player.getUsername() + ": " + ex.getMessage());
             }
         }
     }
@@ -419,6 +596,15 @@ public final class GameLoop {
         int oldX = player.getX();
         int oldY = player.getY();
 
+        // Client paths are not trusted: a step into a wall, water or scenery ends the walk
+        if (!context.getWorldService().getCollisionMap().canStep(oldX, oldY, deltaX, deltaY)) {
+            Logger.debug("Player " + player.getUsername() + " blocked at (" + oldX + "," + oldY + ") stepping " +
+                         deltaX + "," + deltaY);
+            player.clearWalkQueue();
+            player.setWalking(false);
+            return false;
+        }
+
     player.setX(oldX + deltaX);
     player.setY(oldY + deltaY);
     int direction = calculateDirection(deltaX, deltaY);
@@ -441,6 +627,10 @@ public final class GameLoop {
         return 0;
     }
 
+    public TickMetrics getMetrics() {
+        return metrics;
+    }
+
     public long getTickCount() {
         return tickCount;
     }
@@ -0,0 +1,44 @@
+import java.util.List;
+
+/**
+ * Represents a scenery object type (tree, rock, table, ...) loaded from config/objects.json.
+ */
+public class GameObjectDefinition {
+    private final int id;
+    private final String name;
+    private final String description;
+    private final List<String> commands;
+    private final String type; // "blocked", "unblocked", "closed-door" or "open-door"
+    private final int width;
+    private final int height;
+
+    public GameObjectDefinition(int id, String name, String description, List<String> commands,
+                                String type, int width, int height) {
+        this.id = id;
+        this.name = name;
+        this.description = description;
+        this.commands = commands;
+        this.type = type;
+        this.width = width;
+        this.height = height;
+    }
+
+    public int getId() { return id; }
+    public String getName() { return name; }
+    public String getDescription() { return description; }
+    public List<String> getCommands() { return commands; }
+    public String getType() { return type; }
+    public int getWidth() { return width; }
+    public int getHeight() { return height; }
+
+    /** Whether the object fills its whole footprint, like a tree. */
+    public boolean isSolid() { return "blocked".equals(type); }
+
+    /** Whether the object blocks one edge of its footprint, like a closed gate. */
+    public boolean isDoor() { return "closed-door".equals(type); }
+
+    @Override
+    public String toString() {
+        return "ObjectDef{id=" + id + ", name='" + name + "', type=" + type + "}";
+    }
+}
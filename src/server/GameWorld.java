@@ -14,10 +14,6 @@ public final class GameWorld {
         return ServerContext.get().getWorldService();
     }
 
-    private static VisibilityService visibility() {
-        return ServerContext.get().getVisibilityService();
-    }
-
     public static void addPendingPlayer(Player player) {
         players().registerPending(player);
     }
@@ -32,8 +28,7 @@ public final class GameWorld {
     }
 
     public static void removePlayer(Player player) {
-        visibility().handlePlayerRemoval(player);
-        players().removePlayer(player);
+        ServerContext.get().getLogins().submitRemoval(player);
     }
 
     public static Player getPlayer(String username) {
@@ -53,15 +48,7 @@ public final class GameWorld {
     }
 
     public static java.util.List<Player> getNearbyPlayers(int x, int y, int radius) {
-        java.util.List<Player> result = new java.util.ArrayList<>();
-        for (Player candidate : players().getOnlinePlayers()) {
-            int dx = Math.abs(candidate.getX() - x);
-            int dy = Math.abs(candidate.getY() - y);
-            if (Math.max(dx, dy) <= radius) {
-                result.add(candidate);
-            }
-        }
-        return result;
+        return players().findNearby(x, y, radius);
     }
 
     public static boolean isPlayerOnline(String username) {
@@ -0,0 +1,77 @@
+import java.io.DataInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+
+/**
+ * Reader for the client's .jag/.mem archives (the landscape files in doc/rs-data/landscape).
+ *
+ * An archive is a 6-byte header (size, compressed size) and a body that is
+ * either raw or bzip2-compressed as a whole. The body holds an entry table of
+ * name hashes and sizes followed by the entry data, each entry possibly
+ * compressed on its own. Same format as the client's GameShell.readDataFile
+ * and Utility.unpackData.
+ */
+public final class JagArchive {
+    private final byte[] data;
+    private final int entryCount;
+
+    private JagArchive(byte[] data) {
+        this.data = data;
+        this.entryCount = (data[0] & 0xff) << 8 | (data[1] & 0xff);
+    }
+
+    public static JagArchive open(String filePath) throws IOException {
+        try (DataInputStream in = new DataInputStream(new FileInputStream(filePath))) {
+            byte[] header = new byte[6];
+            in.readFully(header);
+            int size = readMedium(header, 0);
+            int compressedSize = readMedium(header, 3);
+            byte[] body = new byte[compressedSize];
+            in.readFully(body);
+            if (size == compressedSize) {
+                return new JagArchive(body);
+            }
+            byte[] unpacked = new byte[size];
+            BZLib.decompress(unpacked, size, body, compressedSize, 0);
+            return new JagArchive(unpacked);
+        }
+    }
+
+    /**
+     * The named entry, decompressed, or null if the archive does not have it.
+     */
+    public byte[] get(String name) {
+        int wantedHash = hash(name);
+        int offset = 2 + entryCount * 10;
+        for (int entry = 0; entry < entryCount; entry++) {
+            int base = 2 + entry * 10;
+            int entryHash = (data[base] & 0xff) << 24 | readMedium(data, base + 1);
+            int size = readMedium(data, base + 4);
+            int compressedSize = readMedium(data, base + 7);
+            if (entryHash == wantedHash) {
+                byte[] out = new byte[size];
+                if (size != compressedSize) {
+                    BZLib.decompress(out, size, data, compressedSize, offset);
+                } else {
+                    System.arraycopy(data, offset, out, 0, size);
+                }
+                return out;
+            }
+            offset += compressedSize;
+        }
+        return null;
+    }
+
+    private static int hash(String name) {
+        String upper = name.toUpperCase();
+        int hash = 0;
+        for (int i = 0; i < upper.length(); i++) {
+            hash = hash * 61 + upper.charAt(i) - 32;
+        }
+        return hash;
+    }
+
+    private static int readMedium(byte[] buffer, int offset) {
+        return (buffer[offset] & 0xff) << 16 | (buffer[offset + 1] & 0xff) << 8 | (buffer[offset + 2] & 0xff);
+    }
+}
@@ -0,0 +1,309 @@
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Minimal streaming JSON reader for the data files in doc/rs-data.
+ *
+ * Reads the file in 64 KB chunks and hands out one token at a time, so a
+ * loader can pull fields straight into its own variables without ever
+ * holding the whole file as a String. Numbers are parsed as ints without
+ * allocating; only names and string values become Strings.
+ *
+ * Commas are treated as whitespace: the data files are well formed and the
+ * loaders only need the structure, not strict validation.
+ */
+public final class JsonReader implements Closeable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final InputStream in;
+    private final String source;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int position = 0;
+    private int limit = 0;
+    private long bytesRead = 0;
+    private char[] chars = new char[64];
+
+    public JsonReader(InputStream in, String source) {
+        this.in = in;
+        this.source = source;
+    }
+
+    public static JsonReader open(String filePath) throws IOException {
+        return new JsonReader(new FileInputStream(filePath), filePath);
+    }
+
+    public void beginArray() throws IOException {
+        expect('[');
+    }
+
+    public void endArray() throws IOException {
+        expect(']');
+    }
+
+    public void beginObject() throws IOException {
+        expect('{');
+    }
+
+    public void endObject() throws IOException {
+        expect('}');
+    }
+
+    /**
+     * True while the current array/object has more elements.
+     */
+    public boolean hasNext() throws IOException {
+        int c = peek();
+        return c != ']' && c != '}' && c != -1;
+    }
+
+    /**
+     * Next significant character without consuming it (-1 at end of input).
+     */
+    public int peek() throws IOException {
+        skipWhitespace();
+        return position < limit ? buffer[position] : -1;
+    }
+
+    public String nextName() throws IOException {
+        String name = nextString();
+        expect(':');
+        return name;
+    }
+
+    /**
+     * A string value, or null for a JSON null.
+     */
+    public String nextString() throws IOException {
+        if (peek() == 'n') {
+            nextNull();
+            return null;
+        }
+        expect('"');
+        int length = 0;
+        while (true) {
+            int c = read();
+            if (c == '"') {
+                break;
+            }
+            if (c == -1) {
+                throw error("unterminated string");
+            }
+            if (c == '\\') {
+                c = unescape(read());
+            } else if (c >= 0x80) {
+                // Multi-byte UTF-8 is rare in the data files; decode it the slow way
+                return finishUtf8String(length, c);
+            }
+            if (length == chars.length) {
+                chars = Arrays.copyOf(chars, length * 2);
+            }
+            chars[length++] = (char) c;
+        }
+        return new String(chars, 0, length);
+    }
+
+    public int nextInt() throws IOException {
+        skipWhitespace();
+        boolean negative = false;
+        int c = read();
+        if (c == '-') {
+            negative = true;
+            c = read();
+        }
+        if (c < '0' || c > '9') {
+            throw error("expected a number");
+        }
+        long value = 0;
+        while (c >= '0' && c <= '9') {
+            value = value * 10 + (c - '0');
+            if (value > Integer.MAX_VALUE + 1L) {
+                throw error("number out of int range");
+            }
+            c = read();
+        }
+        if (c == '.' || c == 'e' || c == 'E') {
+            throw error("expected an integer");
+        }
+        if (c != -1) {
+            position--; // give back the delimiter
+        }
+        return (int) (negative ? -value : value);
+    }
+
+    public boolean nextBoolean() throws IOException {
+        int c = peek();
+        if (c == 't') {
+            expectLiteral("true");
+            return true;
+        }
+        if (c == 'f') {
+            expectLiteral("false");
+            return false;
+        }
+        throw error("expected a boolean");
+    }
+
+    public void nextNull() throws IOException {
+        expectLiteral("null");
+    }
+
+    /**
+     * Skip the next value, including nested arrays and objects.
+     */
+    public void skipValue() throws IOException {
+        int c = peek();
+        switch (c) {
+            case '{':
+                beginObject();
+                while (hasNext()) {
+                    nextName();
+                    skipValue();
+                }
+                endObject();
+                break;
+            case '[':
+                beginArray();
+                while (hasNext()) {
+                    skipValue();
+                }
+                endArray();
+                break;
+            case '"':
+                nextString();
+                break;
+            case 't':
+            case 'f':
+                nextBoolean();
+                break;
+            case 'n':
+                nextNull();
+                break;
+            default:
+                // number, possibly with fraction/exponent
+                while (true) {
+                    int next = read();
+                    if (next == -1) {
+                        break;
+                    }
+                    if (!(next == '-' || next == '+' || next == '.' || next == 'e' || next == 'E'
+                          || (next >= '0' && next <= '9'))) {
+                        position--;
+                        break;
+                    }
+                }
+        }
+    }
+
+    /**
+     * Bytes consumed from the underlying stream so far.
+     */
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private String finishUtf8String(int length, int first) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] prefix = new String(chars, 0, length).getBytes(StandardCharsets.UTF_8);
+        bytes.write(prefix, 0, prefix.length);
+        int c = first;
+        while (c != '"') {
+            if (c == -1) {
+                throw error("unterminated string");
+            }
+            if (c == '\\') {
+                byte[] escaped = String.valueOf((char) unescape(read())).getBytes(StandardCharsets.UTF_8);
+                bytes.write(escaped, 0, escaped.length);
+            } else {
+                bytes.write(c);
+            }
+            c = read();
+        }
+        return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private int unescape(int c) throws IOException {
+        switch (c) {
+            case 'n': return '\n';
+            case 't': return '\t';
+            case 'r': return '\r';
+            case 'b': return '\b';
+            case 'f': return '\f';
+            case 'u': {
+                int value = 0;
+                for (int i = 0; i < 4; i++) {
+                    value = (value << 4) | Character.digit(read(), 16);
+                }
+                return value;
+            }
+            case -1: throw error("unterminated escape");
+            default: return c; // \" \\ \/
+        }
+    }
+
+    private void expect(char expected) throws IOException {
+        skipWhitespace();
+        int c = read();
+        if (c != expected) {
+            throw error("expected '" + expected + "' but found " + describe(c));
+        }
+    }
+
+    private void expectLiteral(String literal) throws IOException {
+        skipWhitespace();
+        for (int i = 0; i < literal.length(); i++) {
+            if (read() != literal.charAt(i)) {
+                throw error("expected " + literal);
+            }
+        }
+    }
+
+    private void skipWhitespace() throws IOException {
+        while (true) {
+            if (position == limit && !fill()) {
+                return;
+            }
+            byte c = buffer[position];
+            if (c == ' ' || c == '\n' || c == '\r' || c == '\t' || c == ',') {
+                position++;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private int read() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position++] & 0xFF;
+    }
+
+    private boolean fill() throws IOException {
+        int n = in.read(buffer, 0, buffer.length);
+        if (n <= 0) {
+            return false;
+        }
+        position = 0;
+        limit = n;
+        bytesRead += n;
+        return true;
+    }
+
+    private IOException error(String message) {
+        return new IOException(source + ": " + message + " near byte " + (bytesRead - limit + position));
+    }
+
+    private static String describe(int c) {
+        return c == -1 ? "end of input" : "'" + (char) c + "'";
+    }
+}
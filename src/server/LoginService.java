@@ -0,0 +1,205 @@
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Staged login pipeline, and the matching queue for players leaving.
+ *
+ * 1. The connection thread checks the session and calls {@link #submit}.
+ * 2. A loader thread reads the account's save, so slow disk reads never hold
+ *    up a connection thread or the tick.
+ * 3. At the start of the next tick the game thread takes loaded players off
+ *    the ready queue and joins them to the world. At most
+ *    {@code loginsPerTick} join per tick; the rest wait, so a login storm
+ *    after a restart is spread over several ticks.
+ * 4. A joined player's initial state (world info, stats, inventory, region)
+ *    is queued as one burst and leaves with the tick's flush.
+ *
+ * Logouts and disconnects only call {@link #submitRemoval}; the game thread
+ * takes those players out of the world at the same tick boundary, before
+ * any joins. Together this keeps the player list and visibility sets from
+ * changing anywhere but on the game thread between phases.
+ */
+public final class LoginService {
+    private final ServerContext context;
+    private final int loginsPerTick;
+    private final ExecutorService loaders;
+    private final ConcurrentLinkedQueue<LoadedPlayer> ready = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<Player> leaving = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger loading = new AtomicInteger();
+
+    public LoginService(ServerContext context, int loaderThreads, int loginsPerTick) {
+        this.context = context;
+        this.loginsPerTick = Math.max(1, loginsPerTick);
+        AtomicInteger threadId = new AtomicInteger();
+        this.loaders = Executors.newFixedThreadPool(Math.max(1, loaderThreads), task -> {
+            Thread thread = new Thread(task, "LoginLoader-" + threadId.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Load a player's save off-thread and queue them to join the world. Any thread.
+     */
+    public void submit(Player player) {
+        loading.incrementAndGet();
+        loaders.execute(() -> {
+            try {
+                load(player);
+            } finally {
+                loading.decrementAndGet();
+            }
+        });
+    }
+
+    private void load(Player player) {
+        try {
+            // Default spawn first; a save overrides it
+            context.getWorldService().spawnPlayer(player);
+            ready.add(new LoadedPlayer(player, context.getPlayerSaves().readStored(player.getUsername())));
+        } catch (RuntimeException ex) {
+            Logger.error("Failed to load " + player.getUsername() + ": " + ex);
+            reject(player, LoginResponse.FAILED_TO_DECODE_PROFILE);
+        }
+    }
+
+    /**
+     * Take a player out of the world at the next tick boundary, and save
+     * them. Any thread; asking twice is harmless.
+     */
+    public void submitRemoval(Player player) {
+        leaving.add(player);
+    }
+
+    /**
+     * Remove players who left. Game thread only, between phases.
+     *
+     * @return the number of players removed
+     */
+    public int removeLeaving() {
+        int removed = 0;
+        Player player;
+        while ((player = leaving.poll()) != null) {
+            if (remove(player)) {
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    private boolean remove(Player player) {
+        PlayerRepository players = context.getPlayers();
+        // Already removed by an earlier request (a logout followed by its disconnect)
+        if (players.findBySessionId(player.getSessionId()).orElse(null) != player) {
+            return false;
+        }
+        context.getVisibilityService().handlePlayerRemoval(player);
+        players.removePlayer(player);
+        // The game loop snapshots it at the end of the tick
+        context.getPlayerSaves().requestSave(player);
+        return true;
+    }
+
+    /**
+     * Join loaded players to the world. Game thread only, between phases,
+     * after {@link #removeLeaving}.
+     *
+     * @return the number of players that joined
+     */
+    public int registerReady() {
+        List<Player> joined = new ArrayList<>();
+        LoadedPlayer loaded;
+        while (joined.size() < loginsPerTick && (loaded = ready.poll()) != null) {
+            if (register(loaded.player, loaded.stored)) {
+                joined.add(loaded.player);
+            }
+        }
+        for (Player newcomer : joined) {
+            try {
+                CL_LoginHandler.sendInitialState(newcomer);
+            } catch (Exception ex) {
+                Logger.error("Failed to send initial state to " + newcomer.getUsername() + ": " + ex.getMessage());
+            }
+        }
+        return joined.size();
+    }
+
+    private boolean register(Player player, PlayerSave stored) {
+        PlayerRepository players = context.getPlayers();
+        if (player.getSocket().isClosed()) {
+            Logger.info(player.getUsername() + " disconnected while logging in");
+            return false;
+        }
+        if (players.findByUsername(player.getUsername()).isPresent()) {
+            reject(player, LoginResponse.ALREADY_LOGGED_IN);
+            return false;
+        }
+        // Here rather than on the loader: if the account left moments ago,
+        // its newest save may not be on disk yet
+        context.getPlayerSaves().load(player, stored);
+
+        // Queue the success response before the player joins the world, so it
+        // goes out ahead of any region update
+        Buffer out = new Buffer();
+        out.putInt(LoginResponse.SUCCESS.getCode());
+        player.sendRaw(out.toArray());
+
+        players.addPlayer(player);
+        context.getVisibilityService().establishMutualVisibility(player);
+
+        // A disconnect before addPlayer found nothing to remove; undo the join
+        if (player.getSocket().isClosed()) {
+            remove(player);
+            return false;
+        }
+        return true;
+    }
+
+    private static void reject(Player player, LoginResponse response) {
+        Logger.warn("Login rejected for " + player.getUsername() + ": " + response.getMessage());
+        Buffer out = new Buffer();
+        out.putInt(response.getCode());
+        player.sendRaw(out.toArray());
+        try {
+            player.flushOutbound();
+            Socket socket = player.getSocket();
+            if (socket instanceof ChannelSocket) {
+                // A plain close would drop the response still queued on the connection
+                ((ChannelSocket) socket).closeAfterFlush();
+            } else {
+                socket.close();
+            }
+        } catch (Exception ex) {
+            Logger.warn("Failed to close rejected session of " + player.getUsername() + ": " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Players still loading or waiting for a tick to join.
+     */
+    public int getQueuedCount() {
+        return loading.get() + ready.size();
+    }
+
+    public void shutdown() {
+        loaders.shutdownNow();
+    }
+
+    /**
+     * A player whose save has been read, waiting to join.
+     */
+    private static final class LoadedPlayer {
+        final Player player;
+        final PlayerSave stored;
+
+        LoadedPlayer(Player player, PlayerSave stored) {
+            this.player = player;
+            this.stored = stored;
+        }
+    }
+}
@@ -0,0 +1,221 @@
+import java.io.IOException;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Per-connection state for the NIO transport: a growable read buffer that is
+ * framed into packets, and a queue of outbound buffers drained by the reactor.
+ *
+ * Handlers see the connection through {@link ChannelSocket}, so the
+ * {@link IPacketHandler} contract and the player-by-socket lookups stay unchanged.
+ */
+public final class NioConnection {
+    private static final int INITIAL_READ_BUFFER = 4096;
+    private static final int HEADER_SIZE = 4; // [short length][short opcode]
+
+    private final ServerContext context;
+    private final NioServer.Reactor reactor;
+    private final SocketChannel channel;
+    private final ChannelSocket socket;
+    private final PacketDispatcher dispatcher;
+    private final ArrayDeque<ByteBuffer> writeQueue = new ArrayDeque<>();
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+    private volatile boolean closeWhenDrained = false;
+    private ByteBuffer readBuffer = ByteBuffer.allocate(INITIAL_READ_BUFFER);
+    private SelectionKey key;
+
+    NioConnection(ServerContext context, NioServer.Reactor reactor, SocketChannel channel) {
+        this.context = context;
+        this.reactor = reactor;
+        this.channel = channel;
+        this.socket = new ChannelSocket(this);
+        this.dispatcher = context.getPacketDispatcher();
+    }
+
+    public SocketChannel getChannel() {
+        return channel;
+    }
+
+    public Socket getSocket() {
+        return socket;
+    }
+
+    public boolean isClosed() {
+        return closed.get();
+    }
+
+    /**
+     * Called on the reactor thread once the channel is registered.
+     */
+    void attach(SelectionKey key) {
+        this.key = key;
+        handleWrite();
+    }
+
+    /**
+     * Queue bytes for sending. Safe to call from any thread; the bytes are
+     * copied so callers may reuse their array.
+     */
+    public void send(byte[] data, int offset, int length) {
+        if (closed.get() || length <= 0) {
+            return;
+        }
+        ByteBuffer copy = ByteBuffer.allocate(length);
+        copy.put(data, offset, length);
+        copy.flip();
+        synchronized (writeQueue) {
+            writeQueue.add(copy);
+        }
+        reactor.requestWrite(this);
+    }
+
+    /**
+     * Close once everything queued so far has been written, e.g. after a
+     * login rejection the client must still receive. Safe from any thread.
+     */
+    public void closeAfterFlush() {
+        closeWhenDrained = true;
+        reactor.requestWrite(this);
+    }
+
+    /**
+     * Read whatever is available and dispatch every complete packet.
+     * Runs on the reactor thread.
+     */
+    void handleRead() {
+        try {
+            int read = channel.read(readBuffer);
+            if (read == -1) {
+                close();
+                return;
+            }
+
+            readBuffer.flip();
+            while (readBuffer.remaining() >= HEADER_SIZE) {
+                int start = readBuffer.position();
+                short length = readBuffer.getShort(start);
+
+                // The length covers at least the opcode
+                if (length < 2) {
+                    Logger.warn("Invalid packet length " + length + " from " + socket.getRemoteSocketAddress());
+                    close();
+                    return;
+                }
+
+                // length covers the opcode and the payload
+                if (readBuffer.remaining() < 2 + length) {
+                    break;
+                }
+
+                readBuffer.position(start + 2);
+                short opcode = readBuffer.getShort();
+                byte[] payload = new byte[length - 2];
+                readBuffer.get(payload);
+                dispatch(opcode, length, payload);
+
+                if (closed.get()) {
+                    return;
+                }
+            }
+            readBuffer.compact();
+            ensureReadCapacity();
+        } catch (IOException ex) {
+            Logger.warn("Client disconnected: " + ex.getMessage());
+            close();
+        }
+    }
+
+    /**
+     * Grow the read buffer if the pending frame does not fit.
+     */
+    private void ensureReadCapacity() {
+        if (readBuffer.position() < 2) {
+            return;
+        }
+        int frameSize = 2 + readBuffer.getShort(0);
+        if (frameSize > readBuffer.capacity()) {
+            ByteBuffer larger = ByteBuffer.allocate(frameSize);
+            readBuffer.flip();
+            larger.put(readBuffer);
+            readBuffer = larger;
+        }
+    }
+
+    private void dispatch(short opcode, short length, byte[] payload) {
+        Logger.debug(">>> Packet received: opcode=" + opcode + ", length=" + length);
+
+        IPacketHandler handler = dispatcher.get(opcode);
+        if (handler == null) {
+            Logger.warn("No handler registered for opcode=" + opcode);
+            return;
+        }
+
+        try {
+            handler.handle(socket, new Buffer(payload));
+        } catch (Exception handlerException) {
+            Logger.error("Handler failure for opcode=" + opcode + ": " + handlerException.getMessage());
+            handlerException.printStackTrace();
+        }
+    }
+
+    /**
+     * Gathered write of everything queued so far. Leaves OP_WRITE interest set
+     * while the socket buffer is full. Runs on the reactor thread.
+     */
+    void handleWrite() {
+        if (key == null || !key.isValid()) {
+            return;
+        }
+        boolean drained;
+        try {
+            synchronized (writeQueue) {
+                while (!writeQueue.isEmpty()) {
+                    ByteBuffer[] pending = writeQueue.toArray(new ByteBuffer[0]);
+                    channel.write(pending);
+                    while (!writeQueue.isEmpty() && !writeQueue.peek().hasRemaining()) {
+                        writeQueue.poll();
+                    }
+                    if (!writeQueue.isEmpty()) {
+                        break; // socket buffer full
+                    }
+                }
+                int ops = writeQueue.isEmpty() ? SelectionKey.OP_READ : SelectionKey.OP_READ | SelectionKey.OP_WRITE;
+                if (key.interestOps() != ops) {
+                    key.interestOps(ops);
+                }
+                drained = writeQueue.isEmpty();
+            }
+        } catch (IOException | CancelledKeyException ex) {
+            // A cancelled key means close() ran on another thread meanwhile
+            Logger.warn("Client disconnected: " + ex.getMessage());
+            close();
+            return;
+        }
+        if (drained && closeWhenDrained) {
+            close();
+        }
+    }
+
+    /**
+     * Close the channel and release the session. Idempotent and safe from any thread.
+     */
+    public void close() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException ex) {
+            Logger.warn("Failed to close socket: " + ex.getMessage());
+        }
+        synchronized (writeQueue) {
+            writeQueue.clear();
+        }
+        ClientHandler.releaseSession(context, socket);
+    }
+}
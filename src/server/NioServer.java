@@ -0,0 +1,213 @@
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Non-blocking network layer.
+ *
+ * One acceptor selector hands new connections round-robin to a small set of
+ * reactor threads. Each reactor owns a selector, frames incoming bytes into
+ * packets ([short length][short opcode][data]) and runs the registered
+ * {@link IPacketHandler} for them, so thousands of idle or active connections
+ * only cost a handful of threads.
+ */
+public final class NioServer {
+    private final ServerContext context;
+    private final Reactor[] reactors;
+    private int nextReactor = 0;
+    private volatile boolean running = true;
+
+    public NioServer(ServerContext context) {
+        this.context = context;
+        this.reactors = new Reactor[Math.max(1, context.getConfig().getIoThreads())];
+    }
+
+    /**
+     * Bind the listening port and accept connections until {@link #stop()} is called.
+     */
+    public void run() throws IOException {
+        for (int i = 0; i < reactors.length; i++) {
+            reactors[i] = new Reactor(i);
+            Thread thread = new Thread(reactors[i], "NioReactor-" + i);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        try (ServerSocketChannel serverChannel = ServerSocketChannel.open();
+             Selector acceptSelector = Selector.open()) {
+            serverChannel.bind(new InetSocketAddress(context.getConfig().getPort()));
+            serverChannel.configureBlocking(false);
+            serverChannel.register(acceptSelector, SelectionKey.OP_ACCEPT);
+            Logger.info("Server listening on port " + context.getConfig().getPort()
+                + " (nio, " + reactors.length + " reactor threads)");
+
+            while (running) {
+                acceptSelector.select();
+                Iterator<SelectionKey> keys = acceptSelector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (key.isValid() && key.isAcceptable()) {
+                        accept(serverChannel);
+                    }
+                }
+            }
+        } finally {
+            for (Reactor reactor : reactors) {
+                if (reactor != null) {
+                    reactor.close();
+                }
+            }
+        }
+    }
+
+    public void stop() {
+        running = false;
+        for (Reactor reactor : reactors) {
+            if (reactor != null) {
+                reactor.close();
+            }
+        }
+    }
+
+    private void accept(ServerSocketChannel serverChannel) {
+        SocketChannel channel;
+        try {
+            channel = serverChannel.accept();
+            if (channel == null) {
+                return;
+            }
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+        } catch (IOException ex) {
+            Logger.warn("Failed to accept connection: " + ex.getMessage());
+            return;
+        }
+
+        Reactor reactor = reactors[nextReactor];
+        nextReactor = (nextReactor + 1) % reactors.length;
+        NioConnection connection = new NioConnection(context, reactor, channel);
+        Logger.info("New client connected: " + connection.getSocket().getRemoteSocketAddress());
+        reactor.register(connection);
+    }
+
+    /**
+     * A selector thread servicing its share of the connections.
+     * Other threads never touch the selector directly; they queue work and wake it up.
+     */
+    final class Reactor implements Runnable {
+        private final int index;
+        private final Selector selector;
+        private final Queue<NioConnection> pendingRegistrations = new ConcurrentLinkedQueue<>();
+        private final Queue<NioConnection> pendingWrites = new ConcurrentLinkedQueue<>();
+
+        Reactor(int index) throws IOException {
+            this.index = index;
+            this.selector = Selector.open();
+        }
+
+        void register(NioConnection connection) {
+            pendingRegistrations.add(connection);
+            selector.wakeup();
+        }
+
+        /**
+         * Called from any thread after a connection queued outbound data.
+         */
+        void requestWrite(NioConnection connection) {
+            pendingWrites.add(connection);
+            selector.wakeup();
+        }
+
+        void close() {
+            try {
+                selector.close();
+            } catch (IOException ex) {
+                Logger.warn("Failed to close reactor " + index + ": " + ex.getMessage());
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (selector.isOpen()) {
+                    selector.select();
+                    processRegistrations();
+                    processWrites();
+
+                    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                    while (keys.hasNext()) {
+                        SelectionKey key = keys.next();
+                        keys.remove();
+                        NioConnection connection = (NioConnection) key.attachment();
+                        try {
+                            if (!key.isValid()) {
+                                connection.close();
+                                continue;
+                            }
+                            if (key.isReadable()) {
+                                connection.handleRead();
+                            }
+                            if (key.isValid() && key.isWritable()) {
+                                connection.handleWrite();
+                            }
+                        } catch (RuntimeException ex) {
+                            dropConnection(connection, ex);
+                        }
+                    }
+                }
+            } catch (ClosedSelectorException ex) {
+                // Shutting down
+            } catch (IOException ex) {
+                Logger.error("Reactor " + index + " failed: " + ex.getMessage());
+                ex.printStackTrace();
+            }
+        }
+
+        private void processRegistrations() {
+            NioConnection connection;
+            while ((connection = pendingRegistrations.poll()) != null) {
+                try {
+                    connection.attach(connection.getChannel().register(selector, SelectionKey.OP_READ, connection));
+                } catch (IOException ex) {
+                    Logger.warn("Failed to register connection: " + ex.getMessage());
+                    connection.close();
+                } catch (RuntimeException ex) {
+                    dropConnection(connection, ex);
+                }
+            }
+        }
+
+        private void processWrites() {
+            NioConnection connection;
+            while ((connection = pendingWrites.poll()) != null) {
+                try {
+                    connection.handleWrite();
+                } catch (RuntimeException ex) {
+                    dropConnection(connection, ex);
+                }
+            }
+        }
+
+        /**
+         * A bug or a bad client must only cost its own connection, not every
+         * connection on this reactor.
+         */
+        private void dropConnection(NioConnection connection, RuntimeException ex) {
+            Logger.error("Reactor " + index + ": dropping connection after " + ex);
+            ex.printStackTrace();
+            try {
+                connection.close();
+            } catch (RuntimeException closeFailure) {
+                Logger.error("Reactor " + index + ": close failed: " + closeFailure);
+            }
+        }
+    }
+}
@@ -3,56 +3,66 @@ import java.util.Random;
 /**
  * Represents an NPC (Non-Player Character) in the game world.
  * NPCs are loaded from data files and spawned at their designated positions.
+ *
+ * The NPC's state lives in one slot of an {@link NpcStore}; this class is a
+ * view over that slot. Until it is added to the world, an NPC keeps its state
+ * in a private one-slot store, then {@link #attach} moves it into the world's.
  */
 public class Npc {
     private static final Random random = new Random();
 
+    // Step offsets per direction, see calculateDirection
+    private static final int[] STEP_X = {0, 1, 1, 1, 0, -1, -1, -1};
+    private static final int[] STEP_Y = {-1, -1, 0, 1, 1, 1, 0, -1};
+
     private int serverId;    // Unique server-side ID (12 bits max = 4095)
-    private int typeId;      // NPC type from config (determines name, stats, appearance)
-    private int x, y;        // Current world tile position
-    private int spawnX, spawnY;  // Original spawn position
-    private int minX, maxX, minY, maxY;  // Walk boundary box
-    private int direction;   // Current facing direction (0-7)
-
-    // Movement state
-    private boolean moved;       // Whether this NPC moved this tick
-    private int moveDirection;   // Direction of movement this tick (0-7)
-    private int walkTimer;       // Ticks until next random walk attempt
-    private boolean canWalk;     // Whether this NPC has walk bounds (can roam)
-
-    // Combat state
-    private boolean inCombat;
+    private NpcStore store;  // Holds position, bounds, timers, hitpoints and flags
+    private int index;       // Slot in the store
+    private SpatialGrid<Npc> grid;  // World index, kept in sync on every move
     private Player combatTarget;     // Player this NPC is fighting
-    private int currentHits;         // Current hitpoints
-    private int maxHits;             // Maximum hitpoints (from NpcDefinition)
-    private int combatTimer;         // Ticks until next combat round
-    private boolean isDead;          // Whether this NPC is dead
-    private int respawnTimer;        // Ticks until respawn
-    private int retreatThreshold;    // HP percentage to retreat at (25% of max)
-    private static final int RESPAWN_TICKS = 50; // ~32 seconds at 640ms ticks
 
     public Npc(int typeId, int x, int y, int minX, int maxX, int minY, int maxY) {
-        this.typeId = typeId;
-        this.x = x;
-        this.y = y;
-        this.spawnX = x;
-        this.spawnY = y;
-        this.minX = minX;
-        this.maxX = maxX;
-        this.minY = minY;
-        this.maxY = maxY;
-        this.direction = 2; // Face south by default
-        this.moved = false;
-        this.moveDirection = 0;
-        this.walkTimer = random.nextInt(10) + 5; // Random initial delay
+        this.store = new NpcStore(1);
+        this.index = 0;
+        store.typeId[index] = typeId;
+        store.x[index] = x;
+        store.y[index] = y;
+        store.spawnX[index] = x;
+        store.spawnY[index] = y;
+        store.minX[index] = minX;
+        store.maxX[index] = maxX;
+        store.minY[index] = minY;
+        store.maxY[index] = maxY;
+        store.direction[index] = 2; // Face south by default
+        store.walkTimer[index] = random.nextInt(10) + 5; // Random initial delay
         // NPC can walk if it has walk bounds that differ from spawn point
-        this.canWalk = (minX != maxX || minY != maxY);
+        setFlag(NpcStore.CAN_WALK, minX != maxX || minY != maxY);
+        // Dormant until a player comes near (see NpcActivity)
+        setFlag(NpcStore.DORMANT, true);
         // Combat defaults
-        this.inCombat = false;
-        this.isDead = false;
-        this.currentHits = 1;
-        this.maxHits = 1;
-        this.retreatThreshold = 0;
+        store.currentHits[index] = 1;
+        store.maxHits[index] = 1;
+    }
+
+    /**
+     * Move this NPC's state into a slot of another store and view that slot from now on.
+     */
+    public void attach(NpcStore target, int slot) {
+        target.copySlot(store, index, slot);
+        store = target;
+        index = slot;
+    }
+
+    private boolean hasFlag(int flag) {
+        return (store.flags[index] & flag) != 0;
+    }
+
+    private void setFlag(int flag, boolean value) {
+        if (value) {
+            store.flags[index] |= flag;
+        } else {
+            store.flags[index] &= ~flag;
+        }
     }
 
     /**
@@ -61,59 +71,103 @@ public class Npc {
      */
     public void initFromDefinition(NpcDefinition def) {
         if (def != null) {
-            this.maxHits = Math.max(1, def.getHits());
-            this.currentHits = this.maxHits;
-            this.retreatThreshold = (int) (this.maxHits * 0.25);
+            int maxHits = Math.max(1, def.getHits());
+            store.maxHits[index] = maxHits;
+            store.currentHits[index] = maxHits;
+            store.retreatThreshold[index] = (int) (maxHits * 0.25);
         }
     }
 
     /**
-     * Attempt a random walk step within bounds.
-     * Called each game tick. Returns true if the NPC moved.
+     * Pick a random walk step within bounds that the collision map allows.
+     * Called each game tick; the caller applies the step with {@link #walk}.
+     *
+     * @param random randomness of the region the NPC is processed in
+     * @return the direction (0-7) to step in, or -1 to stay put this tick
      */
-    public boolean tryRandomWalk() {
-        moved = false;
+    public int pickRandomStep(CollisionMap collision, Random random) {
+        setFlag(NpcStore.MOVED, false);
 
-        if (!canWalk) {
-            return false;
+        if (!hasFlag(NpcStore.CAN_WALK)) {
+            return -1;
         }
 
-        walkTimer--;
-        if (walkTimer > 0) {
-            return false;
+        int[] walkTimer = store.walkTimer;
+        walkTimer[index]--;
+        if (walkTimer[index] > 0) {
+            return -1;
         }
 
         // Reset timer: walk again in 3-10 ticks
-        walkTimer = random.nextInt(8) + 3;
+        walkTimer[index] = random.nextInt(8) + 3;
 
         // Pick a random direction (8 possible, or stay still)
         // 50% chance to stay still for more natural movement
         if (random.nextInt(2) == 0) {
-            return false;
+            return -1;
         }
 
         int dx = random.nextInt(3) - 1; // -1, 0, or 1
         int dy = random.nextInt(3) - 1;
 
         if (dx == 0 && dy == 0) {
-            return false;
+            return -1;
         }
 
+        int x = store.x[index];
+        int y = store.y[index];
         int newX = x + dx;
         int newY = y + dy;
 
         // Check walk bounds
-        if (newX < minX || newX > maxX || newY < minY || newY > maxY) {
-            return false;
+        if (newX < store.minX[index] || newX > store.maxX[index] || newY < store.minY[index] || newY > store.maxY[index]) {
+            return -1;
         }
+        if (!collision.canStep(x, y, dx, dy)) {
+            return -1;
+        }
+        return calculateDirection(dx, dy);
+    }
 
-        // Move
-        x = newX;
-        y = newY;
-        moveDirection = calculateDirection(dx, dy);
-        direction = moveDirection;
-        moved = true;
-        return true;
+    /**
+     * Take one step in a direction from {@link #pickRandomStep}.
+     */
+    public void walk(int direction) {
+        moveTo(stepX(direction), stepY(direction));
+        store.moveDirection[index] = direction;
+        store.direction[index] = direction;
+        setFlag(NpcStore.MOVED, true);
+    }
+
+    /**
+     * Tile x after a step in the given direction.
+     */
+    public int stepX(int direction) {
+        return store.x[index] + STEP_X[direction];
+    }
+
+    /**
+     * Tile y after a step in the given direction.
+     */
+    public int stepY(int direction) {
+        return store.y[index] + STEP_Y[direction];
+    }
+
+    private void moveTo(int newX, int newY) {
+        int oldX = store.x[index];
+        int oldY = store.y[index];
+        store.x[index] = newX;
+        store.y[index] = newY;
+        if (grid != null) {
+            grid.move(this, oldX, oldY, newX, newY);
+        }
+    }
+
+    /**
+     * Index this NPC in a spatial grid; every later move keeps it up to date.
+     */
+    public void setGrid(SpatialGrid<Npc> grid) {
+        this.grid = grid;
     }
 
     private int calculateDirection(int dx, int dy) {
@@ -129,15 +183,15 @@ public class Npc {
     }
 
     public boolean hasMoved() {
-        return moved;
+        return hasFlag(NpcStore.MOVED);
     }
 
     public void resetMoved() {
-        moved = false;
+        setFlag(NpcStore.MOVED, false);
     }
 
     public int getMoveDirection() {
-        return moveDirection;
+        return store.moveDirection[index];
     }
 
     public int getServerId() {
@@ -149,96 +203,130 @@ public class Npc {
     }
 
     public int getTypeId() {
-        return typeId;
+        return store.typeId[index];
     }
 
     public int getX() {
-        return x;
+        return store.x[index];
     }
 
     public void setX(int x) {
-        this.x = x;
+        moveTo(x, store.y[index]);
     }
 
     public int getY() {
-        return y;
+        return store.y[index];
     }
 
     public void setY(int y) {
-        this.y = y;
+        moveTo(store.x[index], y);
     }
 
     public int getSpawnX() {
-        return spawnX;
+        return store.spawnX[index];
     }
 
     public int getSpawnY() {
-        return spawnY;
+        return store.spawnY[index];
     }
 
     public int getMinX() {
-        return minX;
+        return store.minX[index];
     }
 
     public int getMaxX() {
-        return maxX;
+        return store.maxX[index];
     }
 
     public int getMinY() {
-        return minY;
+        return store.minY[index];
     }
 
     public int getMaxY() {
-        return maxY;
+        return store.maxY[index];
     }
 
     public int getDirection() {
-        return direction;
+        return store.direction[index];
     }
 
     public void setDirection(int direction) {
-        this.direction = direction;
+        store.direction[index] = direction;
+    }
+
+    // ===== Activity Methods =====
+
+    /**
+     * Mark the NPC as observed in the given activity pass.
+     *
+     * @return false if it was already marked in this pass
+     */
+    public boolean markActive(int stamp) {
+        if (store.activeStamp[index] == stamp) {
+            return false;
+        }
+        store.activeStamp[index] = stamp;
+        return true;
+    }
+
+    public boolean isActive(int stamp) {
+        return store.activeStamp[index] == stamp;
+    }
+
+    public boolean isDormant() {
+        return hasFlag(NpcStore.DORMANT);
+    }
+
+    public void wake() {
+        setFlag(NpcStore.DORMANT, false);
+    }
+
+    /**
+     * Stop running AI for this NPC until it is woken again.
+     */
+    public void sleep() {
+        store.flags[index] = (byte) ((store.flags[index] | NpcStore.DORMANT) & ~NpcStore.MOVED);
     }
 
     @Override
     public String toString() {
-        return "Npc{type=" + typeId + ", pos=(" + x + "," + y + "), id=" + serverId + "}";
+        return "Npc{type=" + getTypeId() + ", pos=(" + getX() + "," + getY() + "), id=" + serverId + "}";
     }
 
     // ===== Combat Methods =====
 
-    public boolean isInCombat() { return inCombat; }
-    public void setInCombat(boolean inCombat) { this.inCombat = inCombat; }
+    public boolean isInCombat() { return hasFlag(NpcStore.IN_COMBAT); }
+    public void setInCombat(boolean inCombat) { setFlag(NpcStore.IN_COMBAT, inCombat); }
 
     public Player getCombatTarget() { return combatTarget; }
     public void setCombatTarget(Player target) { this.combatTarget = target; }
 
-    public int getCurrentHits() { return currentHits; }
-    public void setCurrentHits(int hp) { this.currentHits = Math.max(0, hp); }
+    public int getCurrentHits() { return store.currentHits[index]; }
+    public void setCurrentHits(int hp) { store.currentHits[index] = Math.max(0, hp); }
 
-    public int getMaxHits() { return maxHits; }
-    public void setMaxHits(int hp) { this.maxHits = hp; }
+    public int getMaxHits() { return store.maxHits[index]; }
+    public void setMaxHits(int hp) { store.maxHits[index] = hp; }
 
-    public int getCombatTimer() { return combatTimer; }
-    public void setCombatTimer(int timer) { this.combatTimer = timer; }
-    public void decrementCombatTimer() { if (combatTimer > 0) combatTimer--; }
+    public int getCombatTimer() { return store.combatTimer[index]; }
+    public void setCombatTimer(int timer) { store.combatTimer[index] = timer; }
+    public void decrementCombatTimer() { if (store.combatTimer[index] > 0) store.combatTimer[index]--; }
 
-    public boolean isDead() { return isDead; }
-    public void setDead(boolean dead) { this.isDead = dead; }
+    public boolean isDead() { return hasFlag(NpcStore.DEAD); }
+    public void setDead(boolean dead) { setFlag(NpcStore.DEAD, dead); }
 
-    public int getRespawnTimer() { return respawnTimer; }
-    public void decrementRespawnTimer() { if (respawnTimer > 0) respawnTimer--; }
 
     /**
      * Take damage. Returns actual damage dealt.
      */
     public int takeDamage(int damage) {
+        int currentHits = store.currentHits[index];
         int actualDamage = Math.min(damage, currentHits);
         currentHits -= actualDamage;
         if (currentHits <= 0) {
             currentHits = 0;
-            isDead = true;
+            setFlag(NpcStore.DEAD, true);
         }
+        store.currentHits[index] = currentHits;
         return actualDamage;
     }
 
@@ -246,37 +334,28 @@ public class Npc {
      * Check if NPC should retreat (at 25% HP or below).
      */
     public boolean shouldRetreat() {
-        return currentHits <= retreatThreshold && retreatThreshold > 0;
+        int retreatThreshold = store.retreatThreshold[index];
+        return store.currentHits[index] <= retreatThreshold && retreatThreshold > 0;
     }
 
     /**
      * Respawn the NPC at its original spawn location with full HP.
      */
     public void respawn() {
-        this.x = spawnX;
-        this.y = spawnY;
-        this.currentHits = maxHits;
-        this.isDead = false;
-        this.inCombat = false;
+        moveTo(store.spawnX[index], store.spawnY[index]);
+        store.currentHits[index] = store.maxHits[index];
+        store.flags[index] &= ~(NpcStore.DEAD | NpcStore.IN_COMBAT | NpcStore.MOVED);
         this.combatTarget = null;
-        this.combatTimer = 0;
-        this.moved = false;
+        store.combatTimer[index] = 0;
         Logger.debug("NPC respawned: " + this);
     }
 
-    /**
-     * Start the respawn timer after death.
-     */
-    public void startRespawnTimer() {
-        this.respawnTimer = RESPAWN_TICKS;
-    }
-
     /**
      * End combat, reset combat-related state.
      */
     public void endCombat() {
-        this.inCombat = false;
+        setFlag(NpcStore.IN_COMBAT, false);
         this.combatTarget = null;
-        this.combatTimer = 0;
+        store.combatTimer[index] = 0;
     }
 }
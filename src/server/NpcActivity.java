@@ -0,0 +1,78 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tracks which NPCs are observed, so the tick only runs AI where players are.
+ *
+ * The regions are the NPC {@link SpatialGrid} buckets. Every tick the
+ * buckets around each online player (visibility radius plus one bucket, so
+ * NPCs are already moving when they come into view) are collected; their
+ * NPCs are awake, and NPCs that were awake last tick but are no longer in
+ * such a region go dormant. Dormant NPCs keep their state and are skipped
+ * until a player comes near again.
+ */
+public final class NpcActivity {
+    private final WorldService world;
+    private final PlayerRepository players;
+    private final int wakeRadius;
+    private final List<Npc> candidates = new ArrayList<>();
+    private List<Npc> active = new ArrayList<>();
+    private List<Npc> previous = new ArrayList<>();
+    private int stamp = 0;
+
+    public NpcActivity(WorldService world, PlayerRepository players, int visibilityRadius) {
+        this.world = world;
+        this.players = players;
+        this.wakeRadius = visibilityRadius + SpatialGrid.BUCKET_SIZE;
+    }
+
+    /**
+     * Recompute the awake NPCs for this tick. Game thread only.
+     *
+     * @return the awake NPCs, valid until the next call
+     */
+    public List<Npc> update() {
+        stamp++;
+        List<Npc> awake = previous;
+        previous = active;
+        active = awake;
+        awake.clear();
+
+        int woken = 0;
+        for (Player player : players.getOnlinePlayers()) {
+            candidates.clear();
+            world.queryNpcs(player.getX(), player.getY(), wakeRadius, candidates);
+            for (int i = 0; i < candidates.size(); i++) {
+                Npc npc = candidates.get(i);
+                if (npc.markActive(stamp)) {
+                    awake.add(npc);
+                    if (npc.isDormant()) {
+                        npc.wake();
+                        woken++;
+                    }
+                }
+            }
+        }
+
+        int slept = 0;
+        for (int i = 0; i < previous.size(); i++) {
+            Npc npc = previous.get(i);
+            if (!npc.isActive(stamp)) {
+                npc.sleep();
+                slept++;
+            }
+        }
+
+        if ((woken > 0 || slept > 0) && Logger.isDebugEnabled()) {
+            Logger.debug("NPC activity: " + awake.size() + " awake (" + woken + " woke, " + slept + " went dormant)");
+        }
+        return awake;
+    }
+
+    /**
+     * Number of NPCs awake after the last {@link #update()}.
+     */
+    public int getActiveCount() {
+        return active.size();
+    }
+}
@@ -0,0 +1,125 @@
+import java.util.Arrays;
+
+/**
+ * Struct-of-arrays storage for NPC state.
+ *
+ * Position, walk bounds, hitpoints, timers and flags are kept in parallel
+ * primitive arrays indexed by slot (the server id for the world's store), so
+ * a sweep over many NPCs reads a few contiguous arrays instead of chasing one
+ * heap object per NPC, and creates no garbage. {@link Npc} is a thin view over
+ * one slot; only object references (combat target, spatial grid) stay on it.
+ *
+ * Slots are written by whichever thread owns the NPC in the current phase.
+ * {@link #ensureCapacity} replaces the arrays, so it must only run while no
+ * phase is touching the store (at load, or on the game thread between phases).
+ */
+public final class NpcStore {
+    // Bits in flags[]
+    static final int MOVED = 0x01;      // Moved this tick
+    static final int CAN_WALK = 0x02;   // Has walk bounds (can roam)
+    static final int IN_COMBAT = 0x04;
+    static final int DEAD = 0x08;
+    static final int DORMANT = 0x10;    // No player nearby, see NpcActivity
+
+    int[] typeId;
+    int[] x;
+    int[] y;
+    int[] spawnX;
+    int[] spawnY;
+    int[] minX;
+    int[] maxX;
+    int[] minY;
+    int[] maxY;
+    int[] direction;
+    int[] moveDirection;
+    int[] walkTimer;
+    int[] currentHits;
+    int[] maxHits;
+    int[] combatTimer;
+    int[] retreatThreshold;
+    int[] activeStamp;
+    byte[] flags;
+
+    public NpcStore(int capacity) {
+        allocate(capacity);
+    }
+
+    public int getCapacity() {
+        return x.length;
+    }
+
+    /**
+     * Grow every array to hold at least {@code capacity} slots.
+     */
+    public void ensureCapacity(int capacity) {
+        if (capacity > x.length) {
+            allocate(Math.max(capacity, x.length * 2));
+        }
+    }
+
+    /**
+     * Copy one slot from another store (or from this one).
+     */
+    void copySlot(NpcStore from, int fromSlot, int toSlot) {
+        typeId[toSlot] = from.typeId[fromSlot];
+        x[toSlot] = from.x[fromSlot];
+        y[toSlot] = from.y[fromSlot];
+        spawnX[toSlot] = from.spawnX[fromSlot];
+        spawnY[toSlot] = from.spawnY[fromSlot];
+        minX[toSlot] = from.minX[fromSlot];
+        maxX[toSlot] = from.maxX[fromSlot];
+        minY[toSlot] = from.minY[fromSlot];
+        maxY[toSlot] = from.maxY[fromSlot];
+        direction[toSlot] = from.direction[fromSlot];
+        moveDirection[toSlot] = from.moveDirection[fromSlot];
+        walkTimer[toSlot] = from.walkTimer[fromSlot];
+        currentHits[toSlot] = from.currentHits[fromSlot];
+        maxHits[toSlot] = from.maxHits[fromSlot];
+        combatTimer[toSlot] = from.combatTimer[fromSlot];
+        retreatThreshold[toSlot] = from.retreatThreshold[fromSlot];
+        activeStamp[toSlot] = from.activeStamp[fromSlot];
+        flags[toSlot] = from.flags[fromSlot];
+    }
+
+    private void allocate(int capacity) {
+        if (typeId == null) {
+            typeId = new int[capacity];
+            x = new int[capacity];
+            y = new int[capacity];
+            spawnX = new int[capacity];
+            spawnY = new int[capacity];
+            minX = new int[capacity];
+            maxX = new int[capacity];
+            minY = new int[capacity];
+            maxY = new int[capacity];
+            direction = new int[capacity];
+            moveDirection = new int[capacity];
+            walkTimer = new int[capacity];
+            currentHits = new int[capacity];
+            maxHits = new int[capacity];
+            combatTimer = new int[capacity];
+            retreatThreshold = new int[capacity];
+            activeStamp = new int[capacity];
+            flags = new byte[capacity];
+            return;
+        }
+        typeId = Arrays.copyOf(typeId, capacity);
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        spawnX = Arrays.copyOf(spawnX, capacity);
+        spawnY = Arrays.copyOf(spawnY, capacity);
+        minX = Arrays.copyOf(minX, capacity);
+        maxX = Arrays.copyOf(maxX, capacity);
+        minY = Arrays.copyOf(minY, capacity);
+        maxY = Arrays.copyOf(maxY, capacity);
+        direction = Arrays.copyOf(direction, capacity);
+        moveDirection = Arrays.copyOf(moveDirection, capacity);
+        walkTimer = Arrays.copyOf(walkTimer, capacity);
+        currentHits = Arrays.copyOf(currentHits, capacity);
+        maxHits = Arrays.copyOf(maxHits, capacity);
+        combatTimer = Arrays.copyOf(combatTimer, capacity);
+        retreatThreshold = Arrays.copyOf(retreatThreshold, capacity);
+        activeStamp = Arrays.copyOf(activeStamp, capacity);
+        flags = Arrays.copyOf(flags, capacity);
+    }
+}
@@ -0,0 +1,119 @@
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Per-player outbound packet buffer.
+ *
+ * Any thread may append packets; the game loop writes everything that piled up
+ * during the tick in one go at the end of the tick. Two byte arrays are reused
+ * (one filling, one being written), so steady-state sends do not allocate.
+ */
+public final class OutboundQueue {
+    private static final int INITIAL_CAPACITY = 2048;
+
+    private final Object flushLock = new Object();
+    private byte[] pending = new byte[INITIAL_CAPACITY];
+    private byte[] flushing = new byte[INITIAL_CAPACITY];
+    private int pendingLength = 0;
+    private int pendingPackets = 0;
+    private int lastFlushPackets = 0;
+
+    /**
+     * Append a packet, framed with its 2-byte length like {@link Buffer#toArrayWithLen()}.
+     */
+    public void add(Buffer packet) {
+        byte[] content = packet.toArray();
+        synchronized (this) {
+            ensureCapacity(2 + content.length);
+            pending[pendingLength++] = (byte) (content.length >> 8);
+            pending[pendingLength++] = (byte) content.length;
+            System.arraycopy(content, 0, pending, pendingLength, content.length);
+            pendingLength += content.length;
+            pendingPackets++;
+        }
+    }
+
+    /**
+     * Append a packet made of {@code opcode} followed by {@code length} bytes of
+     * {@code body}, framed exactly like {@link #add(Buffer)}, without building a Buffer.
+     */
+    public synchronized void add(int opcode, byte[] body, int offset, int length) {
+        int content = 2 + length;
+        ensureCapacity(2 + content);
+        pending[pendingLength++] = (byte) (content >> 8);
+        pending[pendingLength++] = (byte) content;
+        pending[pendingLength++] = (byte) (opcode >> 8);
+        pending[pendingLength++] = (byte) opcode;
+        System.arraycopy(body, offset, pending, pendingLength, length);
+        pendingLength += length;
+        pendingPackets++;
+    }
+
+    /**
+     * Append bytes as-is (no length prefix), e.g. the raw login response code.
+     */
+    public synchronized void addRaw(byte[] data) {
+        ensureCapacity(data.length);
+        System.arraycopy(data, 0, pending, pendingLength, data.length);
+        pendingLength += data.length;
+        pendingPackets++;
+    }
+
+    public synchronized boolean isEmpty() {
+        return pendingLength == 0;
+    }
+
+    /**
+     * Write everything queued so far with a single write + flush.
+     *
+     * @return number of bytes written
+     */
+    public int flush(OutputStream out) throws IOException {
+        synchronized (flushLock) {
+            int length;
+            synchronized (this) {
+                if (pendingLength == 0) {
+                    lastFlushPackets = 0;
+                    return 0;
+                }
+                byte[] swap = flushing;
+                flushing = pending;
+                pending = swap;
+                length = pendingLength;
+                lastFlushPackets = pendingPackets;
+                pendingLength = 0;
+                pendingPackets = 0;
+            }
+            out.write(flushing, 0, length);
+            out.flush();
+            return length;
+        }
+    }
+
+    /**
+     * Number of packets written by the most recent {@link #flush(OutputStream)}.
+     */
+    public int getLastFlushPackets() {
+        synchronized (flushLock) {
+            return lastFlushPackets;
+        }
+    }
+
+    public synchronized void clear() {
+        pendingLength = 0;
+        pendingPackets = 0;
+    }
+
+    private void ensureCapacity(int extra) {
+        if (pendingLength + extra <= pending.length) {
+            return;
+        }
+        int newCapacity = pending.length;
+        while (newCapacity < pendingLength + extra) {
+            newCapacity *= 2;
+        }
+        byte[] larger = new byte[newCapacity];
+        System.arraycopy(pending, 0, larger, 0, pendingLength);
+        pending = larger;
+    }
+}
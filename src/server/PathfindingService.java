@@ -0,0 +1,400 @@
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Server-side route finding over the {@link CollisionMap}.
+ *
+ * The search is the client's World.route: a breadth-first search in a
+ * 96x96 window around the start, expanding west, east, north, south and then
+ * the diagonals, and reporting only the tiles where the direction changes.
+ * Using the same expansion order means the server normally picks the exact
+ * route the client drew.
+ *
+ * Requests can come from any thread and are searched on the game thread by
+ * {@link #process()}, with at most {@code nodeBudget} tiles expanded per tick;
+ * whatever does not fit waits for the next tick. All search state lives in
+ * arrays that are allocated once, and finished routes are kept in a small LRU
+ * cache so repeated trips (bank to mine and back) are not searched again.
+ */
+public final class PathfindingService {
+    /** Side of the square search window, same as the client's region. */
+    public static final int SEARCH_SIZE = 96;
+    private static final int SEARCH_TILES = SEARCH_SIZE * SEARCH_SIZE;
+
+    // Markers in via[], as in World.route: the direction a tile was entered in
+    private static final int START = 99;
+    private static final int MOVED_NORTH = 1;
+    private static final int MOVED_WEST = 2;
+    private static final int MOVED_SOUTH = 4;
+    private static final int MOVED_EAST = 8;
+
+    private static final int[] NO_ROUTE = new int[0];
+
+    /**
+     * Receives the result of a request, on the game thread.
+     */
+    public interface Listener {
+        /**
+         * @param waypointX tiles where the route turns, in walking order, ending at the
+         *                  destination; the start is not included. Only valid during the call.
+         * @param waypointY matching y coordinates
+         * @param count     number of waypoints, 0 if already there, -1 if there is no route
+         */
+        void onRoute(int[] waypointX, int[] waypointY, int count);
+    }
+
+    /**
+     * A queued route search; {@link #cancel()} drops it if it has not run yet.
+     */
+    public static final class Request {
+        private final int startX;
+        private final int startY;
+        private final int endX1;
+        private final int endY1;
+        private final int endX2;
+        private final int endY2;
+        private final boolean adjacent;
+        private final Listener listener;
+        private volatile boolean cancelled = false;
+
+        private Request(int startX, int startY, int endX1, int endY1, int endX2, int endY2,
+                        boolean adjacent, Listener listener) {
+            this.startX = startX;
+            this.startY = startY;
+            this.endX1 = endX1;
+            this.endY1 = endY1;
+            this.endX2 = endX2;
+            this.endY2 = endY2;
+            this.adjacent = adjacent;
+            this.listener = listener;
+        }
+
+        public void cancel() {
+            cancelled = true;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+
+    private final WorldService world;
+    private final int nodeBudget;
+    private final ArrayDeque<Request> pending = new ArrayDeque<>();
+    private final Map<Long, int[]> cache;
+
+    // Pooled search state. A tile of the window is visited when its stamp equals the current search.
+    private final int[] visitStamp = new int[SEARCH_TILES];
+    private final byte[] via = new byte[SEARCH_TILES];
+    private final int[] queue = new int[SEARCH_TILES];
+    private final int[] waypointX = new int[SEARCH_TILES];
+    private final int[] waypointY = new int[SEARCH_TILES];
+    private int stamp = 0;
+    private int expanded;
+
+    private CollisionMap cachedMap;
+    private long searches = 0;
+    private long cacheHits = 0;
+
+    /**
+     * @param nodeBudget tiles that may be expanded per tick (the search in
+     *                   progress always finishes, so one tick may go over)
+     * @param cacheSize  routes to remember, 0 disables the cache
+     */
+    public PathfindingService(WorldService world, int nodeBudget, int cacheSize) {
+        this.world = world;
+        this.nodeBudget = nodeBudget;
+        this.cache = cacheSize <= 0 ? null : new LinkedHashMap<Long, int[]>(cacheSize * 4 / 3 + 1, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, int[]> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * Queue a route from the start to any tile of the target rectangle.
+     *
+     * @param adjacent also accept standing next to the rectangle without a wall
+     *                 in between (walking up to scenery or an NPC)
+     */
+    public Request request(int startX, int startY, int endX1, int endY1, int endX2, int endY2,
+                           boolean adjacent, Listener listener) {
+        Request request = new Request(startX, startY, Math.min(endX1, endX2), Math.min(endY1, endY2),
+                                      Math.max(endX1, endX2), Math.max(endY1, endY2), adjacent, listener);
+        synchronized (pending) {
+            pending.add(request);
+        }
+        return request;
+    }
+
+    /**
+     * Queue a route to a single tile.
+     */
+    public Request request(int startX, int startY, int endX, int endY, Listener listener) {
+        return request(startX, startY, endX, endY, endX, endY, false, listener);
+    }
+
+    public int getPendingCount() {
+        synchronized (pending) {
+            return pending.size();
+        }
+    }
+
+    /**
+     * Run queued searches until this tick's node budget is spent. Game thread only.
+     */
+    public void process() {
+        CollisionMap map = world.getCollisionMap();
+        if (map != cachedMap) {
+            // Routes found on another map are no longer valid
+            if (cache != null) {
+                cache.clear();
+            }
+            cachedMap = map;
+        }
+
+        int spent = 0;
+        int handled = 0;
+        while (spent < nodeBudget) {
+            Request request;
+            synchronized (pending) {
+                request = pending.poll();
+            }
+            if (request == null) {
+                break;
+            }
+            if (request.isCancelled()) {
+                continue;
+            }
+            spent += run(map, request);
+            handled++;
+        }
+
+        if (handled > 0 && Logger.isDebugEnabled()) {
+            Logger.debug("Pathfinding: " + handled + " routes, " + spent + " tiles expanded, " +
+                         getPendingCount() + " deferred (" + cacheHits + "/" + searches + " cached)");
+        }
+    }
+
+    /**
+     * Answer one request from the cache or by searching.
+     *
+     * @return tiles expanded
+     */
+    private int run(CollisionMap map, Request request) {
+        searches++;
+        long key = cacheKey(request);
+        int[] route = cache != null && key >= 0 ? cache.get(key) : null;
+        int count;
+        expanded = 0;
+        if (route != null) {
+            cacheHits++;
+            count = route == NO_ROUTE ? -1 : route.length;
+            for (int i = 0; i < count; i++) {
+                waypointX[i] = route[i] >> 16;
+                waypointY[i] = route[i] & 0xffff;
+            }
+        } else {
+            count = search(map, request);
+            if (cache != null && key >= 0) {
+                cache.put(key, pack(count));
+            }
+        }
+
+        try {
+            request.listener.onRoute(waypointX, waypointY, count);
+        } catch (Exception ex) {
+            Logger.error("Route listener failed: " + ex.getMessage());
+            ex.printStackTrace();
+        }
+        return Math.max(expanded, 1);
+    }
+
+    /**
+     * Breadth-first search for a request, leaving the waypoints in
+     * {@link #waypointX}/{@link #waypointY} and the work done in {@link #expanded}.
+     *
+     * @return number of waypoints, -1 if the target could not be reached
+     */
+    private int search(CollisionMap map, Request request) {
+        int originX = request.startX - SEARCH_SIZE / 2;
+        int originY = request.startY - SEARCH_SIZE / 2;
+        int endX1 = request.endX1 - originX;
+        int endY1 = request.endY1 - originY;
+        int endX2 = request.endX2 - originX;
+        int endY2 = request.endY2 - originY;
+        int startX = SEARCH_SIZE / 2;
+        int startY = SEARCH_SIZE / 2;
+
+        if (++stamp == 0) {
+            // Stamps wrapped after four billion searches; start clean
+            Arrays.fill(visitStamp, 0);
+            stamp = 1;
+        }
+
+        int head = 0;
+        int tail = 0;
+        visit(startX, startY, START);
+        queue[tail++] = startY * SEARCH_SIZE + startX;
+        int x = startX;
+        int y = startY;
+        boolean reached = false;
+        while (head != tail) {
+            int tile = queue[head++];
+            x = tile % SEARCH_SIZE;
+            y = tile / SEARCH_SIZE;
+            if (x >= endX1 && x <= endX2 && y >= endY1 && y <= endY2) {
+                reached = true;
+                break;
+            }
+            int worldX = x + originX;
+            int worldY = y + originY;
+            if (request.adjacent && reachesAdjacent(map, x, y, worldX, worldY, endX1, endY1, endX2, endY2)) {
+                reached = true;
+                break;
+            }
+            if (x > 0 && !visited(x - 1, y) && map.canStep(worldX, worldY, -1, 0)) {
+                visit(x - 1, y, MOVED_WEST);
+                queue[tail++] = tile - 1;
+            }
+            if (x < SEARCH_SIZE - 1 && !visited(x + 1, y) && map.canStep(worldX, worldY, 1, 0)) {
+                visit(x + 1, y, MOVED_EAST);
+                queue[tail++] = tile + 1;
+            }
+            if (y > 0 && !visited(x, y - 1) && map.canStep(worldX, worldY, 0, -1)) {
+                visit(x, y - 1, MOVED_NORTH);
+                queue[tail++] = tile - SEARCH_SIZE;
+            }
+            if (y < SEARCH_SIZE - 1 && !visited(x, y + 1) && map.canStep(worldX, worldY, 0, 1)) {
+                visit(x, y + 1, MOVED_SOUTH);
+                queue[tail++] = tile + SEARCH_SIZE;
+            }
+            if (x > 0 && y > 0 && !visited(x - 1, y - 1) && map.canStep(worldX, worldY, -1, -1)) {
+                visit(x - 1, y - 1, MOVED_WEST | MOVED_NORTH);
+                queue[tail++] = tile - SEARCH_SIZE - 1;
+            }
+            if (x < SEARCH_SIZE - 1 && y > 0 && !visited(x + 1, y - 1) && map.canStep(worldX, worldY, 1, -1)) {
+                visit(x + 1, y - 1, MOVED_EAST | MOVED_NORTH);
+                queue[tail++] = tile - SEARCH_SIZE + 1;
+            }
+            if (x > 0 && y < SEARCH_SIZE - 1 && !visited(x - 1, y + 1) && map.canStep(worldX, worldY, -1, 1)) {
+                visit(x - 1, y + 1, MOVED_WEST | MOVED_SOUTH);
+                queue[tail++] = tile + SEARCH_SIZE - 1;
+            }
+            if (x < SEARCH_SIZE - 1 && y < SEARCH_SIZE - 1 && !visited(x + 1, y + 1) && map.canStep(worldX, worldY, 1, 1)) {
+                visit(x + 1, y + 1, MOVED_EAST | MOVED_SOUTH);
+                queue[tail++] = tile + SEARCH_SIZE + 1;
+            }
+        }
+        expanded = head;
+        if (!reached) {
+            return -1;
+        }
+
+        // Walk back to the start, recording the turns (destination first), then reverse
+        int count = 0;
+        waypointX[count] = x + originX;
+        waypointY[count++] = y + originY;
+        int direction = via[y * SEARCH_SIZE + x];
+        while (x != startX || y != startY) {
+            int step = via[y * SEARCH_SIZE + x];
+            if (step != direction) {
+                direction = step;
+                waypointX[count] = x + originX;
+                waypointY[count++] = y + originY;
+            }
+            if ((step & MOVED_WEST) != 0) {
+                x++;
+            } else if ((step & MOVED_EAST) != 0) {
+                x--;
+            }
+            if ((step & MOVED_NORTH) != 0) {
+                y++;
+            } else if ((step & MOVED_SOUTH) != 0) {
+                y--;
+            }
+        }
+        if (waypointX[count - 1] == request.startX && waypointY[count - 1] == request.startY) {
+            count--;
+        }
+        for (int i = 0, j = count - 1; i < j; i++, j--) {
+            int swapX = waypointX[i];
+            waypointX[i] = waypointX[j];
+            waypointX[j] = swapX;
+            int swapY = waypointY[i];
+            waypointY[i] = waypointY[j];
+            waypointY[j] = swapY;
+        }
+        return count;
+    }
+
+    /**
+     * World.route's "objects" check: the target is one step away and the
+     * tile it is on has no wall on the side facing us.
+     */
+    private static boolean reachesAdjacent(CollisionMap map, int x, int y, int worldX, int worldY,
+                                           int endX1, int endY1, int endX2, int endY2) {
+        boolean inColumn = x >= endX1 && x <= endX2;
+        boolean inRow = y >= endY1 && y <= endY2;
+        return inRow && x - 1 >= endX1 && x - 1 <= endX2 && (map.getFlags(worldX - 1, worldY) & CollisionMap.WALL_WEST) == 0
+            || inRow && x + 1 >= endX1 && x + 1 <= endX2 && (map.getFlags(worldX + 1, worldY) & CollisionMap.WALL_EAST) == 0
+            || inColumn && y - 1 >= endY1 && y - 1 <= endY2 && (map.getFlags(worldX, worldY - 1) & CollisionMap.WALL_SOUTH) == 0
+            || inColumn && y + 1 >= endY1 && y + 1 <= endY2 && (map.getFlags(worldX, worldY + 1) & CollisionMap.WALL_NORTH) == 0;
+    }
+
+    private boolean visited(int x, int y) {
+        return visitStamp[y * SEARCH_SIZE + x] == stamp;
+    }
+
+    private void visit(int x, int y, int direction) {
+        int tile = y * SEARCH_SIZE + x;
+        visitStamp[tile] = stamp;
+        via[tile] = (byte) direction;
+    }
+
+    /**
+     * Copy the current waypoints into a cache entry ({@code x << 16 | y} each).
+     */
+    private int[] pack(int count) {
+        if (count < 0) {
+            return NO_ROUTE;
+        }
+        int[] route = new int[count];
+        for (int i = 0; i < count; i++) {
+            route[i] = waypointX[i] << 16 | waypointY[i];
+        }
+        return route;
+    }
+
+    /**
+     * Start tile, target corner and target size packed into one long, or -1
+     * for targets too large to cache (more than 15 tiles across). Coordinates
+     * get 12 bits each, enough for the whole map; a coordinate that does not
+     * fit is not cached rather than masked, since masking would let two
+     * areas share a key and the cached waypoints are absolute.
+     */
+    private static long cacheKey(Request request) {
+        int width = request.endX2 - request.endX1;
+        int height = request.endY2 - request.endY1;
+        if (width < 0 || width > 15 || height < 0 || height > 15) {
+            return -1;
+        }
+        if (!fitsKey(request.startX) || !fitsKey(request.startY) || !fitsKey(request.endX1) || !fitsKey(request.endY1)) {
+            return -1;
+        }
+        return (long) request.startX << 45
+            | (long) request.startY << 33
+            | (long) request.endX1 << 21
+            | (long) request.endY1 << 9
+            | (long) width << 5
+            | (long) height << 1
+            | (request.adjacent ? 1L : 0L);
+    }
+
+    private static boolean fitsKey(int coordinate) {
+        return coordinate >= 0 && coordinate <= 0xfff;
+    }
+}
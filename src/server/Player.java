@@ -1,3 +1,4 @@
+import java.io.IOException;
 import java.net.Socket;
 import java.util.ArrayList;
 import java.util.HashSet;
@@ -14,6 +15,7 @@ public class Player {
     // Network
     private Socket socket;
     private long sessionId;
+    private final OutboundQueue outbound = new OutboundQueue();
     
     // Account info
     private String username;
@@ -37,11 +39,13 @@ public class Player {
     private int x;
     private int y;
     private int planeIndex;
+    private SpatialGrid<Player> grid;  // Set while the player is in the world
     
     // Movement - Queue of coordinate deltas to process
     // Each step is processed one per game tick for smooth walking
     private Queue<int[]> walkQueue = new LinkedList<>(); // Each entry: [deltaX, deltaY]
     private boolean isWalking = false;
+    private PathfindingService.Request pathRequest;  // Route search still waiting for the game thread
     
     // Combat stats (18 total in RSC)
     private int[] currentStats = new int[18];
@@ -104,6 +108,12 @@ public class Player {
 
     // NPC interaction
     private Npc interactingNpc;      // NPC the player is talking to
+
+    // Persistence: set when saved state changes, cleared when a save snapshot is taken.
+    // Starts set so every session is saved at least once (it records the login).
+    private volatile boolean dirty = true;
+    private long previousLoginTime;    // From the save this session was loaded from (0 if none)
+    private String previousLoginIP = "0.0.0.0";
     
     public Player(Socket socket, String username, long sessionId) {
         this.socket = socket;
@@ -148,6 +158,46 @@ public class Player {
         return socket;
     }
     
+    /**
+     * Queue a packet for this player. It is written when the game loop
+     * flushes outbound queues at the end of the tick.
+     */
+    public void send(Buffer packet) {
+        outbound.add(packet);
+    }
+
+    /**
+     * Queue a packet whose body was encoded by a {@link BitWriter}.
+     */
+    public void send(int opcode, BitWriter body) {
+        int length = body.finish();
+        outbound.add(opcode, body.data(), 0, length);
+    }
+
+    /**
+     * Queue bytes that are not length-framed (login response codes).
+     */
+    public void sendRaw(byte[] data) {
+        outbound.addRaw(data);
+    }
+
+    /**
+     * Write all queued packets to the socket in one write.
+     *
+     * @return number of bytes written
+     */
+    public int flushOutbound() throws IOException {
+        if (socket == null || socket.isClosed()) {
+            outbound.clear();
+            return 0;
+        }
+        return outbound.flush(socket.getOutputStream());
+    }
+
+    public OutboundQueue getOutbound() {
+        return outbound;
+    }
+
     public long getSessionId() {
         return sessionId;
     }
@@ -173,7 +223,12 @@ public class Player {
     }
     
     public void setX(int x) {
+        dirty = true;
+        int oldX = this.x;
         this.x = x;
+        if (grid != null) {
+            grid.move(this, oldX, y, x, y);
+        }
     }
     
     public int getY() {
@@ -181,7 +236,20 @@ public class Player {
     }
     
     public void setY(int y) {
+        dirty = true;
+        int oldY = this.y;
         this.y = y;
+        if (grid != null) {
+            grid.move(this, x, oldY, x, y);
+        }
+    }
+
+    /**
+     * Index this player in a spatial grid; position changes keep it up to date.
+     * Pass null to stop tracking (the caller removes it from the grid).
+     */
+    public void setGrid(SpatialGrid<Player> grid) {
+        this.grid = grid;
     }
     
     public int getPlaneIndex() {
@@ -189,6 +257,7 @@ public class Player {
     }
     
     public void setPlaneIndex(int planeIndex) {
+        dirty = true;
         this.planeIndex = planeIndex;
     }
     
@@ -212,6 +281,7 @@ public class Player {
         if (inventory.size() >= MAX_INVENTORY_SIZE) {
             return false;
         }
+        dirty = true;
         
         // Check if item is stackable and already in inventory
         for (Item item : inventory) {
@@ -230,6 +300,7 @@ public class Player {
         for (int i = 0; i < inventory.size(); i++) {
             Item item = inventory.get(i);
             if (item.getId() == itemId) {
+                dirty = true;
                 if (item.getAmount() > amount) {
                     item.setAmount(item.getAmount() - amount);
                 } else {
@@ -254,6 +325,7 @@ public class Player {
     }
     
     public void setBlockChat(boolean blockChat) {
+        dirty = true;
         this.blockChat = blockChat;
     }
     
@@ -262,6 +334,7 @@ public class Player {
     }
     
     public void setBlockPrivateMessages(boolean blockPrivateMessages) {
+        dirty = true;
         this.blockPrivateMessages = blockPrivateMessages;
     }
     
@@ -270,6 +343,7 @@ public class Player {
     }
     
     public void setBlockTrade(boolean blockTrade) {
+        dirty = true;
         this.blockTrade = blockTrade;
     }
     
@@ -278,6 +352,7 @@ public class Player {
     }
     
     public void setBlockDuel(boolean blockDuel) {
+        dirty = true;
         this.blockDuel = blockDuel;
     }
     
@@ -286,6 +361,7 @@ public class Player {
     }
     
     public void setCombatStyle(int combatStyle) {
+        dirty = true;
         this.combatStyle = combatStyle;
     }
     
@@ -302,6 +378,7 @@ public class Player {
     }
     
     public void setFatigue(int fatigue) {
+        dirty = true;
         this.fatigue = fatigue;
     }
     
@@ -311,6 +388,7 @@ public class Player {
     
     public void setAppearance(int headGender, int headType, int bodyGender, 
                              int hairColour, int topColour, int bottomColour, int skinColour) {
+        dirty = true;
         this.headGender = headGender;
         this.headType = headType;
         this.bodyGender = bodyGender;
@@ -421,6 +499,17 @@ public class Player {
         return !walkQueue.isEmpty();
     }
     
+    /**
+     * Remember the player's latest route request, cancelling the previous one
+     * (a new click supersedes a route that has not been searched yet).
+     */
+    public synchronized void replacePathRequest(PathfindingService.Request request) {
+        if (pathRequest != null) {
+            pathRequest.cancel();
+        }
+        pathRequest = request;
+    }
+    
     // ===== Multiplayer Tracking Methods =====
     // Based on server-js LocalEntities pattern
     
@@ -463,13 +552,13 @@ public class Player {
     // ===== Game Settings =====
 
     public boolean isCameraModeAuto() { return cameraModeAuto; }
-    public void setCameraModeAuto(boolean v) { this.cameraModeAuto = v; }
+    public void setCameraModeAuto(boolean v) { this.cameraModeAuto = v; dirty = true; }
 
     public boolean isMouseButtonOne() { return mouseButtonOne; }
-    public void setMouseButtonOne(boolean v) { this.mouseButtonOne = v; }
+    public void setMouseButtonOne(boolean v) { this.mouseButtonOne = v; dirty = true; }
 
     public boolean isSoundDisabled() { return soundDisabled; }
-    public void setSoundDisabled(boolean v) { this.soundDisabled = v; }
+    public void setSoundDisabled(boolean v) { this.soundDisabled = v; dirty = true; }
 
     // ===== Equipment Bonuses =====
 
@@ -505,6 +594,32 @@ public class Player {
     public int getLastDamageTaken() { return lastDamageTaken; }
     public void setLastDamageTaken(int d) { this.lastDamageTaken = d; }
 
+    // ===== Persistence =====
+
+    /**
+     * Note a change to saved state that did not go through a setter here
+     * (stats, inventory items or the social lists changed in place).
+     */
+    public void markDirty() { dirty = true; }
+
+    /**
+     * Whether saved state changed since the last save snapshot.
+     */
+    public boolean isDirty() { return dirty; }
+
+    public void clearDirty() { dirty = false; }
+
+    /**
+     * When and from where the account last logged in, for the welcome screen.
+     */
+    public void setPreviousLogin(long time, String ip) {
+        this.previousLoginTime = time;
+        this.previousLoginIP = ip;
+    }
+
+    public long getPreviousLoginTime() { return previousLoginTime; }
+    public String getPreviousLoginIP() { return previousLoginIP; }
+
     // ===== NPC Interaction =====
 
     public Npc getInteractingNpc() { return interactingNpc; }
@@ -20,8 +20,7 @@ public final class PlayerPacketSender {
         out.putByte((byte) scrambledMessage.length);    // message length
         out.put(scrambledMessage);                      // scrambled message bytes
 
-        viewer.getSocket().getOutputStream().write(out.toArrayWithLen());
-        viewer.getSocket().getOutputStream().flush();
+        viewer.send(out);
     }
 
     /**
@@ -37,8 +36,7 @@ public final class PlayerPacketSender {
         out.putInt(messageId);
         out.put(scrambledMessage);
 
-        recipient.getSocket().getOutputStream().write(out.toArrayWithLen());
-        recipient.getSocket().getOutputStream().flush();
+        recipient.send(out);
 
         Logger.debug("Sent PM to " + recipient.getUsername() + " from hash=" + senderHash);
     }
@@ -69,8 +67,7 @@ public final class PlayerPacketSender {
         out.putByte((byte) target.getCombatLevel());
         out.putByte((byte) 0);
 
-        viewer.getSocket().getOutputStream().write(out.toArrayWithLen());
-        viewer.getSocket().getOutputStream().flush();
+        viewer.send(out);
 
         Logger.info("Appearance packet for " + target.getUsername() + ": equipment="
             + java.util.Arrays.toString(equipment)
@@ -142,8 +139,7 @@ public final class PlayerPacketSender {
             }
         }
 
-        player.getSocket().getOutputStream().write(out.toArrayWithLen());
-        player.getSocket().getOutputStream().flush();
+        player.send(out);
 
         Logger.debug("Sent inventory update: index=" + index + " id=" + item.getId() +
                      " equipped=" + item.isEquipped() + " to " + player.getUsername());
@@ -160,8 +156,7 @@ public final class PlayerPacketSender {
         out.putShort(Opcodes.Server.SV_INVENTORY_ITEM_REMOVE.value);
         out.putByte((byte) index);
 
-        player.getSocket().getOutputStream().write(out.toArrayWithLen());
-        player.getSocket().getOutputStream().flush();
+        player.send(out);
 
         Logger.debug("Sent inventory remove: index=" + index + " to " + player.getUsername());
     }
@@ -193,8 +188,7 @@ public final class PlayerPacketSender {
             }
         }
 
-        player.getSocket().getOutputStream().write(out.toArrayWithLen());
-        player.getSocket().getOutputStream().flush();
+        player.send(out);
 
         Logger.debug("Sent full inventory (" + player.getInventory().size() + " items) to " + player.getUsername());
     }
@@ -209,8 +203,7 @@ public final class PlayerPacketSender {
         out.putShort(Opcodes.Server.SV_MESSAGE.value);
         out.putString(message);
 
-        player.getSocket().getOutputStream().write(out.toArrayWithLen());
-        player.getSocket().getOutputStream().flush();
+        player.send(out);
     }
 
     /**
@@ -228,8 +221,7 @@ public final class PlayerPacketSender {
         out.putByte((byte) player.getBaseStats()[statId]);
         out.putInt(player.getExperience()[statId]);
 
-        player.getSocket().getOutputStream().write(out.toArrayWithLen());
-        player.getSocket().getOutputStream().flush();
+        player.send(out);
 
         Logger.debug("Sent stat update: stat=" + statId + " cur=" + player.getCurrentStats()[statId] +
                      " base=" + player.getBaseStats()[statId] + " to " + player.getUsername());
@@ -262,8 +254,7 @@ public final class PlayerPacketSender {
         // Quest points
         out.putByte((byte) player.getQuestPoints());
 
-        player.getSocket().getOutputStream().write(out.toArrayWithLen());
-        player.getSocket().getOutputStream().flush();
+        player.send(out);
     }
 
     // ===== Region Data Packets =====
@@ -306,85 +297,59 @@ public final class PlayerPacketSender {
             }
         }
 
-        Buffer out = new Buffer();
-        out.putShort(Opcodes.Server.SV_REGION_NPCS.value);
-
-        byte[] bitData = new byte[500];
-        int bitOffset = 0;
+        BitWriter bits = BitWriter.get();
 
         // Known NPC count
-        NetHelper.setBitMask(bitData, bitOffset, 8, knownNpcs.size());
-        bitOffset += 8;
+        bits.write(8, knownNpcs.size());
 
         // Process known NPCs
         for (Npc npc : knownNpcs) {
             if (removedNpcs.contains(npc)) {
-                // reqUpdate = 1, updateType = 1 (removing), direction = 12 (signal remove)
-                NetHelper.setBitMask(bitData, bitOffset, 1, 1);
-                bitOffset += 1;
-                NetHelper.setBitMask(bitData, bitOffset, 1, 1);
-                bitOffset += 1;
-                // Write 4-bit value with upper 2 bits = 11 (0xC) to signal removal
-                NetHelper.setBitMask(bitData, bitOffset, 4, 12);
-                bitOffset += 4;
+                // reqUpdate = 1, updateType = 1 (removing), then a 4-bit value
+                // with upper 2 bits = 11 (0xC) to signal removal
+                bits.write(1, 1);
+                bits.write(1, 1);
+                bits.write(4, 12);
             } else if (npc.hasMoved()) {
                 // reqUpdate = 1, updateType = 0 (moved), direction (3 bits)
-                NetHelper.setBitMask(bitData, bitOffset, 1, 1);
-                bitOffset += 1;
-                NetHelper.setBitMask(bitData, bitOffset, 1, 0);
-                bitOffset += 1;
-                NetHelper.setBitMask(bitData, bitOffset, 3, npc.getMoveDirection());
-                bitOffset += 3;
+                bits.write(1, 1);
+                bits.write(1, 0);
+                bits.write(3, npc.getMoveDirection());
             } else {
                 // reqUpdate = 0 (no change, NPC stays in place)
-                NetHelper.setBitMask(bitData, bitOffset, 1, 0);
-                bitOffset += 1;
+                bits.write(1, 0);
             }
         }
 
         // Add new NPCs
         for (Npc npc : addedNpcs) {
-            if ((bitOffset + 36) / 8 >= 490) break; // leave room
+            if ((bits.bitPosition() + 36) / 8 >= 490) break; // leave room
 
             // serverIndex (12 bits)
-            NetHelper.setBitMask(bitData, bitOffset, 12, npc.getServerId());
-            bitOffset += 12;
+            bits.write(12, npc.getServerId());
 
             // Offset from local player (5-bit signed)
             int offsetX = npc.getX() - player.getX();
             int offsetY = npc.getY() - player.getY();
             if (offsetX < 0) offsetX += 32;
             if (offsetY < 0) offsetY += 32;
-            NetHelper.setBitMask(bitData, bitOffset, 5, offsetX);
-            bitOffset += 5;
-            NetHelper.setBitMask(bitData, bitOffset, 5, offsetY);
-            bitOffset += 5;
+            bits.write(5, offsetX);
+            bits.write(5, offsetY);
 
             // Animation/sprite (4 bits)
-            NetHelper.setBitMask(bitData, bitOffset, 4, npc.getDirection());
-            bitOffset += 4;
+            bits.write(4, npc.getDirection());
 
             // NPC type (10 bits)
-            NetHelper.setBitMask(bitData, bitOffset, 10, npc.getTypeId());
-            bitOffset += 10;
+            bits.write(10, npc.getTypeId());
         }
 
-        int byteCount = (bitOffset + 7) / 8;
-        byte[] packetData = new byte[byteCount];
-        System.arraycopy(bitData, 0, packetData, 0, byteCount);
-        out.putBytes(packetData);
-
-        player.getSocket().getOutputStream().write(out.toArrayWithLen());
-        player.getSocket().getOutputStream().flush();
+        player.send(Opcodes.Server.SV_REGION_NPCS.value, bits);
 
         // Update tracking
         knownNpcs.addAll(addedNpcs);
         knownNpcs.removeAll(removedNpcs);
         addedNpcs.clear();
         removedNpcs.clear();
-
-        Logger.debug("Sent NPC region: " + knownNpcs.size() + " known, " +
-                     addedNpcs.size() + " new to " + player.getUsername());
     }
 
     /**
@@ -412,8 +377,7 @@ public final class PlayerPacketSender {
             out.putByte((byte) offsetY);
         }
 
-        player.getSocket().getOutputStream().write(out.toArrayWithLen());
-        player.getSocket().getOutputStream().flush();
+        player.send(out);
 
         Logger.debug("Sent " + nearbyObjects.size() + " objects to " + player.getUsername());
     }
@@ -443,8 +407,7 @@ public final class PlayerPacketSender {
             out.putByte((byte) wall.direction);
         }
 
-        player.getSocket().getOutputStream().write(out.toArrayWithLen());
-        player.getSocket().getOutputStream().flush();
+        player.send(out);
 
         Logger.debug("Sent " + nearbyWalls.size() + " wall objects to " + player.getUsername());
     }
@@ -473,12 +436,33 @@ public final class PlayerPacketSender {
             out.putByte((byte) offsetY);
         }
 
-        player.getSocket().getOutputStream().write(out.toArrayWithLen());
-        player.getSocket().getOutputStream().flush();
+        player.send(out);
 
         Logger.debug("Sent " + nearbyItems.size() + " ground items to " + player.getUsername());
     }
 
+    /**
+     * Tell every player near a ground item that it appeared or went away.
+     * Same packet as {@link #sendRegionGroundItems}; bit 0x8000 of the id marks a removal.
+     */
+    public static void broadcastGroundItem(DataLoader.GroundItemData item, boolean removed) {
+        int radius = 24;
+        for (Player player : ServerContext.get().getPlayers().findNearby(item.x, item.y, radius)) {
+            int offsetX = item.x - player.getX();
+            int offsetY = item.y - player.getY();
+            if (player.getSocket() == null || offsetX < -128 || offsetX > 127 || offsetY < -128 || offsetY > 127) {
+                continue;
+            }
+
+            Buffer out = new Buffer();
+            out.putShort(Opcodes.Server.SV_REGION_GROUND_ITEMS.value);
+            out.putShort((short) (removed ? item.id | 0x8000 : item.id));
+            out.putByte((byte) offsetX);
+            out.putByte((byte) offsetY);
+            player.send(out);
+        }
+    }
+
     // ===== Dialogue Packets =====
 
     /**
@@ -501,8 +485,7 @@ public final class PlayerPacketSender {
             out.put(optionBytes);
         }
 
-        player.getSocket().getOutputStream().write(out.toArrayWithLen());
-        player.getSocket().getOutputStream().flush();
+        player.send(out);
 
         Logger.debug("Sent option list (" + options.length + " options) to " + player.getUsername());
     }
@@ -516,8 +499,7 @@ public final class PlayerPacketSender {
         Buffer out = new Buffer();
         out.putShort(Opcodes.Server.SV_OPTION_LIST_CLOSE.value);
 
-        player.getSocket().getOutputStream().write(out.toArrayWithLen());
-        player.getSocket().getOutputStream().flush();
+        player.send(out);
 
         Logger.debug("Sent option list close to " + player.getUsername());
     }
@@ -560,8 +542,7 @@ public final class PlayerPacketSender {
         out.putByte((byte) magic);
         out.putByte((byte) prayer);
 
-        player.getSocket().getOutputStream().write(out.toArrayWithLen());
-        player.getSocket().getOutputStream().flush();
+        player.send(out);
 
         Logger.debug("Sent equipment bonuses to " + player.getUsername() +
                      ": armour=" + armour + " aim=" + weaponAim + " power=" + weaponPower +
@@ -590,8 +571,7 @@ public final class PlayerPacketSender {
         out.putByte((byte) scrambled.length);             // message length
         out.put(scrambled);                               // scrambled message
 
-        player.getSocket().getOutputStream().write(out.toArrayWithLen());
-        player.getSocket().getOutputStream().flush();
+        player.send(out);
     }
 
     /**
@@ -610,8 +590,7 @@ public final class PlayerPacketSender {
         out.putByte((byte) currentHP);                    // current health
         out.putByte((byte) maxHP);                        // max health
 
-        viewer.getSocket().getOutputStream().write(out.toArrayWithLen());
-        viewer.getSocket().getOutputStream().flush();
+        viewer.send(out);
     }
 
     // ===== Game Settings Packet =====
@@ -629,8 +608,7 @@ public final class PlayerPacketSender {
         out.putByte((byte) (player.isMouseButtonOne() ? 1 : 0));
         out.putByte((byte) (player.isSoundDisabled() ? 1 : 0));
 
-        player.getSocket().getOutputStream().write(out.toArrayWithLen());
-        player.getSocket().getOutputStream().flush();
+        player.send(out);
 
         Logger.debug("Sent game settings to " + player.getUsername());
     }
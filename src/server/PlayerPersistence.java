@@ -1,213 +1,205 @@
 import java.io.IOException;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
- * Handles saving and loading player data to/from JSON files.
- * Players are saved to data/players/{username}.json
+ * Player save files from before the {@link PlayerStore}, and the JSON form of a save.
+ *
+ * Saves used to be one file per account: data/players/{username}.json, then
+ * data/players/{username}.sav in the {@link PlayerSaveCodec} format. The
+ * server still reads those for accounts the store does not have yet, so they
+ * move into the store on their next save; {@link PlayerSaveTool} migrates them
+ * all at once. JSON is also the export format of the tool.
  */
 public class PlayerPersistence {
-    private static final String SAVE_DIR = "data/players";
+    static final String SAVE_DIR = "data/players";
+    static final String SAVE_EXTENSION = ".sav";
+    static final String LEGACY_EXTENSION = ".json";
 
     /**
-     * Save a player's data to disk.
+     * Render a save as JSON, in the layout of the old save files.
      */
-    public static void save(Player player) {
-        try {
-            Path dir = Paths.get(SAVE_DIR);
-            if (!Files.exists(dir)) {
-                Files.createDirectories(dir);
-            }
-
-            String filename = player.getUsername().toLowerCase() + ".json";
-            Path filePath = dir.resolve(filename);
-
-            StringBuilder sb = new StringBuilder();
-            sb.append("{\n");
-
-            // Account info
-            sb.append("  \"username\": \"").append(player.getUsername()).append("\",\n");
-            sb.append("  \"usernameHash\": ").append(player.getUsernameHash()).append(",\n");
-
-            // Position
-            sb.append("  \"x\": ").append(player.getX()).append(",\n");
-            sb.append("  \"y\": ").append(player.getY()).append(",\n");
-            sb.append("  \"planeIndex\": ").append(player.getPlaneIndex()).append(",\n");
-
-            // Appearance
-            sb.append("  \"headGender\": ").append(player.getHeadGender()).append(",\n");
-            sb.append("  \"headType\": ").append(player.getHeadType()).append(",\n");
-            sb.append("  \"bodyGender\": ").append(player.getBodyGender()).append(",\n");
-            sb.append("  \"hairColour\": ").append(player.getHairColour()).append(",\n");
-            sb.append("  \"topColour\": ").append(player.getTopColour()).append(",\n");
-            sb.append("  \"bottomColour\": ").append(player.getBottomColour()).append(",\n");
-            sb.append("  \"skinColour\": ").append(player.getSkinColour()).append(",\n");
-
-            // Stats
-            sb.append("  \"currentStats\": ").append(intArrayToJson(player.getCurrentStats())).append(",\n");
-            sb.append("  \"baseStats\": ").append(intArrayToJson(player.getBaseStats())).append(",\n");
-            sb.append("  \"experience\": ").append(intArrayToJson(player.getExperience())).append(",\n");
-
-            // Combat style and quest points
-            sb.append("  \"combatStyle\": ").append(player.getCombatStyle()).append(",\n");
-            sb.append("  \"questPoints\": ").append(player.getQuestPoints()).append(",\n");
-            sb.append("  \"fatigue\": ").append(player.getFatigue()).append(",\n");
-
-            // Settings
-            sb.append("  \"blockChat\": ").append(player.isBlockChat()).append(",\n");
-            sb.append("  \"blockPrivateMessages\": ").append(player.isBlockPrivateMessages()).append(",\n");
-            sb.append("  \"blockTrade\": ").append(player.isBlockTrade()).append(",\n");
-            sb.append("  \"blockDuel\": ").append(player.isBlockDuel()).append(",\n");
-
-            // Game settings
-            sb.append("  \"cameraModeAuto\": ").append(player.isCameraModeAuto()).append(",\n");
-            sb.append("  \"mouseButtonOne\": ").append(player.isMouseButtonOne()).append(",\n");
-            sb.append("  \"soundDisabled\": ").append(player.isSoundDisabled()).append(",\n");
-
-            // Inventory
-            sb.append("  \"inventory\": [");
-            List<Item> inventory = player.getInventory();
-            for (int i = 0; i < inventory.size(); i++) {
-                Item item = inventory.get(i);
-                sb.append("{\"id\":").append(item.getId())
-                  .append(",\"amount\":").append(item.getAmount())
-                  .append(",\"equipped\":").append(item.isEquipped())
-                  .append("}");
-                if (i < inventory.size() - 1) sb.append(",");
-            }
-            sb.append("],\n");
-
-            // Friends list
-            sb.append("  \"friendList\": ").append(longListToJson(player.getFriendList())).append(",\n");
-
-            // Ignore list
-            sb.append("  \"ignoreList\": ").append(longListToJson(player.getIgnoreList())).append(",\n");
+    static String toJson(PlayerSave save) {
+        StringBuilder sb = new StringBuilder(1024);
+        sb.append("{\n");
+
+        // Account info
+        sb.append("  \"username\": \"").append(save.username).append("\",\n");
+        sb.append("  \"usernameHash\": ").append(save.usernameHash).append(",\n");
+
+        // Position
+        sb.append("  \"x\": ").append(save.x).append(",\n");
+        sb.append("  \"y\": ").append(save.y).append(",\n");
+        sb.append("  \"planeIndex\": ").append(save.planeIndex).append(",\n");
+
+        // Appearance
+        sb.append("  \"headGender\": ").append(save.headGender).append(",\n");
+        sb.append("  \"headType\": ").append(save.headType).append(",\n");
+        sb.append("  \"bodyGender\": ").append(save.bodyGender).append(",\n");
+        sb.append("  \"hairColour\": ").append(save.hairColour).append(",\n");
+        sb.append("  \"topColour\": ").append(save.topColour).append(",\n");
+        sb.append("  \"bottomColour\": ").append(save.bottomColour).append(",\n");
+        sb.append("  \"skinColour\": ").append(save.skinColour).append(",\n");
+
+        // Stats
+        sb.append("  \"currentStats\": ").append(intArrayToJson(save.currentStats)).append(",\n");
+        sb.append("  \"baseStats\": ").append(intArrayToJson(save.baseStats)).append(",\n");
+        sb.append("  \"experience\": ").append(intArrayToJson(save.experience)).append(",\n");
+
+        // Combat style and quest points
+        sb.append("  \"combatStyle\": ").append(save.combatStyle).append(",\n");
+        sb.append("  \"questPoints\": ").append(save.questPoints).append(",\n");
+        sb.append("  \"fatigue\": ").append(save.fatigue).append(",\n");
+
+        // Settings
+        sb.append("  \"blockChat\": ").append(save.blockChat).append(",\n");
+        sb.append("  \"blockPrivateMessages\": ").append(save.blockPrivateMessages).append(",\n");
+        sb.append("  \"blockTrade\": ").append(save.blockTrade).append(",\n");
+        sb.append("  \"blockDuel\": ").append(save.blockDuel).append(",\n");
+
+        // Game settings
+        sb.append("  \"cameraModeAuto\": ").append(save.cameraModeAuto).append(",\n");
+        sb.append("  \"mouseButtonOne\": ").append(save.mouseButtonOne).append(",\n");
+        sb.append("  \"soundDisabled\": ").append(save.soundDisabled).append(",\n");
+
+        // Inventory
+        sb.append("  \"inventory\": [");
+        for (int i = 0; i < save.itemIds.length; i++) {
+            sb.append("{\"id\":").append(save.itemIds[i])
+              .append(",\"amount\":").append(save.itemAmounts[i])
+              .append(",\"equipped\":").append(save.itemEquipped[i])
+              .append("}");
+            if (i < save.itemIds.length - 1) sb.append(",");
+        }
+        sb.append("],\n");
 
-            // Login tracking
-            sb.append("  \"lastLoginTime\": ").append(System.currentTimeMillis()).append(",\n");
-            sb.append("  \"lastLoginIP\": \"").append(getPlayerIP(player)).append("\"\n");
+        // Friends list
+        sb.append("  \"friendList\": ").append(longArrayToJson(save.friendList)).append(",\n");
 
-            sb.append("}\n");
+        // Ignore list
+        sb.append("  \"ignoreList\": ").append(longArrayToJson(save.ignoreList)).append(",\n");
 
-            Files.writeString(filePath, sb.toString());
-            Logger.info("Saved player data: " + player.getUsername());
+        // Login tracking
+        sb.append("  \"lastLoginTime\": ").append(save.lastLoginTime).append(",\n");
+        sb.append("  \"lastLoginIP\": \"").append(save.lastLoginIP).append("\"\n");
 
-        } catch (IOException ex) {
-            Logger.error("Failed to save player " + player.getUsername() + ": " + ex.getMessage());
-        }
+        sb.append("}\n");
+        return sb.toString();
     }
 
     /**
-     * Load a player's saved data. Returns true if save file was found and loaded.
+     * Read an account's save file: the binary one, else the JSON one.
+     *
+     * @return null if there is no readable save file
      */
-    public static boolean load(Player player) {
-        try {
-            String filename = player.getUsername().toLowerCase() + ".json";
-            Path filePath = Paths.get(SAVE_DIR, filename);
-
-            if (!Files.exists(filePath)) {
-                Logger.info("No save file for " + player.getUsername() + " - using defaults");
-                return false;
+    public static PlayerSave readLegacy(String username) {
+        Path savePath = savePath(username);
+        if (Files.exists(savePath)) {
+            try {
+                return PlayerSaveCodec.decode(Files.readAllBytes(savePath));
+            } catch (IOException ex) {
+                // Keep the damaged file for inspection
+                Logger.error("Failed to load player " + username + ": " + ex.getMessage());
+                moveAside(savePath);
             }
+        }
 
-            String content = Files.readString(filePath);
-
-            // Position
-            player.setX(extractInt(content, "\"x\""));
-            player.setY(extractInt(content, "\"y\""));
-            player.setPlaneIndex(extractIntOr(content, "planeIndex", 0));
-
-            // Appearance
-            int headGender = extractIntOr(content, "headGender", 1);
-            int headType = extractIntOr(content, "headType", 1);
-            int bodyGender = extractIntOr(content, "bodyGender", 1);
-            int hairColour = extractIntOr(content, "hairColour", 2);
-            int topColour = extractIntOr(content, "topColour", 8);
-            int bottomColour = extractIntOr(content, "bottomColour", 14);
-            int skinColour = extractIntOr(content, "skinColour", 0);
-            player.setAppearance(headGender, headType, bodyGender, hairColour, topColour, bottomColour, skinColour);
-
-            // Stats
-            int[] currentStats = extractIntArray(content, "currentStats", 18);
-            int[] baseStats = extractIntArray(content, "baseStats", 18);
-            int[] experience = extractIntArray(content, "experience", 18);
-            if (currentStats != null) System.arraycopy(currentStats, 0, player.getCurrentStats(), 0, 18);
-            if (baseStats != null) System.arraycopy(baseStats, 0, player.getBaseStats(), 0, 18);
-            if (experience != null) System.arraycopy(experience, 0, player.getExperience(), 0, 18);
-
-            // Combat style and quest points
-            player.setCombatStyle(extractIntOr(content, "combatStyle", 0));
-            player.setFatigue(extractIntOr(content, "fatigue", 0));
-
-            // Settings
-            player.setBlockChat(extractBool(content, "blockChat", false));
-            player.setBlockPrivateMessages(extractBool(content, "blockPrivateMessages", false));
-            player.setBlockTrade(extractBool(content, "blockTrade", false));
-            player.setBlockDuel(extractBool(content, "blockDuel", false));
-
-            // Game settings
-            player.setCameraModeAuto(extractBool(content, "cameraModeAuto", false));
-            player.setMouseButtonOne(extractBool(content, "mouseButtonOne", false));
-            player.setSoundDisabled(extractBool(content, "soundDisabled", false));
-
-            // Inventory
-            loadInventory(player, content);
-
-            // Friends list
-            loadLongList(player.getFriendList(), content, "friendList");
-
-            // Ignore list
-            loadLongList(player.getIgnoreList(), content, "ignoreList");
-
-            Logger.info("Loaded player data: " + player.getUsername() + " at (" + player.getX() + "," + player.getY() + ")");
-            return true;
-
+        Path jsonPath = legacyPath(username);
+        if (!Files.exists(jsonPath)) {
+            return null;
+        }
+        try {
+            return parseJson(Files.readString(jsonPath), username);
         } catch (Exception ex) {
-            Logger.error("Failed to load player " + player.getUsername() + ": " + ex.getMessage());
-            return false;
+            Logger.error("Failed to load player " + username + ": " + ex.getMessage());
+            return null;
         }
     }
 
     /**
-     * Check if a save file exists for the given username.
+     * Accounts with a save file in {@link #SAVE_DIR}, by file name stem.
      */
-    public static boolean hasSaveFile(String username) {
-        Path filePath = Paths.get(SAVE_DIR, username.toLowerCase() + ".json");
-        return Files.exists(filePath);
+    public static Set<String> listLegacyAccounts() throws IOException {
+        Set<String> accounts = new TreeSet<>();
+        Path dir = Paths.get(SAVE_DIR);
+        if (!Files.isDirectory(dir)) {
+            return accounts;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(SAVE_EXTENSION)) {
+                    accounts.add(name.substring(0, name.length() - SAVE_EXTENSION.length()));
+                } else if (name.endsWith(LEGACY_EXTENSION)) {
+                    accounts.add(name.substring(0, name.length() - LEGACY_EXTENSION.length()));
+                }
+            }
+        }
+        return accounts;
     }
 
-    /**
-     * Get the last login time from save file (for welcome screen).
-     * Returns 0 if no save file.
-     */
-    public static long getLastLoginTime(String username) {
+    static Path savePath(String username) {
+        return Paths.get(SAVE_DIR, PlayerSave.keyOf(username) + SAVE_EXTENSION);
+    }
+
+    static Path legacyPath(String username) {
+        return Paths.get(SAVE_DIR, PlayerSave.keyOf(username) + LEGACY_EXTENSION);
+    }
+
+    private static void moveAside(Path path) {
         try {
-            Path filePath = Paths.get(SAVE_DIR, username.toLowerCase() + ".json");
-            if (!Files.exists(filePath)) return 0;
-            String content = Files.readString(filePath);
-            return extractLongOr(content, "lastLoginTime", 0);
-        } catch (Exception ex) {
-            return 0;
+            Files.move(path, path.resolveSibling(path.getFileName() + ".corrupt"), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException ex) {
+            Logger.error("Failed to move aside " + path + ": " + ex.getMessage());
         }
     }
 
     /**
-     * Get the last login IP from save file (for welcome screen).
+     * Parse a JSON save (the format before {@link PlayerSaveCodec}, and the
+     * export format). Missing fields get a new player's defaults.
      */
-    public static String getLastLoginIP(String username) {
-        try {
-            Path filePath = Paths.get(SAVE_DIR, username.toLowerCase() + ".json");
-            if (!Files.exists(filePath)) return "0.0.0.0";
-            String content = Files.readString(filePath);
-            return extractStringOr(content, "lastLoginIP", "0.0.0.0");
-        } catch (Exception ex) {
-            return "0.0.0.0";
+    static PlayerSave parseJson(String content, String username) {
+        Player defaults = new Player(null, username, 0);
+        int[] currentStats = extractIntArray(content, "currentStats", PlayerSave.STAT_COUNT);
+        int[] baseStats = extractIntArray(content, "baseStats", PlayerSave.STAT_COUNT);
+        int[] experience = extractIntArray(content, "experience", PlayerSave.STAT_COUNT);
+        List<Item> inventory = parseInventory(content);
+        int[] itemIds = new int[inventory.size()];
+        int[] itemAmounts = new int[inventory.size()];
+        boolean[] itemEquipped = new boolean[inventory.size()];
+        for (int i = 0; i < inventory.size(); i++) {
+            itemIds[i] = inventory.get(i).getId();
+            itemAmounts[i] = inventory.get(i).getAmount();
+            itemEquipped[i] = inventory.get(i).isEquipped();
         }
+
+        return new PlayerSave(username, defaults.getUsernameHash(),
+            extractInt(content, "\"x\""), extractInt(content, "\"y\""), extractIntOr(content, "planeIndex", 0),
+            extractIntOr(content, "headGender", 1), extractIntOr(content, "headType", 1),
+            extractIntOr(content, "bodyGender", 1), extractIntOr(content, "hairColour", 2),
+            extractIntOr(content, "topColour", 8), extractIntOr(content, "bottomColour", 14),
+            extractIntOr(content, "skinColour", 0),
+            currentStats != null ? currentStats : defaults.getCurrentStats(),
+            baseStats != null ? baseStats : defaults.getBaseStats(),
+            experience != null ? experience : defaults.getExperience(),
+            extractIntOr(content, "combatStyle", 0), extractIntOr(content, "questPoints", 0),
+            extractIntOr(content, "fatigue", 0),
+            extractBool(content, "blockChat", false), extractBool(content, "blockPrivateMessages", false),
+            extractBool(content, "blockTrade", false), extractBool(content, "blockDuel", false),
+            extractBool(content, "cameraModeAuto", false), extractBool(content, "mouseButtonOne", false),
+            extractBool(content, "soundDisabled", false),
+            itemIds, itemAmounts, itemEquipped,
+            parseLongList(content, "friendList"), parseLongList(content, "ignoreList"),
+            extractLongOr(content, "lastLoginTime", 0), extractStringOr(content, "lastLoginIP", "0.0.0.0"));
     }
 
     // ===== Helper methods =====
@@ -222,24 +214,16 @@ public class PlayerPersistence {
         return sb.toString();
     }
 
-    private static String longListToJson(List<Long> list) {
+    private static String longArrayToJson(long[] arr) {
         StringBuilder sb = new StringBuilder("[");
-        for (int i = 0; i < list.size(); i++) {
-            sb.append(list.get(i));
-            if (i < list.size() - 1) sb.append(",");
+        for (int i = 0; i < arr.length; i++) {
+            sb.append(arr[i]);
+            if (i < arr.length - 1) sb.append(",");
         }
         sb.append("]");
         return sb.toString();
     }
 
-    private static String getPlayerIP(Player player) {
-        try {
-            return player.getSocket().getInetAddress().getHostAddress();
-        } catch (Exception ex) {
-            return "0.0.0.0";
-        }
-    }
-
     private static int extractInt(String content, String key) {
         Pattern p = Pattern.compile(Pattern.quote(key) + "\\s*:\\s*(-?\\d+)");
         Matcher m = p.matcher(content);
@@ -261,7 +245,7 @@ public class PlayerPersistence {
         return defaultValue;
     }
 
-    private static String extractStringOr(String content, String key, String defaultValue) {
+    static String extractStringOr(String content, String key, String defaultValue) {
         Pattern p = Pattern.compile("\"" + Pattern.quote(key) + "\"\\s*:\\s*\"([^\"]+)\"");
         Matcher m = p.matcher(content);
         if (m.find()) return m.group(1);
@@ -288,13 +272,13 @@ public class PlayerPersistence {
         return result;
     }
 
-    private static void loadInventory(Player player, String content) {
-        player.getInventory().clear();
+    private static List<Item> parseInventory(String content) {
+        List<Item> inventory = new ArrayList<>();
 
         // Extract inventory array content
         Pattern p = Pattern.compile("\"inventory\"\\s*:\\s*\\[(.+?)\\]", Pattern.DOTALL);
         Matcher m = p.matcher(content);
-        if (!m.find()) return;
+        if (!m.find()) return inventory;
 
         String invContent = m.group(1);
         Pattern itemP = Pattern.compile("\\{\"id\":(\\d+),\"amount\":(\\d+),\"equipped\":(true|false)\\}");
@@ -304,24 +288,24 @@ public class PlayerPersistence {
             int id = Integer.parseInt(itemM.group(1));
             int amount = Integer.parseInt(itemM.group(2));
             boolean equipped = Boolean.parseBoolean(itemM.group(3));
-            player.getInventory().add(new Item(id, amount, equipped));
+            inventory.add(new Item(id, amount, equipped));
         }
+        return inventory;
     }
 
-    private static void loadLongList(List<Long> list, String content, String key) {
-        list.clear();
-
+    private static long[] parseLongList(String content, String key) {
         Pattern p = Pattern.compile("\"" + Pattern.quote(key) + "\"\\s*:\\s*\\[([^\\]]*?)\\]");
         Matcher m = p.matcher(content);
-        if (!m.find()) return;
+        if (!m.find()) return new long[0];
 
         String values = m.group(1).trim();
-        if (values.isEmpty()) return;
+        if (values.isEmpty()) return new long[0];
 
         String[] parts = values.split(",");
-        for (String part : parts) {
-            long val = Long.parseLong(part.trim());
-            list.add(val);
+        long[] result = new long[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            result[i] = Long.parseLong(parts[i].trim());
         }
+        return result;
     }
 }
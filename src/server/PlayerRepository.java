@@ -2,6 +2,7 @@ import java.net.Socket;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
@@ -11,6 +12,7 @@ public final class PlayerRepository {
     private final Map<String, Player> playersByUsername = new ConcurrentHashMap<>();
     private final Map<Long, Player> playersBySession = new ConcurrentHashMap<>();
     private final Map<Long, Player> pendingPlayers = new ConcurrentHashMap<>();
+    private final SpatialGrid<Player> grid = new SpatialGrid<>();
     private volatile int nextServerId = 1;
 
     public void registerPending(Player player) {
@@ -31,12 +33,16 @@ public final class PlayerRepository {
         player.setServerId(nextServerId++);
         playersByUsername.put(player.getUsername().toLowerCase(), player);
         playersBySession.put(player.getSessionId(), player);
+        grid.add(player, player.getX(), player.getY());
+        player.setGrid(grid);
         Logger.info("Player " + player.getUsername() + " joined the world (ID: " + player.getServerId() + ")");
     }
 
     public void removePlayer(Player player) {
         playersByUsername.remove(player.getUsername().toLowerCase());
         playersBySession.remove(player.getSessionId());
+        player.setGrid(null);
+        grid.remove(player, player.getX(), player.getY());
         Logger.info("Player " + player.getUsername() + " left the world");
     }
 
@@ -70,6 +76,22 @@ public final class PlayerRepository {
         return Collections.unmodifiableCollection(playersByUsername.values());
     }
 
+    /**
+     * Online players within {@code radius} tiles (Chebyshev distance) of (x, y).
+     * Only the grid buckets around the point are examined.
+     */
+    public List<Player> findNearby(int x, int y, int radius) {
+        List<Player> candidates = new ArrayList<>();
+        grid.query(x, y, radius, candidates);
+        List<Player> result = new ArrayList<>(candidates.size());
+        for (Player candidate : candidates) {
+            if (Math.abs(candidate.getX() - x) <= radius && Math.abs(candidate.getY() - y) <= radius) {
+                result.add(candidate);
+            }
+        }
+        return result;
+    }
+
     public void forEachOnline(Consumer<Player> consumer) {
         new ArrayList<>(playersByUsername.values()).forEach(consumer);
     }
@@ -0,0 +1,187 @@
+import java.util.List;
+
+/**
+ * Copy of everything that is persisted for a player, taken at one point in time.
+ *
+ * The game thread takes the copy, so the writer thread can encode and write it
+ * while the live {@link Player} keeps changing.
+ */
+public final class PlayerSave {
+    public static final int STAT_COUNT = 18;
+
+    public final String username;
+    public final long usernameHash;
+
+    public final int x;
+    public final int y;
+    public final int planeIndex;
+
+    public final int headGender;
+    public final int headType;
+    public final int bodyGender;
+    public final int hairColour;
+    public final int topColour;
+    public final int bottomColour;
+    public final int skinColour;
+
+    public final int[] currentStats;
+    public final int[] baseStats;
+    public final int[] experience;
+
+    public final int combatStyle;
+    public final int questPoints;
+    public final int fatigue;
+
+    public final boolean blockChat;
+    public final boolean blockPrivateMessages;
+    public final boolean blockTrade;
+    public final boolean blockDuel;
+
+    public final boolean cameraModeAuto;
+    public final boolean mouseButtonOne;
+    public final boolean soundDisabled;
+
+    // Inventory, one entry per slot
+    public final int[] itemIds;
+    public final int[] itemAmounts;
+    public final boolean[] itemEquipped;
+
+    public final long[] friendList;
+    public final long[] ignoreList;
+
+    public final long lastLoginTime;
+    public final String lastLoginIP;
+
+    PlayerSave(String username, long usernameHash, int x, int y, int planeIndex,
+               int headGender, int headType, int bodyGender, int hairColour, int topColour, int bottomColour,
+               int skinColour, int[] currentStats, int[] baseStats, int[] experience,
+               int combatStyle, int questPoints, int fatigue,
+               boolean blockChat, boolean blockPrivateMessages, boolean blockTrade, boolean blockDuel,
+               boolean cameraModeAuto, boolean mouseButtonOne, boolean soundDisabled,
+               int[] itemIds, int[] itemAmounts, boolean[] itemEquipped, long[] friendList, long[] ignoreList,
+               long lastLoginTime, String lastLoginIP) {
+        this.username = username;
+        this.usernameHash = usernameHash;
+        this.x = x;
+        this.y = y;
+        this.planeIndex = planeIndex;
+        this.headGender = headGender;
+        this.headType = headType;
+        this.bodyGender = bodyGender;
+        this.hairColour = hairColour;
+        this.topColour = topColour;
+        this.bottomColour = bottomColour;
+        this.skinColour = skinColour;
+        this.currentStats = currentStats;
+        this.baseStats = baseStats;
+        this.experience = experience;
+        this.combatStyle = combatStyle;
+        this.questPoints = questPoints;
+        this.fatigue = fatigue;
+        this.blockChat = blockChat;
+        this.blockPrivateMessages = blockPrivateMessages;
+        this.blockTrade = blockTrade;
+        this.blockDuel = blockDuel;
+        this.cameraModeAuto = cameraModeAuto;
+        this.mouseButtonOne = mouseButtonOne;
+        this.soundDisabled = soundDisabled;
+        this.itemIds = itemIds;
+        this.itemAmounts = itemAmounts;
+        this.itemEquipped = itemEquipped;
+        this.friendList = friendList;
+        this.ignoreList = ignoreList;
+        this.lastLoginTime = lastLoginTime;
+        this.lastLoginIP = lastLoginIP;
+    }
+
+    /**
+     * Copy a player's persistent state, stamped with the current time and address.
+     */
+    public static PlayerSave of(Player player) {
+        Item[] inventory = player.getInventory().toArray(new Item[0]);
+        int[] itemIds = new int[inventory.length];
+        int[] itemAmounts = new int[inventory.length];
+        boolean[] itemEquipped = new boolean[inventory.length];
+        for (int i = 0; i < inventory.length; i++) {
+            itemIds[i] = inventory[i].getId();
+            itemAmounts[i] = inventory[i].getAmount();
+            itemEquipped[i] = inventory[i].isEquipped();
+        }
+
+        return new PlayerSave(player.getUsername(), player.getUsernameHash(),
+            player.getX(), player.getY(), player.getPlaneIndex(),
+            player.getHeadGender(), player.getHeadType(), player.getBodyGender(), player.getHairColour(),
+            player.getTopColour(), player.getBottomColour(), player.getSkinColour(),
+            player.getCurrentStats().clone(), player.getBaseStats().clone(), player.getExperience().clone(),
+            player.getCombatStyle(), player.getQuestPoints(), player.getFatigue(),
+            player.isBlockChat(), player.isBlockPrivateMessages(), player.isBlockTrade(), player.isBlockDuel(),
+            player.isCameraModeAuto(), player.isMouseButtonOne(), player.isSoundDisabled(),
+            itemIds, itemAmounts, itemEquipped, toArray(player.getFriendList()), toArray(player.getIgnoreList()),
+            System.currentTimeMillis(), addressOf(player));
+    }
+
+    /**
+     * Put this state back onto a player, e.g. one logging in again before the save reached disk.
+     */
+    public void applyTo(Player player) {
+        player.setX(x);
+        player.setY(y);
+        player.setPlaneIndex(planeIndex);
+        player.setAppearance(headGender, headType, bodyGender, hairColour, topColour, bottomColour, skinColour);
+        System.arraycopy(currentStats, 0, player.getCurrentStats(), 0, STAT_COUNT);
+        System.arraycopy(baseStats, 0, player.getBaseStats(), 0, STAT_COUNT);
+        System.arraycopy(experience, 0, player.getExperience(), 0, STAT_COUNT);
+        player.setCombatStyle(combatStyle);
+        player.setFatigue(fatigue);
+        player.setBlockChat(blockChat);
+        player.setBlockPrivateMessages(blockPrivateMessages);
+        player.setBlockTrade(blockTrade);
+        player.setBlockDuel(blockDuel);
+        player.setCameraModeAuto(cameraModeAuto);
+        player.setMouseButtonOne(mouseButtonOne);
+        player.setSoundDisabled(soundDisabled);
+
+        List<Item> inventory = player.getInventory();
+        inventory.clear();
+        for (int i = 0; i < itemIds.length; i++) {
+            inventory.add(new Item(itemIds[i], itemAmounts[i], itemEquipped[i]));
+        }
+        player.getFriendList().clear();
+        for (long hash : friendList) {
+            player.getFriendList().add(hash);
+        }
+        player.getIgnoreList().clear();
+        for (long hash : ignoreList) {
+            player.getIgnoreList().add(hash);
+        }
+        player.setPreviousLogin(lastLoginTime, lastLoginIP);
+    }
+
+    /**
+     * File name stem for a username; saves are keyed case-insensitively.
+     */
+    public static String keyOf(String username) {
+        return username.toLowerCase();
+    }
+
+    public String getKey() {
+        return keyOf(username);
+    }
+
+    private static long[] toArray(List<Long> list) {
+        Long[] values = list.toArray(new Long[0]);
+        long[] result = new long[values.length];
+        for (int i = 0; i < values.length; i++) {
+            result[i] = values[i];
+        }
+        return result;
+    }
+
+    private static String addressOf(Player player) {
+        try {
+            return player.getSocket().getInetAddress().getHostAddress();
+        } catch (Exception ex) {
+            return "0.0.0.0";
+        }
+    }
+}
@@ -0,0 +1,228 @@
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+/**
+ * Binary encoding of a {@link PlayerSave}: the save inside each
+ * {@link PlayerStore} record, and the format of legacy data/players/{username}.sav files.
+ *
+ * Layout: a header (magic, schema version, payload length, CRC32 of the
+ * payload) followed by the payload fields in the order {@link #encode} writes
+ * them. All numbers are big-endian. A save is a few hundred bytes and decodes
+ * in a single pass without parsing text.
+ *
+ * Schema changes only ever append fields and bump {@link #VERSION}. The
+ * decoder reads a field added in version N only when the file's version is at
+ * least N and uses its default otherwise, so every older save stays readable;
+ * saves from a newer server are refused rather than half-read.
+ */
+public final class PlayerSaveCodec {
+    private static final int MAGIC = 0x52505356; // "RPSV"
+    public static final int VERSION = 1;
+    private static final int HEADER_SIZE = 4 + 4 + 4 + 4;
+
+    // Bits of the settings byte
+    private static final int BLOCK_CHAT = 0x01;
+    private static final int BLOCK_PRIVATE = 0x02;
+    private static final int BLOCK_TRADE = 0x04;
+    private static final int BLOCK_DUEL = 0x08;
+    private static final int CAMERA_AUTO = 0x10;
+    private static final int MOUSE_ONE_BUTTON = 0x20;
+    private static final int SOUND_DISABLED = 0x40;
+
+    private PlayerSaveCodec() {}
+
+    public static byte[] encode(PlayerSave save) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+        DataOutputStream out = new DataOutputStream(bytes);
+
+        // Account and position
+        writeString(out, save.username);
+        out.writeLong(save.usernameHash);
+        out.writeShort(save.x);
+        out.writeShort(save.y);
+        out.writeByte(save.planeIndex);
+
+        // Appearance
+        out.writeByte(save.headGender);
+        out.writeByte(save.headType);
+        out.writeByte(save.bodyGender);
+        out.writeByte(save.hairColour);
+        out.writeByte(save.topColour);
+        out.writeByte(save.bottomColour);
+        out.writeByte(save.skinColour);
+
+        // Stats: levels fit a byte, experience does not
+        out.writeByte(PlayerSave.STAT_COUNT);
+        for (int i = 0; i < PlayerSave.STAT_COUNT; i++) {
+            out.writeByte(save.currentStats[i]);
+            out.writeByte(save.baseStats[i]);
+            out.writeInt(save.experience[i]);
+        }
+
+        out.writeByte(save.combatStyle);
+        out.writeShort(save.questPoints);
+        out.writeInt(save.fatigue);
+        out.writeByte((save.blockChat ? BLOCK_CHAT : 0) | (save.blockPrivateMessages ? BLOCK_PRIVATE : 0) |
+                      (save.blockTrade ? BLOCK_TRADE : 0) | (save.blockDuel ? BLOCK_DUEL : 0) |
+                      (save.cameraModeAuto ? CAMERA_AUTO : 0) | (save.mouseButtonOne ? MOUSE_ONE_BUTTON : 0) |
+                      (save.soundDisabled ? SOUND_DISABLED : 0));
+
+        // Inventory
+        out.writeByte(save.itemIds.length);
+        for (int i = 0; i < save.itemIds.length; i++) {
+            out.writeShort(save.itemIds[i]);
+            out.writeInt(save.itemAmounts[i]);
+            out.writeBoolean(save.itemEquipped[i]);
+        }
+
+        // Social
+        writeLongs(out, save.friendList);
+        writeLongs(out, save.ignoreList);
+
+        // Login tracking
+        out.writeLong(save.lastLoginTime);
+        writeString(out, save.lastLoginIP);
+
+        out.flush();
+        byte[] payload = bytes.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(payload, 0, payload.length);
+
+        ByteBuffer file = ByteBuffer.allocate(HEADER_SIZE + payload.length);
+        file.putInt(MAGIC);
+        file.putInt(VERSION);
+        file.putInt(payload.length);
+        file.putInt((int) crc.getValue());
+        file.put(payload);
+        return file.array();
+    }
+
+    /**
+     * @throws IOException if the data is not an intact save of a known version
+     */
+    public static PlayerSave decode(byte[] data) throws IOException {
+        ByteBuffer in = ByteBuffer.wrap(data);
+        if (data.length < HEADER_SIZE || in.getInt() != MAGIC) {
+            throw new IOException("not a player save");
+        }
+        int version = in.getInt();
+        if (version < 1 || version > VERSION) {
+            throw new IOException("unsupported save version " + version);
+        }
+        int payloadLength = in.getInt();
+        int payloadCrc = in.getInt();
+        if (payloadLength != in.remaining()) {
+            throw new IOException("truncated save");
+        }
+        CRC32 crc = new CRC32();
+        crc.update(in.duplicate());
+        if ((int) crc.getValue() != payloadCrc) {
+            throw new IOException("save failed its checksum");
+        }
+
+        try {
+            return decodePayload(in, version);
+        } catch (RuntimeException ex) {
+            throw new IOException("malformed save: " + ex, ex);
+        }
+    }
+
+    private static PlayerSave decodePayload(ByteBuffer in, int version) {
+        String username = readString(in);
+        long usernameHash = in.getLong();
+        int x = in.getShort() & 0xFFFF;
+        int y = in.getShort() & 0xFFFF;
+        int planeIndex = in.get();
+
+        int headGender = in.get() & 0xFF;
+        int headType = in.get() & 0xFF;
+        int bodyGender = in.get() & 0xFF;
+        int hairColour = in.get() & 0xFF;
+        int topColour = in.get() & 0xFF;
+        int bottomColour = in.get() & 0xFF;
+        int skinColour = in.get() & 0xFF;
+
+        int statCount = in.get() & 0xFF;
+        int[] currentStats = new int[PlayerSave.STAT_COUNT];
+        int[] baseStats = new int[PlayerSave.STAT_COUNT];
+        int[] experience = new int[PlayerSave.STAT_COUNT];
+        for (int i = 0; i < statCount; i++) {
+            int current = in.get() & 0xFF;
+            int base = in.get() & 0xFF;
+            int xp = in.getInt();
+            if (i < PlayerSave.STAT_COUNT) {
+                currentStats[i] = current;
+                baseStats[i] = base;
+                experience[i] = xp;
+            }
+        }
+
+        int combatStyle = in.get();
+        int questPoints = in.getShort();
+        int fatigue = in.getInt();
+        int settings = in.get();
+
+        int itemCount = in.get() & 0xFF;
+        int[] itemIds = new int[itemCount];
+        int[] itemAmounts = new int[itemCount];
+        boolean[] itemEquipped = new boolean[itemCount];
+        for (int i = 0; i < itemCount; i++) {
+            itemIds[i] = in.getShort() & 0xFFFF;
+            itemAmounts[i] = in.getInt();
+            itemEquipped[i] = in.get() != 0;
+        }
+
+        long[] friendList = readLongs(in);
+        long[] ignoreList = readLongs(in);
+
+        long lastLoginTime = in.getLong();
+        String lastLoginIP = readString(in);
+
+        // Fields appended by later versions are read here, guarded by version
+
+        if (in.hasRemaining()) {
+            throw new IllegalStateException(in.remaining() + " unexpected trailing bytes");
+        }
+        return new PlayerSave(username, usernameHash, x, y, planeIndex,
+            headGender, headType, bodyGender, hairColour, topColour, bottomColour, skinColour,
+            currentStats, baseStats, experience, combatStyle, questPoints, fatigue,
+            (settings & BLOCK_CHAT) != 0, (settings & BLOCK_PRIVATE) != 0,
+            (settings & BLOCK_TRADE) != 0, (settings & BLOCK_DUEL) != 0,
+            (settings & CAMERA_AUTO) != 0, (settings & MOUSE_ONE_BUTTON) != 0, (settings & SOUND_DISABLED) != 0,
+            itemIds, itemAmounts, itemEquipped, friendList, ignoreList, lastLoginTime, lastLoginIP);
+    }
+
+    private static void writeLongs(DataOutputStream out, long[] values) throws IOException {
+        out.writeShort(values.length);
+        for (long value : values) {
+            out.writeLong(value);
+        }
+    }
+
+    private static long[] readLongs(ByteBuffer in) {
+        long[] values = new long[in.getShort() & 0xFFFF];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = in.getLong();
+        }
+        return values;
+    }
+
+    /**
+     * Length-prefixed UTF-8.
+     */
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        out.writeShort(utf8.length);
+        out.write(utf8);
+    }
+
+    private static String readString(ByteBuffer in) {
+        byte[] utf8 = new byte[in.getShort() & 0xFFFF];
+        in.get(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,335 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Write-behind player persistence.
+ *
+ * Saves go to a {@link PlayerStore}. Any thread may ask for a player to be
+ * saved; the request only queues the
+ * player. The game thread turns requests into {@link PlayerSave} snapshots at
+ * the end of the tick (skipping players with no changes since their last
+ * snapshot), so state is never copied while the tick is changing it. A single
+ * writer thread then encodes and writes the snapshots. Snapshots waiting for
+ * the writer are keyed by account, so repeated saves of one player coalesce
+ * into the latest; everything that piles up while a batch is written goes out
+ * in the next batch as consecutive appends, followed by one sync. After a
+ * batch the writer compacts the store if enough of it is garbage.
+ *
+ * Until a snapshot is on disk, {@link #load} serves it instead of the store,
+ * so a player who logs straight back in never sees an older save.
+ */
+public final class PlayerSaveService {
+    // Pause before retrying after a failed write, so a full disk does not spin the writer
+    private static final long RETRY_DELAY_MILLIS = 1000;
+
+    private final PlayerStore store;
+    private final boolean fsync;
+    private final long batchMillis;
+    private final ConcurrentLinkedQueue<Player> requested = new ConcurrentLinkedQueue<>();
+    private final Map<String, PlayerSave> pending = new LinkedHashMap<>();  // Guarded by itself
+    // When each account's oldest unwritten change was queued; guarded by pending
+    private final Map<String, Long> queuedAt = new HashMap<>();
+    private final Thread writer;
+    private volatile boolean stopping = false;
+    private long written = 0;
+    private long coalesced = 0;
+    private long maxLagMillis = 0;
+
+    /**
+     * @param fsync       force each batch to disk before it counts as saved
+     * @param batchMillis how long the writer waits for more saves before writing a batch
+     */
+    public PlayerSaveService(PlayerStore store, boolean fsync, long batchMillis) {
+        this.store = store;
+        this.fsync = fsync;
+        this.batchMillis = Math.max(0, batchMillis);
+        this.writer = new Thread(this::runWriter, "PlayerSaveWriter");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Ask for a player to be saved at the end of the current tick. Any thread.
+     */
+    public void requestSave(Player player) {
+        requested.add(player);
+    }
+
+    /**
+     * Snapshot every player whose save was requested. Game thread only.
+     */
+    public void snapshotRequested() {
+        Player player;
+        while ((player = requested.poll()) != null) {
+            snapshot(player);
+        }
+    }
+
+    /**
+     * Snapshot a player now and queue it for the writer, if it changed since
+     * its last snapshot. Game thread only.
+     *
+     * @return true if a snapshot was queued
+     */
+    public boolean snapshot(Player player) {
+        if (!player.isDirty()) {
+            return false;
+        }
+        // Clear first: a change made while copying marks the player dirty again
+        player.clearDirty();
+        PlayerSave save;
+        try {
+            save = PlayerSave.of(player);
+        } catch (RuntimeException ex) {
+            // A connection thread changed a list mid-copy; try again next tick
+            player.markDirty();
+            requested.add(player);
+            return false;
+        }
+        enqueue(save);
+        return true;
+    }
+
+    /**
+     * Queue a snapshot for the writer, replacing an older one of the same account.
+     */
+    public void enqueue(PlayerSave save) {
+        synchronized (pending) {
+            if (pending.put(save.getKey(), save) != null) {
+                coalesced++;
+            }
+            queuedAt.putIfAbsent(save.getKey(), System.currentTimeMillis());
+            pending.notifyAll();
+        }
+    }
+
+    /**
+     * Read an account's save from disk: the store's, else a save file from
+     * before the store. Any thread; this is the slow part of a login.
+     *
+     * @return null if the account has no save on disk
+     */
+    public PlayerSave readStored(String username) {
+        try {
+            PlayerSave save = store.read(username);
+            if (save != null) {
+                return save;
+            }
+        } catch (IOException ex) {
+            Logger.error("Failed to load player " + username + ": " + ex.getMessage());
+        }
+        return PlayerPersistence.readLegacy(username);
+    }
+
+    /**
+     * Apply a player's latest save: a snapshot not yet on disk if there is
+     * one (the account left moments ago), else {@code stored} as read by
+     * {@link #readStored}. Game thread only.
+     *
+     * @return true if a save was found
+     */
+    public boolean load(Player player, PlayerSave stored) {
+        String username = player.getUsername();
+        PlayerSave save = findUnwritten(username);
+        String source = "an unwritten save";
+        if (save == null) {
+            save = stored;
+            source = "disk";
+        }
+        if (save == null) {
+            Logger.info("No save file for " + username + " - using defaults");
+            return false;
+        }
+        save.applyTo(player);
+        Logger.info("Loaded player data: " + username + " at (" + player.getX() + "," + player.getY() + ") from " + source);
+        return true;
+    }
+
+    private PlayerSave findUnwritten(String username) {
+        String key = PlayerSave.keyOf(username);
+        // Saves are requested by the game thread as a player leaves the
+        // world, so a request not snapshotted yet is safe to copy from here
+        for (Iterator<Player> it = requested.iterator(); it.hasNext(); ) {
+            Player player = it.next();
+            if (PlayerSave.keyOf(player.getUsername()).equals(key)) {
+                return PlayerSave.of(player);
+            }
+        }
+        synchronized (pending) {
+            return pending.get(key);
+        }
+    }
+
+    /**
+     * Number of snapshots waiting for (or being written by) the writer.
+     */
+    public int getPendingCount() {
+        synchronized (pending) {
+            return pending.size();
+        }
+    }
+
+    public long getWrittenCount() {
+        synchronized (pending) {
+            return written;
+        }
+    }
+
+    /**
+     * Snapshots that replaced an older one before it was written.
+     */
+    public long getCoalescedCount() {
+        synchronized (pending) {
+            return coalesced;
+        }
+    }
+
+    /**
+     * How long the oldest change not yet on disk has been waiting, in ms (0 if none).
+     */
+    public long getSaveLagMillis() {
+        synchronized (pending) {
+            long oldest = Long.MAX_VALUE;
+            for (long time : queuedAt.values()) {
+                oldest = Math.min(oldest, time);
+            }
+            return queuedAt.isEmpty() ? 0 : System.currentTimeMillis() - oldest;
+        }
+    }
+
+    /**
+     * Longest time a change waited for the writer since startup, in ms.
+     */
+    public long getMaxSaveLagMillis() {
+        synchronized (pending) {
+            return maxLagMillis;
+        }
+    }
+
+    /**
+     * Wait until every queued snapshot is on disk.
+     *
+     * @return false if the timeout passed first
+     */
+    public boolean flush(long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        synchronized (pending) {
+            while (!pending.isEmpty()) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0 || !writer.isAlive()) {
+                    return false;
+                }
+                pending.wait(remaining);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Write what is queued, then stop the writer.
+     */
+    public void shutdown(long timeoutMillis) {
+        stopping = true;
+        synchronized (pending) {
+            pending.notifyAll();
+        }
+        try {
+            writer.join(timeoutMillis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        int left = getPendingCount();
+        if (left > 0) {
+            Logger.error("Player save writer stopped with " + left + " saves not written");
+        }
+    }
+
+    private void runWriter() {
+        List<PlayerSave> batch = new ArrayList<>();
+        while (true) {
+            try {
+                synchronized (pending) {
+                    while (pending.isEmpty() && !stopping) {
+                        pending.wait();
+                    }
+                    if (pending.isEmpty()) {
+                        return;
+                    }
+                }
+                // Let saves from the same burst (a mass disconnect) join this batch
+                if (batchMillis > 0 && !stopping) {
+                    Thread.sleep(batchMillis);
+                }
+                long taken;
+                synchronized (pending) {
+                    batch.addAll(pending.values());
+                    taken = System.currentTimeMillis();
+                }
+                if (!writeBatch(batch, taken) && !stopping) {
+                    Thread.sleep(RETRY_DELAY_MILLIS);
+                }
+                batch.clear();
+            } catch (InterruptedException ex) {
+                stopping = true;
+            }
+        }
+    }
+
+    /**
+     * Write a batch and drop the snapshots that made it to disk (unless a
+     * newer one replaced them meanwhile).
+     *
+     * @param taken when the batch was taken from the queue
+     * @return false if any write failed; those stay queued
+     */
+    private boolean writeBatch(List<PlayerSave> batch, long taken) {
+        long start = System.nanoTime();
+        List<PlayerSave> done = new ArrayList<>(batch.size());
+        for (PlayerSave save : batch) {
+            try {
+                store.append(save);
+                done.add(save);
+                Logger.debug("Saved player data: " + save.username);
+            } catch (IOException ex) {
+                Logger.error("Failed to save player " + save.username + ": " + ex.getMessage());
+            }
+        }
+        if (fsync && !done.isEmpty()) {
+            try {
+                store.sync();
+            } catch (IOException ex) {
+                Logger.error("Failed to sync player store: " + ex.getMessage());
+                return false;
+            }
+        }
+        try {
+            store.compactIfNeeded();
+        } catch (IOException ex) {
+            Logger.error("Failed to compact player store: " + ex.getMessage());
+        }
+
+        synchronized (pending) {
+            long now = System.currentTimeMillis();
+            for (PlayerSave save : done) {
+                String key = save.getKey();
+                maxLagMillis = Math.max(maxLagMillis, now - queuedAt.get(key));
+                if (pending.remove(key, save)) {
+                    queuedAt.remove(key);
+                } else {
+                    // The newer snapshot was queued after the batch was taken
+                    queuedAt.put(key, taken);
+                }
+            }
+            written += done.size();
+            pending.notifyAll();
+        }
+        Logger.info("Saved " + done.size() + " player(s) in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+        return done.size() == batch.size();
+    }
+}
@@ -0,0 +1,102 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Offline tool for the player store (data/players.db).
+ *
+ * Usage:
+ *   PlayerSaveTool migrate            copy every legacy data/players save not yet in the store into it
+ *   PlayerSaveTool export &lt;name&gt;      print an account's save as JSON
+ *   PlayerSaveTool import &lt;file.json&gt; store a (possibly hand-edited) JSON save as the account's latest
+ *   PlayerSaveTool compact            drop superseded records from the store
+ *
+ * The store is locked while the server runs, so stop the server first.
+ * Legacy files are left in place by migrate.
+ */
+public final class PlayerSaveTool {
+    private static final String STORE_PATH = ServerConfig.builder().build().getPlayerStorePath();
+
+    private PlayerSaveTool() {}
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 1 && args[0].equals("migrate")) {
+            migrate();
+        } else if (args.length == 2 && args[0].equals("export")) {
+            export(args[1]);
+        } else if (args.length == 2 && args[0].equals("import")) {
+            importJson(Paths.get(args[1]));
+        } else if (args.length == 1 && args[0].equals("compact")) {
+            compact();
+        } else {
+            System.err.println("Usage: PlayerSaveTool migrate | export <username> | import <file.json> | compact");
+            System.exit(1);
+        }
+    }
+
+    private static void migrate() throws IOException {
+        int migrated = 0;
+        int skipped = 0;
+        int failed = 0;
+        try (PlayerStore store = PlayerStore.open(Paths.get(STORE_PATH))) {
+            for (String username : PlayerPersistence.listLegacyAccounts()) {
+                if (store.contains(username)) {
+                    skipped++;
+                    continue;
+                }
+                PlayerSave save = PlayerPersistence.readLegacy(username);
+                if (save == null) {
+                    failed++;
+                    continue;
+                }
+                store.append(save);
+                migrated++;
+            }
+            store.sync();
+        }
+        Logger.info("Migrated " + migrated + " legacy saves (" + skipped + " already in the store, " + failed + " failed)");
+    }
+
+    private static void export(String username) throws IOException {
+        PlayerSave save;
+        try (PlayerStore store = PlayerStore.open(Paths.get(STORE_PATH))) {
+            save = store.read(username);
+        }
+        if (save == null) {
+            save = PlayerPersistence.readLegacy(username);
+        }
+        if (save == null) {
+            System.err.println("No save for " + username);
+            System.exit(1);
+        }
+        System.out.print(PlayerPersistence.toJson(save));
+    }
+
+    private static void importJson(Path file) throws IOException {
+        String name = file.getFileName().toString();
+        String stem = name.endsWith(PlayerPersistence.LEGACY_EXTENSION)
+            ? name.substring(0, name.length() - PlayerPersistence.LEGACY_EXTENSION.length()) : name;
+        PlayerSave save = parse(file, stem);
+        try (PlayerStore store = PlayerStore.open(Paths.get(STORE_PATH))) {
+            store.append(save);
+            store.sync();
+        }
+        Logger.info("Stored " + save.username + " in " + STORE_PATH);
+    }
+
+    private static void compact() throws IOException {
+        try (PlayerStore store = PlayerStore.open(Paths.get(STORE_PATH))) {
+            store.compact();
+        }
+    }
+
+    /**
+     * The account name is taken from the file's "username" field, else from its name.
+     */
+    private static PlayerSave parse(Path file, String fallbackUsername) throws IOException {
+        String content = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+        return PlayerPersistence.parseJson(content, PlayerPersistence.extractStringOr(content, "username", fallbackUsername));
+    }
+}
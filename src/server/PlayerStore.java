@@ -0,0 +1,465 @@
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Every player save in one append-only file (data/players.db).
+ *
+ * A save is appended as a record and an in-memory hash index maps each
+ * account to its latest record, so a save is one sequential write and a load
+ * one positional read, however many accounts there are. Older records of an
+ * account are garbage; once they make up more than half the file,
+ * {@link #compactIfNeeded} rewrites the file with only the latest records.
+ *
+ * Layout: a file header (magic, format version) followed by records of
+ * [int body length][int CRC32 of body][body], where the body is the account
+ * key (length-prefixed UTF-8) and the {@link PlayerSaveCodec} encoding of the
+ * save. {@link #open} rebuilds the index by replaying the file; a torn last
+ * record (a crash mid-append) fails its length or checksum and is cut off,
+ * while a damaged record with intact ones after it is skipped. Either way
+ * the original file is copied aside first.
+ * Because records are only ever appended, copying the file at any moment
+ * gives a consistent backup.
+ *
+ * The file is locked while open, so the server and {@link PlayerSaveTool}
+ * cannot write it at the same time. All methods are synchronized.
+ */
+public final class PlayerStore implements Closeable {
+    private static final int MAGIC = 0x52504442; // "RPDB"
+    private static final int VERSION = 1;
+    private static final int FILE_HEADER_SIZE = 4 + 4;
+    private static final int RECORD_HEADER_SIZE = 4 + 4;
+    // Larger bodies are not written, so a length beyond this marks a torn record
+    private static final int MAX_BODY_SIZE = 1 << 20;
+    // Never compact a file smaller than this, however much of it is garbage
+    private static final long COMPACT_MIN_BYTES = 4L << 20;
+
+    private final Path path;
+    private FileChannel channel;
+    private FileLock lock;
+    private final Map<String, Long> index = new HashMap<>();
+    private final Map<String, Integer> recordSizes = new HashMap<>();
+    private long fileSize;
+    private long liveBytes;
+    private int replayedRecords;
+
+    private PlayerStore(Path path) {
+        this.path = path;
+    }
+
+    /**
+     * Open (or create) a store and replay it to build the index.
+     */
+    public static PlayerStore open(Path path) throws IOException {
+        PlayerStore store = new PlayerStore(path.toAbsolutePath());
+        store.openChannel();
+        try {
+            store.replay();
+        } catch (IOException | RuntimeException ex) {
+            store.close();
+            throw ex;
+        }
+        return store;
+    }
+
+    private void openChannel() throws IOException {
+        Files.createDirectories(path.getParent());
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            lock = channel.tryLock();
+        } catch (OverlappingFileLockException ex) {
+            lock = null; // Already open in this process
+        }
+        if (lock == null) {
+            channel.close();
+            throw new IOException(path + " is in use by another process");
+        }
+    }
+
+    /**
+     * Read every record from the start, indexing the latest one per account.
+     *
+     * A record that fails its length or checksum is only treated as a torn
+     * write if nothing intact follows it; then the tail is cut off. A bad
+     * record with intact records after it (a damaged sector) is skipped by
+     * resynchronising on the next intact record, and the store is compacted
+     * so the damage is gone from the file. Either way the file is first
+     * copied aside, so nothing is lost that an operator might still recover.
+     */
+    private void replay() throws IOException {
+        long start = System.nanoTime();
+        long size = channel.size();
+        if (size == 0) {
+            ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION).flip();
+            writeFully(header, 0);
+            channel.force(true);
+            fileSize = FILE_HEADER_SIZE;
+            return;
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE);
+        if (size < FILE_HEADER_SIZE) {
+            throw new IOException(path + " is not a player store");
+        }
+        readFully(header, 0);
+        if (header.getInt() != MAGIC) {
+            throw new IOException(path + " is not a player store");
+        }
+        int version = header.getInt();
+        if (version != VERSION) {
+            throw new IOException(path + " has unsupported version " + version);
+        }
+
+        long offset = replayRecords(FILE_HEADER_SIZE, size);
+        long skipped = 0;
+        int damaged = 0;
+        Path backup = null;
+        while (offset < size) {
+            long next = findIntactRecord(offset + 1, size);
+            if (next < 0) {
+                break; // Nothing intact follows: a torn last record
+            }
+            if (backup == null) {
+                backup = copyAside(size);
+            }
+            Logger.error("Player store " + path + ": skipping " + (next - offset) + " damaged bytes at offset " + offset);
+            skipped += next - offset;
+            damaged++;
+            offset = replayRecords(next, size);
+        }
+
+        if (offset < size) {
+            if (backup == null) {
+                backup = copyAside(size);
+            }
+            Logger.warn("Player store " + path + ": dropping " + (size - offset) +
+                        " bytes after the last intact record (interrupted write); original kept as " + backup);
+            channel.truncate(offset);
+            channel.force(true);
+        }
+        fileSize = offset;
+        Logger.info("Player store " + path + ": " + index.size() + " accounts, " + replayedRecords + " records, " +
+                    fileSize / 1024 + " KB, replayed in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+
+        if (damaged > 0) {
+            Logger.error("Player store " + path + ": skipped " + damaged + " damaged region(s), " + skipped +
+                         " bytes; saves in them fell back to older records. Original kept as " + backup);
+            compact();
+        }
+    }
+
+    /**
+     * Index records from {@code offset} on until one is not intact.
+     *
+     * @return the offset after the last intact record
+     */
+    private long replayRecords(long offset, long size) throws IOException {
+        channel.position(offset);
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), 1 << 16));
+        CRC32 crc = new CRC32();
+        while (offset + RECORD_HEADER_SIZE <= size) {
+            int bodyLength;
+            int bodyCrc;
+            byte[] body;
+            try {
+                bodyLength = in.readInt();
+                bodyCrc = in.readInt();
+                if (!plausibleRecord(offset, bodyLength, size)) {
+                    break;
+                }
+                body = new byte[bodyLength];
+                in.readFully(body);
+            } catch (EOFException ex) {
+                break;
+            }
+            crc.reset();
+            crc.update(body, 0, body.length);
+            if ((int) crc.getValue() != bodyCrc || !plausibleKey(body)) {
+                break;
+            }
+            index(readKey(ByteBuffer.wrap(body)), offset, RECORD_HEADER_SIZE + bodyLength);
+            offset += RECORD_HEADER_SIZE + bodyLength;
+            replayedRecords++;
+        }
+        return offset;
+    }
+
+    /**
+     * Offset of the first intact record at or after {@code from}, or -1.
+     * Scans a window at a time and only reads a candidate's body when its
+     * length looks right, so a scan over random bytes stays cheap.
+     */
+    private long findIntactRecord(long from, long size) throws IOException {
+        ByteBuffer window = ByteBuffer.allocate(1 << 16);
+        long windowStart = from;
+        while (windowStart + RECORD_HEADER_SIZE <= size) {
+            window.clear();
+            window.limit((int) Math.min(window.capacity(), size - windowStart));
+            readFully(window, windowStart);
+            int last = window.limit() - RECORD_HEADER_SIZE;
+            for (int i = 0; i <= last; i++) {
+                long candidate = windowStart + i;
+                if (plausibleRecord(candidate, window.getInt(i), size) && intactRecordAt(candidate)) {
+                    return candidate;
+                }
+            }
+            // Next window starts at the first candidate this one could not check
+            windowStart += last + 1;
+        }
+        return -1;
+    }
+
+    private boolean intactRecordAt(long offset) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+        readFully(header, offset);
+        int bodyLength = header.getInt();
+        int bodyCrc = header.getInt();
+        ByteBuffer body = ByteBuffer.allocate(bodyLength);
+        readFully(body, offset + RECORD_HEADER_SIZE);
+        CRC32 crc = new CRC32();
+        crc.update(body.array(), 0, bodyLength);
+        return (int) crc.getValue() == bodyCrc && plausibleKey(body.array());
+    }
+
+    private static boolean plausibleRecord(long offset, int bodyLength, long size) {
+        return bodyLength > 2 && bodyLength <= MAX_BODY_SIZE && offset + RECORD_HEADER_SIZE + bodyLength <= size;
+    }
+
+    private static boolean plausibleKey(byte[] body) {
+        int keyLength = (body[0] & 0xFF) << 8 | (body[1] & 0xFF);
+        return keyLength > 0 && 2 + keyLength < body.length;
+    }
+
+    /**
+     * Copy the whole file next to itself before replay changes it. Goes
+     * through the locked channel, since another handle may not read it.
+     */
+    private Path copyAside(long size) throws IOException {
+        Path backup = path.resolveSibling(path.getFileName() + ".corrupt-" + System.currentTimeMillis());
+        try (FileChannel out = FileChannel.open(backup, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            long copied = 0;
+            while (copied < size) {
+                copied += channel.transferTo(copied, size - copied, out);
+            }
+            out.force(true);
+        }
+        return backup;
+    }
+
+    private void index(String key, long offset, int recordSize) {
+        Integer previous = recordSizes.put(key, recordSize);
+        if (previous != null) {
+            liveBytes -= previous;
+        }
+        liveBytes += recordSize;
+        index.put(key, offset);
+    }
+
+    /**
+     * The latest save of an account, or null if the store has none.
+     */
+    public synchronized PlayerSave read(String username) throws IOException {
+        String key = PlayerSave.keyOf(username);
+        Long offset = index.get(key);
+        if (offset == null) {
+            return null;
+        }
+        ByteBuffer record = ByteBuffer.allocate(recordSizes.get(key));
+        readFully(record, offset);
+        record.position(RECORD_HEADER_SIZE);
+        readKey(record);
+        byte[] encoded = new byte[record.remaining()];
+        record.get(encoded);
+        return PlayerSaveCodec.decode(encoded);
+    }
+
+    public synchronized boolean contains(String username) {
+        return index.containsKey(PlayerSave.keyOf(username));
+    }
+
+    /**
+     * Append a save; it replaces the account's previous one. Not durable
+     * until {@link #sync}.
+     */
+    public synchronized void append(PlayerSave save) throws IOException {
+        String key = save.getKey();
+        ByteBuffer record = encodeRecord(key, PlayerSaveCodec.encode(save));
+        long offset = fileSize;
+        writeFully(record, offset);
+        fileSize += record.capacity();
+        index(key, offset, record.capacity());
+    }
+
+    /**
+     * Force everything appended so far to disk.
+     */
+    public synchronized void sync() throws IOException {
+        channel.force(false);
+    }
+
+    /**
+     * Compact when superseded records are more than half of a file of at least a few MB.
+     *
+     * @return true if the file was compacted
+     */
+    public synchronized boolean compactIfNeeded() throws IOException {
+        if (fileSize < COMPACT_MIN_BYTES || fileSize - FILE_HEADER_SIZE <= 2 * liveBytes) {
+            return false;
+        }
+        compact();
+        return true;
+    }
+
+    /**
+     * Rewrite the file with only the latest record of each account. The new
+     * file is synced and then renamed over the old one, so a crash at any
+     * point leaves one complete store. If the rename fails the store keeps
+     * using the old file.
+     */
+    public synchronized void compact() throws IOException {
+        long start = System.nanoTime();
+        long before = fileSize;
+        Path temp = path.resolveSibling(path.getFileName() + ".compact");
+        Map<String, Long> newIndex = new HashMap<>(index.size() * 2);
+        long offset = FILE_HEADER_SIZE;
+        boolean written = false;
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION).flip();
+            while (header.hasRemaining()) {
+                out.write(header);
+            }
+            // Copy in file order, so the old file is read sequentially
+            List<Map.Entry<String, Long>> live = new ArrayList<>(index.entrySet());
+            live.sort(Map.Entry.comparingByValue());
+            for (Map.Entry<String, Long> entry : live) {
+                int recordSize = recordSizes.get(entry.getKey());
+                ByteBuffer record = ByteBuffer.allocate(recordSize);
+                readFully(record, entry.getValue());
+                while (record.hasRemaining()) {
+                    out.write(record);
+                }
+                newIndex.put(entry.getKey(), offset);
+                offset += recordSize;
+            }
+            out.force(true);
+            written = true;
+        } finally {
+            if (!written) {
+                Files.deleteIfExists(temp);
+            }
+        }
+
+        // Windows cannot rename over an open file, so let go of it first
+        lock.release();
+        channel.close();
+        boolean moved = false;
+        try {
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            moved = true;
+        } finally {
+            openChannel();
+            if (!moved) {
+                // Carry on with the old file and index
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException ex) {
+                    Logger.warn("Failed to delete " + temp + ": " + ex.getMessage());
+                }
+            }
+        }
+        index.clear();
+        index.putAll(newIndex);
+        fileSize = offset;
+        Logger.info("Compacted player store: " + before / 1024 + " KB -> " + fileSize / 1024 + " KB in " +
+                    (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+
+    /**
+     * Number of accounts with a save.
+     */
+    public synchronized int size() {
+        return index.size();
+    }
+
+    public synchronized long getFileSize() {
+        return fileSize;
+    }
+
+    /**
+     * Bytes taken by the latest record of each account; the rest of the file is garbage.
+     */
+    public synchronized long getLiveBytes() {
+        return liveBytes;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel.isOpen()) {
+            channel.force(true);
+            lock.release();
+            channel.close();
+        }
+    }
+
+    private static ByteBuffer encodeRecord(String key, byte[] encoded) throws IOException {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        int bodyLength = 2 + keyBytes.length + encoded.length;
+        if (bodyLength > MAX_BODY_SIZE) {
+            throw new IOException("save of " + key + " is too large (" + bodyLength + " bytes)");
+        }
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_SIZE + bodyLength);
+        record.putInt(bodyLength);
+        record.putInt(0); // CRC, filled in below
+        record.putShort((short) keyBytes.length);
+        record.put(keyBytes);
+        record.put(encoded);
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), RECORD_HEADER_SIZE, bodyLength);
+        record.putInt(4, (int) crc.getValue());
+        record.flip();
+        return record;
+    }
+
+    private static String readKey(ByteBuffer body) {
+        byte[] key = new byte[body.getShort() & 0xFFFF];
+        body.get(key);
+        return new String(key, StandardCharsets.UTF_8);
+    }
+
+    private void writeFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new EOFException("player store ends inside a record");
+            }
+            position += read;
+        }
+        buffer.flip();
+    }
+}
@@ -25,10 +25,24 @@ public class Server {
         ServerContext.initialize(config);
         ServerContext context = ServerContext.get();
 
-        // Load world data from doc/rs-data/
-        context.getWorldService().loadData("doc/rs-data");
+        // Load world data from doc/rs-data/, or its precompiled snapshot when that is current
+        context.getWorldService().loadData("doc/rs-data", config.getWorldSnapshotPath());
 
         context.getGameLoop().start();
+        // Save everyone on Ctrl+C or a kill as well
+        Runtime.getRuntime().addShutdownHook(new Thread(context::shutdown, "ShutdownHook"));
+
+        if (config.getNetworkMode() == ServerConfig.NetworkMode.NIO) {
+            try {
+                new NioServer(context).run();
+            } catch (IOException ex) {
+                Logger.error("Server exception: " + ex.getMessage());
+                ex.printStackTrace();
+            } finally {
+                context.shutdown();
+            }
+            return;
+        }
 
         try (ServerSocket serverSocket = new ServerSocket(config.getPort())) {
             Logger.info("Server listening on port " + config.getPort());
@@ -1,22 +1,70 @@
 import java.time.Duration;
 
 public final class ServerConfig {
+    /**
+     * How client connections are serviced.
+     * NIO multiplexes every connection over a few selector threads,
+     * THREAD_POOL runs one blocking {@link ClientHandler} per connection on the worker pool,
+     * VIRTUAL_THREADS runs the same blocking handler on a virtual thread per connection (Java 21+).
+     */
+    public enum NetworkMode {
+        NIO,
+        THREAD_POOL,
+        VIRTUAL_THREADS
+    }
+
     private final int port;
+    private final NetworkMode networkMode;
+    private final int ioThreads;
     private final int workerThreads;
     private final Duration tickInterval;
+    private final TickScheduler.CatchUpPolicy catchUpPolicy;
     private final int visibilityRadius;
+    private final int metricsSummaryTicks;
+    private final int updateThreads;
+    private final String worldSnapshotPath;
+    private final int pathfindingNodeBudget;
+    private final int pathCacheSize;
+    private final boolean saveFsync;
+    private final int saveBatchMillis;
+    private final String playerStorePath;
+    private final int autosaveMinutes;
+    private final int loginThreads;
+    private final int loginsPerTick;
 
     private ServerConfig(Builder builder) {
         this.port = builder.port;
+        this.networkMode = builder.networkMode;
+        this.ioThreads = builder.ioThreads;
         this.workerThreads = builder.workerThreads;
         this.tickInterval = builder.tickInterval;
+        this.catchUpPolicy = builder.catchUpPolicy;
         this.visibilityRadius = builder.visibilityRadius;
+        this.metricsSummaryTicks = builder.metricsSummaryTicks;
+        this.updateThreads = builder.updateThreads;
+        this.worldSnapshotPath = builder.worldSnapshotPath;
+        this.pathfindingNodeBudget = builder.pathfindingNodeBudget;
+        this.pathCacheSize = builder.pathCacheSize;
+        this.saveFsync = builder.saveFsync;
+        this.saveBatchMillis = builder.saveBatchMillis;
+        this.playerStorePath = builder.playerStorePath;
+        this.autosaveMinutes = builder.autosaveMinutes;
+        this.loginThreads = builder.loginThreads;
+        this.loginsPerTick = builder.loginsPerTick;
     }
 
     public int getPort() {
         return port;
     }
 
+    public NetworkMode getNetworkMode() {
+        return networkMode;
+    }
+
+    public int getIoThreads() {
+        return ioThreads;
+    }
+
     public int getWorkerThreads() {
         return workerThreads;
     }
@@ -25,19 +73,114 @@ public final class ServerConfig {
         return tickInterval;
     }
 
+    public TickScheduler.CatchUpPolicy getCatchUpPolicy() {
+        return catchUpPolicy;
+    }
+
     public int getVisibilityRadius() {
         return visibilityRadius;
     }
 
+    /**
+     * Number of ticks between tick-health summary log lines (0 disables them).
+     */
+    public int getMetricsSummaryTicks() {
+        return metricsSummaryTicks;
+    }
+
+    /**
+     * Threads used for the per-player update phases of a tick (1 runs them on the game thread).
+     */
+    public int getUpdateThreads() {
+        return updateThreads;
+    }
+
+    /**
+     * Precompiled world data from 'ant world-snapshot' (null always loads the JSON files).
+     */
+    public String getWorldSnapshotPath() {
+        return worldSnapshotPath;
+    }
+
+    /**
+     * Tiles the route finder may expand per tick; further requests wait for the next tick.
+     */
+    public int getPathfindingNodeBudget() {
+        return pathfindingNodeBudget;
+    }
+
+    /**
+     * Number of recent routes the route finder remembers (0 disables the cache).
+     */
+    public int getPathCacheSize() {
+        return pathCacheSize;
+    }
+
+    /**
+     * Whether each batch of player saves is forced to disk before it counts as written.
+     */
+    public boolean isSaveFsync() {
+        return saveFsync;
+    }
+
+    /**
+     * How long the save writer gathers saves before writing them as one batch.
+     */
+    public int getSaveBatchMillis() {
+        return saveBatchMillis;
+    }
+
+    /**
+     * File holding every player save.
+     */
+    public String getPlayerStorePath() {
+        return playerStorePath;
+    }
+
+    /**
+     * Every online player with unsaved changes is saved about this often (0 disables autosave).
+     */
+    public int getAutosaveMinutes() {
+        return autosaveMinutes;
+    }
+
+    /**
+     * Threads that read player saves for logins in progress.
+     */
+    public int getLoginThreads() {
+        return loginThreads;
+    }
+
+    /**
+     * Most players that join the world in one tick; later logins wait for the next.
+     */
+    public int getLoginsPerTick() {
+        return loginsPerTick;
+    }
+
     public static Builder builder() {
         return new Builder();
     }
 
     public static final class Builder {
         private int port = 43594;
+        private NetworkMode networkMode = NetworkMode.NIO;
+        private int ioThreads = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
         private int workerThreads = 10;
         private Duration tickInterval = Duration.ofMillis(640);
+        private TickScheduler.CatchUpPolicy catchUpPolicy = TickScheduler.CatchUpPolicy.SKIP;
         private int visibilityRadius = 16;
+        private int metricsSummaryTicks = 100;
+        private int updateThreads = Runtime.getRuntime().availableProcessors();
+        private String worldSnapshotPath = "data/world.snapshot";
+        private int pathfindingNodeBudget = 50_000;
+        private int pathCacheSize = 1024;
+        private boolean saveFsync = true;
+        private int saveBatchMillis = 100;
+        private String playerStorePath = "data/players.db";
+        private int autosaveMinutes = 5;
+        private int loginThreads = 2;
+        private int loginsPerTick = 50;
 
         private Builder() {}
 
@@ -46,6 +189,16 @@ public final class ServerConfig {
             return this;
         }
 
+        public Builder networkMode(NetworkMode networkMode) {
+            this.networkMode = networkMode;
+            return this;
+        }
+
+        public Builder ioThreads(int ioThreads) {
+            this.ioThreads = ioThreads;
+            return this;
+        }
+
         public Builder workerThreads(int workerThreads) {
             this.workerThreads = workerThreads;
             return this;
@@ -56,11 +209,71 @@ public final class ServerConfig {
             return this;
         }
 
+        public Builder catchUpPolicy(TickScheduler.CatchUpPolicy catchUpPolicy) {
+            this.catchUpPolicy = catchUpPolicy;
+            return this;
+        }
+
         public Builder visibilityRadius(int visibilityRadius) {
             this.visibilityRadius = visibilityRadius;
             return this;
         }
 
+        public Builder metricsSummaryTicks(int metricsSummaryTicks) {
+            this.metricsSummaryTicks = metricsSummaryTicks;
+            return this;
+        }
+
+        public Builder updateThreads(int updateThreads) {
+            this.updateThreads = updateThreads;
+            return this;
+        }
+
+        public Builder worldSnapshotPath(String worldSnapshotPath) {
+            this.worldSnapshotPath = worldSnapshotPath;
+            return this;
+        }
+
+        public Builder pathfindingNodeBudget(int pathfindingNodeBudget) {
+            this.pathfindingNodeBudget = pathfindingNodeBudget;
+            return this;
+        }
+
+        public Builder pathCacheSize(int pathCacheSize) {
+            this.pathCacheSize = pathCacheSize;
+            return this;
+        }
+
+        public Builder saveFsync(boolean saveFsync) {
+            this.saveFsync = saveFsync;
+            return this;
+        }
+
+        public Builder saveBatchMillis(int saveBatchMillis) {
+            this.saveBatchMillis = saveBatchMillis;
+            return this;
+        }
+
+        public Builder playerStorePath(String playerStorePath) {
+            this.playerStorePath = playerStorePath;
+            return this;
+        }
+
+        public Builder autosaveMinutes(int autosaveMinutes) {
+            this.autosaveMinutes = autosaveMinutes;
+            return this;
+        }
+
+        public Builder loginThreads(int loginThreads) {
+            this.loginThreads = loginThreads;
+            return this;
+        }
+
+        public Builder loginsPerTick(int loginsPerTick) {
+            this.loginsPerTick = loginsPerTick;
+            return this;
+        }
+
         public ServerConfig build() {
             return new ServerConfig(this);
         }
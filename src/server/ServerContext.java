@@ -1,3 +1,5 @@
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.Objects;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -10,19 +12,61 @@ public final class ServerContext {
     private final PlayerRepository players;
     private final WorldService worldService;
     private final VisibilityService visibilityService;
+    private final PathfindingService pathfinding;
+    private final TimerWheel timers;
+    private final NpcActivity npcActivity;
+    private final PlayerStore playerStore;
+    private final PlayerSaveService playerSaves;
+    private final LoginService logins;
     private final PacketDispatcher packetDispatcher;
     private final GameLoop gameLoop;
+    private boolean shutDown = false;
 
     private ServerContext(ServerConfig config) {
         this.config = Objects.requireNonNull(config, "config");
-        this.workerPool = Executors.newFixedThreadPool(config.getWorkerThreads());
+        this.workerPool = createWorkerPool(config);
         this.players = new PlayerRepository();
-        this.worldService = new WorldService();
+        this.timers = new TimerWheel(config.getTickInterval().toMillis());
+        this.worldService = new WorldService(timers);
         this.visibilityService = new VisibilityService(config.getVisibilityRadius(), players);
+        this.pathfinding = new PathfindingService(worldService, config.getPathfindingNodeBudget(),
+                                                  config.getPathCacheSize());
+        this.npcActivity = new NpcActivity(worldService, players, config.getVisibilityRadius());
+        this.playerStore = openPlayerStore(config);
+        this.playerSaves = new PlayerSaveService(playerStore, config.isSaveFsync(), config.getSaveBatchMillis());
+        this.logins = new LoginService(this, config.getLoginThreads(), config.getLoginsPerTick());
         this.packetDispatcher = new PacketDispatcher();
         this.gameLoop = new GameLoop(this);
     }
 
+    private static PlayerStore openPlayerStore(ServerConfig config) {
+        try {
+            return PlayerStore.open(Paths.get(config.getPlayerStorePath()));
+        } catch (IOException ex) {
+            throw new IllegalStateException("Failed to open player store " + config.getPlayerStorePath(), ex);
+        }
+    }
+
+    /**
+     * Virtual threads are looked up reflectively so the server still builds at --release 11;
+     * on an older runtime this falls back to the fixed pool.
+     */
+    private static ExecutorService createWorkerPool(ServerConfig config) {
+        if (config.getNetworkMode() == ServerConfig.NetworkMode.VIRTUAL_THREADS) {
+            try {
+                ExecutorService pool = (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor")
+                    .invoke(null);
+                Logger.info("Client sessions run on virtual threads");
+                return pool;
+            } catch (ReflectiveOperationException ex) {
+                Logger.warn("Virtual threads need Java 21+ (running " + System.getProperty("java.version")
+                    + "), falling back to " + config.getWorkerThreads() + " worker threads");
+            }
+        }
+        return Executors.newFixedThreadPool(config.getWorkerThreads());
+    }
+
     public static synchronized void initialize(ServerConfig config) {
         if (instance != null) {
             throw new IllegalStateException("ServerContext already initialized");
@@ -57,6 +101,32 @@ public final class ServerContext {
         return visibilityService;
     }
 
+    public PathfindingService getPathfinding() {
+        return pathfinding;
+    }
+
+    /**
+     * Delayed game events, advanced once per tick by the {@link GameLoop}.
+     */
+    public TimerWheel getTimers() {
+        return timers;
+    }
+
+    public NpcActivity getNpcActivity() {
+        return npcActivity;
+    }
+
+    /**
+     * Write-behind player saves; snapshots are taken by the {@link GameLoop}.
+     */
+    public PlayerSaveService getPlayerSaves() {
+        return playerSaves;
+    }
+
+    public LoginService getLogins() {
+        return logins;
+    }
+
     public PacketDispatcher getPacketDispatcher() {
         return packetDispatcher;
     }
@@ -65,8 +135,29 @@ public final class ServerContext {
         return gameLoop;
     }
 
-    public void shutdown() {
+    /**
+     * Stop the game loop and write every player's unsaved changes before the
+     * process exits. Safe to call more than once (the server calls it from a
+     * shutdown hook as well).
+     */
+    public synchronized void shutdown() {
+        if (shutDown) {
+            return;
+        }
+        shutDown = true;
         gameLoop.stop();
+        logins.shutdown();
+        // The loop has stopped, so this thread may take the last snapshots
+        playerSaves.snapshotRequested();
+        int online = gameLoop.getAutosave().saveAll();
+        Logger.info("Shutting down: " + online + " online players had unsaved changes, "
+                    + playerSaves.getPendingCount() + " saves to write");
+        playerSaves.shutdown(10_000);
+        try {
+            playerStore.close();
+        } catch (IOException ex) {
+            Logger.error("Failed to close player store: " + ex.getMessage());
+        }
         workerPool.shutdown();
     }
 }
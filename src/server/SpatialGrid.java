@@ -0,0 +1,95 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bucketed index of entities by tile position.
+ *
+ * The world is cut into BUCKET_SIZE x BUCKET_SIZE tile buckets. Entities are
+ * moved between buckets incrementally as they walk, and range queries only
+ * look at the buckets overlapping the query square. Queries return
+ * candidates; callers still apply their exact distance check.
+ */
+public final class SpatialGrid<T> {
+    public static final int BUCKET_SIZE = 8;
+
+    // Planes are stacked vertically every 944 tiles, 4 planes in total
+    private static final int GRID_WIDTH = 2304;
+    private static final int GRID_HEIGHT = 944 * 4;
+    private static final int COLUMNS = GRID_WIDTH / BUCKET_SIZE;
+    private static final int ROWS = GRID_HEIGHT / BUCKET_SIZE;
+
+    private final Object[] buckets = new Object[COLUMNS * ROWS];
+    private int size = 0;
+
+    public synchronized void add(T entity, int x, int y) {
+        bucketAt(column(x), row(y), true).add(entity);
+        size++;
+    }
+
+    public synchronized void remove(T entity, int x, int y) {
+        List<T> bucket = bucketAt(column(x), row(y), false);
+        if (bucket != null && bucket.remove(entity)) {
+            size--;
+        }
+    }
+
+    /**
+     * Move an entity between buckets. Cheap no-op when it stays in the same bucket.
+     */
+    public synchronized void move(T entity, int oldX, int oldY, int newX, int newY) {
+        int oldColumn = column(oldX);
+        int oldRow = row(oldY);
+        int newColumn = column(newX);
+        int newRow = row(newY);
+        if (oldColumn == newColumn && oldRow == newRow) {
+            return;
+        }
+        List<T> from = bucketAt(oldColumn, oldRow, false);
+        if (from == null || !from.remove(entity)) {
+            size++; // was not indexed yet
+        }
+        bucketAt(newColumn, newRow, true).add(entity);
+    }
+
+    /**
+     * Append every entity in the buckets overlapping the square of the given
+     * radius around (x, y) to {@code result}.
+     */
+    public synchronized void query(int x, int y, int radius, List<T> result) {
+        int minColumn = column(x - radius);
+        int maxColumn = column(x + radius);
+        int minRow = row(y - radius);
+        int maxRow = row(y + radius);
+        for (int r = minRow; r <= maxRow; r++) {
+            for (int c = minColumn; c <= maxColumn; c++) {
+                List<T> bucket = bucketAt(c, r, false);
+                if (bucket != null) {
+                    result.addAll(bucket);
+                }
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<T> bucketAt(int column, int row, boolean create) {
+        int index = row * COLUMNS + column;
+        List<T> bucket = (List<T>) buckets[index];
+        if (bucket == null && create) {
+            bucket = new ArrayList<>(4);
+            buckets[index] = bucket;
+        }
+        return bucket;
+    }
+
+    private static int column(int x) {
+        return Math.max(0, Math.min(COLUMNS - 1, x / BUCKET_SIZE));
+    }
+
+    private static int row(int y) {
+        return Math.max(0, Math.min(ROWS - 1, y / BUCKET_SIZE));
+    }
+}
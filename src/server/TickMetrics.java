@@ -0,0 +1,241 @@
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Timing and throughput counters for {@link GameLoop}.
+ *
+ * The game thread calls {@link #beginTick()}, {@link #endPhase(Phase)} after
+ * each phase and {@link #endTick()} at the end. Readers (JMX, the summary log
+ * line) only see completed ticks. Tick durations go into two histograms: one
+ * since startup and one for the current summary window.
+ */
+public final class TickMetrics implements TickMetricsMBean {
+    public enum Phase {
+        LOGINS,
+        NPCS,
+        COMBAT,
+        PLAYERS,
+        FLUSH
+    }
+
+    private static final String OBJECT_NAME = "runarius:type=TickMetrics";
+
+    private final long budgetNanos;
+    private final int summaryInterval;
+    private final LatencyHistogram tickMicros = new LatencyHistogram();
+    private final LatencyHistogram windowMicros = new LatencyHistogram();
+    private volatile TickScheduler scheduler;
+
+    // Written by the game thread only
+    private final long[] phaseNanos = new long[Phase.values().length];
+    private final long[] windowPhaseNanos = new long[Phase.values().length];
+    private long tickStart;
+    private long phaseStart;
+    private long tickBytes;
+    private long tickPackets;
+    private long windowOverruns;
+    private long windowBytes;
+
+    // Published at the end of every tick
+    private volatile long tickCount;
+    private volatile long overrunCount;
+    private volatile long lastTickNanos;
+    private volatile long lastLoginNanos;
+    private volatile long lastNpcNanos;
+    private volatile long lastCombatNanos;
+    private volatile long lastPlayerNanos;
+    private volatile long lastFlushNanos;
+    private volatile int onlinePlayers;
+    private volatile int npcCount;
+    private volatile int activeNpcCount;
+    private volatile int saveQueueDepth;
+    private volatile long saveLagMillis;
+    private volatile long maxSaveLagMillis;
+    private volatile int loginQueueDepth;
+    private volatile long bytesSentLastTick;
+    private volatile long packetsSentLastTick;
+    private volatile long totalBytesSent;
+    private volatile long totalPacketsSent;
+
+    /**
+     * @param budgetNanos     tick interval; longer ticks count as overruns
+     * @param summaryInterval log a summary line every this many ticks (0 disables it)
+     */
+    public TickMetrics(long budgetNanos, int summaryInterval) {
+        this.budgetNanos = budgetNanos;
+        this.summaryInterval = summaryInterval;
+    }
+
+    /**
+     * Report the scheduler's skip/overrun counters alongside the tick timings.
+     */
+    public void attach(TickScheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Expose these metrics on the platform MBean server.
+     */
+    public void register() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(this, name);
+            }
+            Logger.info("Tick metrics available over JMX as " + OBJECT_NAME);
+        } catch (Exception ex) {
+            Logger.warn("Failed to register tick metrics MBean: " + ex.getMessage());
+        }
+    }
+
+    public void beginTick() {
+        tickStart = System.nanoTime();
+        phaseStart = tickStart;
+        tickBytes = 0;
+        tickPackets = 0;
+    }
+
+    public void endPhase(Phase phase) {
+        long now = System.nanoTime();
+        phaseNanos[phase.ordinal()] = now - phaseStart;
+        windowPhaseNanos[phase.ordinal()] += now - phaseStart;
+        phaseStart = now;
+    }
+
+    public void recordSent(long bytes, long packets) {
+        tickBytes += bytes;
+        tickPackets += packets;
+    }
+
+    public void recordPopulation(int players, int npcs, int activeNpcs) {
+        onlinePlayers = players;
+        npcCount = npcs;
+        activeNpcCount = activeNpcs;
+    }
+
+    /**
+     * @param queueDepth   snapshots waiting for the save writer
+     * @param lagMillis    age of the oldest change not yet on disk
+     * @param maxLagMillis longest any change has waited since startup
+     */
+    public void recordSaves(int queueDepth, long lagMillis, long maxLagMillis) {
+        saveQueueDepth = queueDepth;
+        saveLagMillis = lagMillis;
+        maxSaveLagMillis = maxLagMillis;
+    }
+
+    /**
+     * @param queued logins still loading or waiting for a tick to join
+     */
+    public void recordLoginQueue(int queued) {
+        loginQueueDepth = queued;
+    }
+
+    /**
+     * Close the tick and publish its numbers.
+     *
+     * @return the tick duration in nanoseconds
+     */
+    public long endTick() {
+        long duration = System.nanoTime() - tickStart;
+        tickMicros.record(duration / 1000);
+        windowMicros.record(duration / 1000);
+
+        lastTickNanos = duration;
+        lastLoginNanos = phaseNanos[Phase.LOGINS.ordinal()];
+        lastNpcNanos = phaseNanos[Phase.NPCS.ordinal()];
+        lastCombatNanos = phaseNanos[Phase.COMBAT.ordinal()];
+        lastPlayerNanos = phaseNanos[Phase.PLAYERS.ordinal()];
+        lastFlushNanos = phaseNanos[Phase.FLUSH.ordinal()];
+        bytesSentLastTick = tickBytes;
+        packetsSentLastTick = tickPackets;
+        totalBytesSent += tickBytes;
+        totalPacketsSent += tickPackets;
+        windowBytes += tickBytes;
+
+        if (duration > budgetNanos) {
+            overrunCount++;
+            windowOverruns++;
+        }
+        tickCount++;
+
+        if (summaryInterval > 0 && tickCount % summaryInterval == 0) {
+            logSummary();
+        }
+        return duration;
+    }
+
+    private void logSummary() {
+        long ticks = windowMicros.getCount();
+        StringBuilder sb = new StringBuilder("Tick summary (last ").append(ticks).append(" ticks): ");
+        sb.append("p50=").append(millis(windowMicros.getPercentile(50) * 1000)).append("ms ");
+        sb.append("p99=").append(millis(windowMicros.getPercentile(99) * 1000)).append("ms ");
+        sb.append("max=").append(millis(windowMicros.getMax() * 1000)).append("ms ");
+        sb.append("overruns=").append(windowOverruns).append(" | avg");
+        for (Phase phase : Phase.values()) {
+            sb.append(' ').append(phase.name().toLowerCase()).append('=')
+              .append(millis(windowPhaseNanos[phase.ordinal()] / Math.max(1, ticks))).append("ms");
+        }
+        sb.append(" | players=").append(onlinePlayers).append(" npcs=").append(npcCount)
+          .append(" (").append(activeNpcCount).append(" awake)");
+        sb.append(" bytes/tick=").append(windowBytes / Math.max(1, ticks));
+        sb.append(" | saves queued=").append(saveQueueDepth).append(" lag=").append(saveLagMillis).append("ms");
+        sb.append(" | logins queued=").append(loginQueueDepth);
+        Logger.info(sb.toString());
+
+        windowMicros.reset();
+        Arrays.fill(windowPhaseNanos, 0);
+        windowOverruns = 0;
+        windowBytes = 0;
+    }
+
+    private static double millis(long nanos) {
+        return Math.round(nanos / 10_000.0) / 100.0;
+    }
+
+    // ===== TickMetricsMBean =====
+
+    @Override public long getTickCount() { return tickCount; }
+    @Override public long getOverrunCount() { return overrunCount; }
+    @Override public double getTickBudgetMillis() { return millis(budgetNanos); }
+    @Override public long getSkippedTickCount() { return scheduler == null ? 0 : scheduler.getSkippedTicks(); }
+    @Override public double getLastOverrunMillis() { return scheduler == null ? 0 : millis(scheduler.getLastOverrunNanos()); }
+
+    @Override public double getLastTickMillis() { return millis(lastTickNanos); }
+    @Override public double getMeanTickMillis() { return millis((long) (tickMicros.getMean() * 1000)); }
+    @Override public double getP50TickMillis() { return millis(tickMicros.getPercentile(50) * 1000); }
+    @Override public double getP99TickMillis() { return millis(tickMicros.getPercentile(99) * 1000); }
+    @Override public double getP999TickMillis() { return millis(tickMicros.getPercentile(99.9) * 1000); }
+    @Override public double getMaxTickMillis() { return millis(tickMicros.getMax() * 1000); }
+
+    @Override public double getLastLoginPhaseMillis() { return millis(lastLoginNanos); }
+    @Override public double getLastNpcPhaseMillis() { return millis(lastNpcNanos); }
+    @Override public double getLastCombatPhaseMillis() { return millis(lastCombatNanos); }
+    @Override public double getLastPlayerPhaseMillis() { return millis(lastPlayerNanos); }
+    @Override public double getLastFlushPhaseMillis() { return millis(lastFlushNanos); }
+
+    @Override public int getOnlinePlayers() { return onlinePlayers; }
+    @Override public int getNpcCount() { return npcCount; }
+    @Override public int getActiveNpcCount() { return activeNpcCount; }
+    @Override public long getBytesSentLastTick() { return bytesSentLastTick; }
+    @Override public long getPacketsSentLastTick() { return packetsSentLastTick; }
+    @Override public long getTotalBytesSent() { return totalBytesSent; }
+    @Override public long getTotalPacketsSent() { return totalPacketsSent; }
+
+    @Override public int getSaveQueueDepth() { return saveQueueDepth; }
+    @Override public long getSaveLagMillis() { return saveLagMillis; }
+    @Override public long getMaxSaveLagMillis() { return maxSaveLagMillis; }
+    @Override public int getLoginQueueDepth() { return loginQueueDepth; }
+
+    /**
+     * Clear the since-startup histogram and overrun counter (JMX operation).
+     */
+    @Override
+    public void reset() {
+        tickMicros.reset();
+        overrunCount = 0;
+    }
+}
@@ -0,0 +1,40 @@
+/**
+ * JMX view of {@link TickMetrics}, registered as {@code runarius:type=TickMetrics}.
+ * Times are in milliseconds.
+ */
+public interface TickMetricsMBean {
+    long getTickCount();
+    long getOverrunCount();
+    double getTickBudgetMillis();
+    long getSkippedTickCount();
+    double getLastOverrunMillis();
+
+    double getLastTickMillis();
+    double getMeanTickMillis();
+    double getP50TickMillis();
+    double getP99TickMillis();
+    double getP999TickMillis();
+    double getMaxTickMillis();
+
+    double getLastLoginPhaseMillis();
+    double getLastNpcPhaseMillis();
+    double getLastCombatPhaseMillis();
+    double getLastPlayerPhaseMillis();
+    double getLastFlushPhaseMillis();
+
+    int getOnlinePlayers();
+    int getNpcCount();
+    int getActiveNpcCount();
+    long getBytesSentLastTick();
+    long getPacketsSentLastTick();
+    long getTotalBytesSent();
+    long getTotalPacketsSent();
+
+    int getSaveQueueDepth();
+    long getSaveLagMillis();
+    long getMaxSaveLagMillis();
+
+    int getLoginQueueDepth();
+
+    void reset();
+}
@@ -0,0 +1,184 @@
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Fixed-rate scheduler for the game tick, driven by {@link System#nanoTime()} deadlines.
+ *
+ * Ticks are planned on a grid of {@code interval} slots. When a tick runs past
+ * its slot the overrun is logged and counted, and the {@link CatchUpPolicy}
+ * decides what happens to the slots that were missed. Anything thrown by the
+ * task (including {@link Error}s) is logged and the scheduler keeps going.
+ *
+ * {@link #step(int)} runs ticks synchronously on the caller's thread, so tests
+ * and benchmarks can drive the loop without sleeping.
+ */
+public final class TickScheduler {
+    public enum CatchUpPolicy {
+        /** Drop the missed slots and resume on the next slot of the original grid. */
+        SKIP,
+        /** Run missed slots back-to-back (at most MAX_CATCH_UP_TICKS) to keep tick count in step with time. */
+        COMPRESS,
+        /** Run the next tick right away and restart the grid from there. */
+        LATE
+    }
+
+    private static final int MAX_CATCH_UP_TICKS = 5;
+    // How long stop() waits for a running tick to finish
+    private static final long STOP_TIMEOUT_MILLIS = 5000;
+
+    private final String name;
+    private final long intervalNanos;
+    private final CatchUpPolicy policy;
+    private final Runnable task;
+
+    private volatile Thread thread;
+    private volatile boolean running;
+    private volatile long budgetDeadline;
+    private volatile long overrunCount;
+    private volatile long skippedTicks;
+    private volatile long lastOverrunNanos;
+
+    public TickScheduler(String name, long intervalNanos, CatchUpPolicy policy, Runnable task) {
+        this.name = name;
+        this.intervalNanos = intervalNanos;
+        this.policy = policy;
+        this.task = task;
+    }
+
+    public synchronized void start() {
+        if (running) {
+            throw new IllegalStateException(name + " already running");
+        }
+        running = true;
+        thread = new Thread(this::run, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stop the scheduler and wait for a tick in progress to finish, so the
+     * caller may touch game state afterwards.
+     */
+    public synchronized void stop() {
+        running = false;
+        Thread current = thread;
+        thread = null;
+        if (current == null) {
+            return;
+        }
+        LockSupport.unpark(current);
+        if (current != Thread.currentThread()) {
+            try {
+                current.join(STOP_TIMEOUT_MILLIS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            if (current.isAlive()) {
+                Logger.warn(name + " did not stop within " + STOP_TIMEOUT_MILLIS + "ms");
+            }
+        }
+    }
+
+    /**
+     * Run {@code ticks} ticks immediately on the calling thread.
+     * Only allowed while the scheduler thread is not running.
+     */
+    public void step(int ticks) {
+        if (running) {
+            throw new IllegalStateException("Cannot step " + name + " while it is running");
+        }
+        for (int i = 0; i < ticks; i++) {
+            budgetDeadline = System.nanoTime() + intervalNanos;
+            runTask();
+        }
+    }
+
+    private void run() {
+        long scheduled = System.nanoTime() + intervalNanos;
+        while (running) {
+            long now = System.nanoTime();
+            if (now < scheduled) {
+                LockSupport.parkNanos(scheduled - now);
+                continue;
+            }
+
+            budgetDeadline = scheduled + intervalNanos;
+            runTask();
+
+            long finished = System.nanoTime();
+            long next = scheduled + intervalNanos;
+            long late = finished - next;
+            if (late > 0) {
+                overrunCount++;
+                lastOverrunNanos = late;
+                next = catchUp(next, finished);
+                Logger.warn(name + " tick overran its " + (intervalNanos / 1_000_000) + "ms budget by "
+                    + (late / 1_000_000) + "ms (" + policy + ", " + skippedTicks + " ticks skipped so far)");
+            }
+            scheduled = next;
+        }
+    }
+
+    /**
+     * Pick the next slot after a tick that finished at {@code finished}, past its slot {@code next}.
+     */
+    private long catchUp(long next, long finished) {
+        switch (policy) {
+            case SKIP: {
+                long missed = (finished - next) / intervalNanos + 1;
+                skippedTicks += missed;
+                return next + missed * intervalNanos;
+            }
+            case COMPRESS: {
+                long missed = (finished - next) / intervalNanos;
+                if (missed > MAX_CATCH_UP_TICKS) {
+                    skippedTicks += missed - MAX_CATCH_UP_TICKS;
+                    return next + (missed - MAX_CATCH_UP_TICKS) * intervalNanos;
+                }
+                return next;
+            }
+            case LATE:
+            default:
+                return finished;
+        }
+    }
+
+    private void runTask() {
+        try {
+            task.run();
+        } catch (Throwable ex) {
+            Logger.error(name + " tick failed: " + ex);
+            ex.printStackTrace();
+        }
+    }
+
+    /**
+     * Nanoseconds left before the current tick overruns its slot (negative once it has).
+     */
+    public long getRemainingBudgetNanos() {
+        return budgetDeadline - System.nanoTime();
+    }
+
+    public long getIntervalNanos() {
+        return intervalNanos;
+    }
+
+    public CatchUpPolicy getPolicy() {
+        return policy;
+    }
+
+    public long getOverrunCount() {
+        return overrunCount;
+    }
+
+    public long getSkippedTicks() {
+        return skippedTicks;
+    }
+
+    public long getLastOverrunNanos() {
+        return lastOverrunNanos;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+}
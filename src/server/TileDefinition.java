@@ -0,0 +1,24 @@
+/**
+ * Represents a terrain tile decoration loaded from config/tiles.json
+ * (grass, water, floorboards, ...).
+ */
+public class TileDefinition {
+    private final int id;
+    private final String type; // "ground", "floor", "liquid", "bridge", "hole" or null
+    private final boolean blocked;
+
+    public TileDefinition(int id, String type, boolean blocked) {
+        this.id = id;
+        this.type = type;
+        this.blocked = blocked;
+    }
+
+    public int getId() { return id; }
+    public String getType() { return type; }
+    public boolean isBlocked() { return blocked; }
+
+    @Override
+    public String toString() {
+        return "TileDef{id=" + id + ", type='" + type + "', blocked=" + blocked + "}";
+    }
+}
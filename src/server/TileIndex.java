@@ -0,0 +1,227 @@
+import java.util.Arrays;
+import java.util.function.Predicate;
+
+/**
+ * Exact-tile index: maps a tile to the entities standing on it.
+ *
+ * Tiles are packed into one int key ({@code x * HEIGHT + y}) and stored in an
+ * open-addressing table with linear probing, so lookups never box or chain.
+ * A tile with a single entity (the common case) stores it directly; tiles
+ * with several keep them in insertion order in a small array. Removal uses
+ * backward-shift deletion, so the table never fills up with tombstones.
+ */
+@SuppressWarnings("unchecked")
+public final class TileIndex<T> {
+    // Planes are stacked vertically every 944 tiles, 4 planes in total
+    private static final int HEIGHT = 944 * 4;
+    private static final int EMPTY = -1;
+    private static final int MIN_CAPACITY = 16;
+
+    private int[] keys;
+    private Object[] values;
+    private int mask;
+    private int tiles = 0;
+    private int size = 0;
+
+    public TileIndex() {
+        this(MIN_CAPACITY);
+    }
+
+    /**
+     * @param expectedTiles number of occupied tiles to size the table for
+     */
+    public TileIndex(int expectedTiles) {
+        int capacity = Integer.highestOneBit(Math.max(MIN_CAPACITY, expectedTiles * 2 - 1)) << 1;
+        allocate(capacity);
+    }
+
+    /**
+     * The first entity added to the tile, or null.
+     */
+    public synchronized T get(int x, int y) {
+        int slot = slotOf(key(x, y));
+        if (slot < 0) {
+            return null;
+        }
+        Object value = values[slot];
+        return value instanceof Stack ? ((Stack<T>) value).get(0) : (T) value;
+    }
+
+    /**
+     * The first entity on the tile that matches, in insertion order, or null.
+     */
+    public synchronized T find(int x, int y, Predicate<? super T> match) {
+        int slot = slotOf(key(x, y));
+        if (slot < 0) {
+            return null;
+        }
+        Object value = values[slot];
+        if (!(value instanceof Stack)) {
+            return match.test((T) value) ? (T) value : null;
+        }
+        Stack<T> stack = (Stack<T>) value;
+        for (int i = 0; i < stack.count; i++) {
+            T entity = stack.get(i);
+            if (match.test(entity)) {
+                return entity;
+            }
+        }
+        return null;
+    }
+
+    public synchronized void add(T entity, int x, int y) {
+        if ((tiles + 1) * 2 > keys.length) {
+            allocate(keys.length * 2);
+        }
+        int key = key(x, y);
+        int slot = hash(key) & mask;
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                Object value = values[slot];
+                if (value instanceof Stack) {
+                    ((Stack<T>) value).add(entity);
+                } else {
+                    Stack<T> stack = new Stack<>();
+                    stack.add((T) value);
+                    stack.add(entity);
+                    values[slot] = stack;
+                }
+                size++;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = entity;
+        tiles++;
+        size++;
+    }
+
+    /**
+     * Remove this exact entity (by identity) from the tile.
+     *
+     * @return false if it was not indexed there
+     */
+    public synchronized boolean remove(T entity, int x, int y) {
+        int slot = slotOf(key(x, y));
+        if (slot < 0) {
+            return false;
+        }
+        Object value = values[slot];
+        if (value instanceof Stack) {
+            Stack<T> stack = (Stack<T>) value;
+            if (!stack.remove(entity)) {
+                return false;
+            }
+            if (stack.count == 1) {
+                values[slot] = stack.get(0);
+            }
+        } else if (value == entity) {
+            deleteSlot(slot);
+        } else {
+            return false;
+        }
+        size--;
+        return true;
+    }
+
+    /**
+     * Number of indexed entities.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    private static int key(int x, int y) {
+        return x * HEIGHT + y;
+    }
+
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private int slotOf(int key) {
+        int slot = hash(key) & mask;
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Empty a slot and shift later entries of the probe run back into the gap.
+     */
+    private void deleteSlot(int slot) {
+        int gap = slot;
+        int next = (gap + 1) & mask;
+        while (keys[next] != EMPTY) {
+            int home = hash(keys[next]) & mask;
+            // Move the entry if its home slot is not cyclically within (gap, next]
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[gap] = EMPTY;
+        values[gap] = null;
+        tiles--;
+    }
+
+    private void allocate(int capacity) {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+        values = new Object[capacity];
+        mask = capacity - 1;
+        if (oldKeys == null) {
+            return;
+        }
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = hash(oldKeys[i]) & mask;
+                while (keys[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    /**
+     * Entities sharing one tile, in insertion order.
+     */
+    private static final class Stack<T> {
+        private Object[] items = new Object[2];
+        private int count = 0;
+
+        T get(int index) {
+            return (T) items[index];
+        }
+
+        void add(T entity) {
+            if (count == items.length) {
+                items = Arrays.copyOf(items, count * 2);
+            }
+            items[count++] = entity;
+        }
+
+        boolean remove(T entity) {
+            for (int i = 0; i < count; i++) {
+                if (items[i] == entity) {
+                    System.arraycopy(items, i + 1, items, i, count - i - 1);
+                    items[--count] = null;
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
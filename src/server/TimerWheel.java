@@ -0,0 +1,212 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hierarchical timer wheel driven by the game tick.
+ *
+ * The innermost wheel has a slot per tick for the next 256 ticks; each outer
+ * wheel has 64 slots that each span a whole lap of the wheel inside it, so
+ * four wheels cover about 2^26 ticks (over a year at 640ms). A timer goes into
+ * the innermost wheel its delay fits in. Whenever a wheel completes a lap, the
+ * next slot of the wheel outside it is emptied and its timers are placed again
+ * by their remaining delay, ending up in the innermost wheel in time to fire.
+ *
+ * Scheduling and cancelling are O(1) (each slot is an intrusive doubly linked
+ * list), and {@link #advance()} only touches the timers that are due plus the
+ * occasional cascade, so a tick costs the same with ten timers or a million.
+ */
+public final class TimerWheel {
+    private static final int INNER_BITS = 8;
+    private static final int OUTER_BITS = 6;
+    private static final int LEVELS = 4;
+    private static final long MAX_DELAY = 1L << (INNER_BITS + OUTER_BITS * (LEVELS - 1));
+
+    /**
+     * A scheduled task; {@link #cancel()} removes it before it runs.
+     */
+    public static final class Timer {
+        private final long deadline;
+        private final Runnable task;
+        private final TimerWheel wheel;
+        private Timer previous;
+        private Timer next;
+        private Timer[] slots;   // Wheel and slot the timer is linked into, null once it ran or was cancelled
+        private int slot;
+
+        private Timer(long deadline, Runnable task, TimerWheel wheel) {
+            this.deadline = deadline;
+            this.task = task;
+            this.wheel = wheel;
+        }
+
+        /**
+         * The tick this timer fires on.
+         */
+        public long getDeadline() {
+            return deadline;
+        }
+
+        public void cancel() {
+            wheel.cancel(this);
+        }
+    }
+
+    private final Timer[][] wheels = new Timer[LEVELS][];
+    private final long tickMillis;
+    private final List<Timer> due = new ArrayList<>();
+    private long tick = 0;
+    private int size = 0;
+
+    /**
+     * @param tickMillis length of a game tick, for {@link #scheduleMillis}
+     */
+    public TimerWheel(long tickMillis) {
+        this.tickMillis = Math.max(1, tickMillis);
+        wheels[0] = new Timer[1 << INNER_BITS];
+        for (int level = 1; level < LEVELS; level++) {
+            wheels[level] = new Timer[1 << OUTER_BITS];
+        }
+    }
+
+    /**
+     * Run {@code task} on the game thread {@code delayTicks} ticks from now (at least one).
+     */
+    public synchronized Timer schedule(long delayTicks, Runnable task) {
+        Timer timer = new Timer(tick + Math.max(1, delayTicks), task, this);
+        insert(timer);
+        size++;
+        return timer;
+    }
+
+    /**
+     * Run {@code task} after {@code delayMillis}, rounded up to whole ticks.
+     */
+    public Timer scheduleMillis(long delayMillis, Runnable task) {
+        return schedule((delayMillis + tickMillis - 1) / tickMillis, task);
+    }
+
+    /**
+     * Move to the next tick and run every timer due on it.
+     */
+    public void advance() {
+        synchronized (this) {
+            tick++;
+            // Each completed lap pulls the next slot of the wheel outside down
+            for (int level = 1; level < LEVELS && lapCompleted(level); level++) {
+                cascade(level, slotIndex(level, tick));
+            }
+
+            Timer[] inner = wheels[0];
+            int slot = slotIndex(0, tick);
+            Timer timer = inner[slot];
+            while (timer != null) {
+                Timer next = timer.next;
+                unlink(timer);
+                if (timer.deadline <= tick) {
+                    due.add(timer);
+                    size--;
+                } else {
+                    insert(timer);
+                }
+                timer = next;
+            }
+        }
+
+        // Tasks may schedule new timers, so they run outside the lock
+        for (int i = 0; i < due.size(); i++) {
+            try {
+                due.get(i).task.run();
+            } catch (Exception ex) {
+                Logger.error("Timer task failed: " + ex.getMessage());
+                ex.printStackTrace();
+            }
+        }
+        due.clear();
+    }
+
+    public synchronized long getTick() {
+        return tick;
+    }
+
+    /**
+     * Number of timers waiting to fire.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    private synchronized void cancel(Timer timer) {
+        if (timer.slots != null) {
+            unlink(timer);
+            size--;
+        }
+    }
+
+    /**
+     * Link a timer into the innermost wheel that its remaining delay fits in.
+     */
+    private void insert(Timer timer) {
+        long delay = Math.min(timer.deadline - tick, MAX_DELAY - 1);
+        long at = tick + delay;
+        int level = 0;
+        while (level < LEVELS - 1 && delay >= 1L << shift(level + 1)) {
+            level++;
+        }
+        Timer[] slots = wheels[level];
+        int slot = slotIndex(level, at);
+        timer.slots = slots;
+        timer.slot = slot;
+        timer.previous = null;
+        timer.next = slots[slot];
+        if (timer.next != null) {
+            timer.next.previous = timer;
+        }
+        slots[slot] = timer;
+    }
+
+    private void unlink(Timer timer) {
+        Timer[] slots = timer.slots;
+        if (timer.previous != null) {
+            timer.previous.next = timer.next;
+        } else {
+            slots[timer.slot] = timer.next;
+        }
+        if (timer.next != null) {
+            timer.next.previous = timer.previous;
+        }
+        timer.previous = null;
+        timer.next = null;
+        timer.slots = null;
+    }
+
+    /**
+     * Re-place every timer of one outer slot by its remaining delay.
+     */
+    private void cascade(int level, int slot) {
+        Timer timer = wheels[level][slot];
+        wheels[level][slot] = null;
+        while (timer != null) {
+            Timer next = timer.next;
+            timer.previous = null;
+            timer.next = null;
+            insert(timer);
+            timer = next;
+        }
+    }
+
+    /**
+     * Whether the wheel inside {@code level} just wrapped around to slot 0.
+     */
+    private boolean lapCompleted(int level) {
+        return (tick & ((1L << shift(level)) - 1)) == 0;
+    }
+
+    private static int shift(int level) {
+        return level == 0 ? 0 : INNER_BITS + OUTER_BITS * (level - 1);
+    }
+
+    private static int slotIndex(int level, long at) {
+        int bits = level == 0 ? INNER_BITS : OUTER_BITS;
+        return (int) ((at >>> shift(level)) & ((1 << bits) - 1));
+    }
+}
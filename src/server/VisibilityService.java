@@ -18,11 +18,11 @@ public final class VisibilityService {
             }
         }
 
-        for (Player candidate : players.getOnlinePlayers()) {
+        for (Player candidate : players.findNearby(player.getX(), player.getY(), radius)) {
             if (candidate == player) {
                 continue;
             }
-            if (!player.getKnownPlayers().contains(candidate) && isWithinRange(player, candidate)) {
+            if (!player.getKnownPlayers().contains(candidate)) {
                 player.getAddedPlayers().add(candidate);
             }
         }
@@ -41,12 +41,14 @@ public final class VisibilityService {
     }
 
     public void recordMovement(Player moved) {
-        players.forEachOnline(observer -> {
+        // A single step can only take the mover one tile out of an observer's range;
+        // observers left behind by a teleport are dropped by their next refreshVisibility
+        for (Player observer : players.findNearby(moved.getX(), moved.getY(), radius + 1)) {
             if (observer == moved) {
-                return;
+                continue;
             }
             if (!observer.getKnownPlayers().contains(moved)) {
-                return;
+                continue;
             }
 
             if (isWithinRange(observer, moved)) {
@@ -54,7 +56,7 @@ public final class VisibilityService {
             } else {
                 observer.getRemovedPlayers().add(moved);
             }
-        });
+        }
     }
 
     public void handlePlayerRemoval(Player departing) {
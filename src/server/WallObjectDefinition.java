@@ -0,0 +1,35 @@
+import java.util.List;
+
+/**
+ * Represents a wall object type (wall, door, fence, ...) loaded from config/wall-objects.json.
+ */
+public class WallObjectDefinition {
+    private final int id;
+    private final String name;
+    private final String description;
+    private final List<String> commands;
+    private final boolean blocked;
+    private final boolean invisible; // not drawn from the landscape, e.g. doors the server spawns
+
+    public WallObjectDefinition(int id, String name, String description, List<String> commands,
+                                boolean blocked, boolean invisible) {
+        this.id = id;
+        this.name = name;
+        this.description = description;
+        this.commands = commands;
+        this.blocked = blocked;
+        this.invisible = invisible;
+    }
+
+    public int getId() { return id; }
+    public String getName() { return name; }
+    public String getDescription() { return description; }
+    public List<String> getCommands() { return commands; }
+    public boolean isBlocked() { return blocked; }
+    public boolean isInvisible() { return invisible; }
+
+    @Override
+    public String toString() {
+        return "WallObjectDef{id=" + id + ", name='" + name + "', blocked=" + blocked + "}";
+    }
+}
@@ -0,0 +1,154 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Fixed partition of the world into square regions for the NPC and combat phases.
+ *
+ * Each region's NPCs and fights are processed together as one task, so the
+ * regions can run side by side on the update pool. Changes that leave a
+ * region (an NPC stepping over the border, a dead player sent back to spawn)
+ * are not applied by the task but handed off; {@link #applyHandOffs()} runs
+ * them on the game thread once every region is done, in region order, so the
+ * outcome does not depend on which worker finished first. Each region also
+ * has its own random generator, so tasks do not contend on a shared one.
+ */
+public final class WorldRegions {
+    /** Side of a region in tiles (one landscape sector). */
+    public static final int REGION_SIZE = 48;
+
+    /**
+     * One region's work for the current phase. Only touched by the task it is
+     * handed to, then by the game thread after the barrier.
+     */
+    public static final class Region {
+        private final int key;
+        private final Random random;
+        private final List<Npc> npcs = new ArrayList<>();
+        private final List<Player> fighters = new ArrayList<>();
+        private final List<Runnable> handOffs = new ArrayList<>();
+        private boolean busy = false;
+
+        private Region(int key) {
+            this.key = key;
+            this.random = new Random(key);
+        }
+
+        public Random getRandom() {
+            return random;
+        }
+
+        /**
+         * Awake NPCs standing in the region.
+         */
+        public List<Npc> getNpcs() {
+            return npcs;
+        }
+
+        /**
+         * Players fighting an NPC in the region.
+         */
+        public List<Player> getFighters() {
+            return fighters;
+        }
+
+        public boolean contains(int x, int y) {
+            return keyOf(x, y) == key;
+        }
+
+        /**
+         * Defer a change that reaches outside the region until all regions are done.
+         */
+        public void handOff(Runnable change) {
+            handOffs.add(change);
+        }
+    }
+
+    private final Map<Integer, Region> regions = new HashMap<>();
+    private final List<Region> busy = new ArrayList<>();
+
+    public static int keyOf(int x, int y) {
+        return (x / REGION_SIZE) << 16 | (y / REGION_SIZE);
+    }
+
+    /**
+     * Group NPCs by the region they stand in.
+     *
+     * @return the regions with at least one NPC, in region order
+     */
+    public List<Region> partitionNpcs(List<Npc> npcs) {
+        reset();
+        for (int i = 0; i < npcs.size(); i++) {
+            Npc npc = npcs.get(i);
+            regionAt(npc.getX(), npc.getY()).npcs.add(npc);
+        }
+        return sortBusy();
+    }
+
+    /**
+     * Group fighting players by the region of the NPC they fight (their own
+     * position if the NPC is gone), so every NPC is handled by one task.
+     *
+     * @return the regions with at least one fight, in region order
+     */
+    public List<Region> partitionFights(List<Player> fighters) {
+        reset();
+        for (int i = 0; i < fighters.size(); i++) {
+            Player player = fighters.get(i);
+            Npc npc = player.getAttackingNpc();
+            Region region = npc != null ? regionAt(npc.getX(), npc.getY()) : regionAt(player.getX(), player.getY());
+            region.fighters.add(player);
+        }
+        return sortBusy();
+    }
+
+    /**
+     * Apply the hand-offs of the last partition, region by region. Game thread only.
+     */
+    public void applyHandOffs() {
+        for (int i = 0; i < busy.size(); i++) {
+            List<Runnable> handOffs = busy.get(i).handOffs;
+            for (int j = 0; j < handOffs.size(); j++) {
+                try {
+                    handOffs.get(j).run();
+                } catch (Exception ex) {
+                    Logger.error("Region hand-off failed: " + ex.getMessage());
+                    ex.printStackTrace();
+                }
+            }
+            handOffs.clear();
+        }
+    }
+
+    private Region regionAt(int x, int y) {
+        int key = keyOf(x, y);
+        Region region = regions.get(key);
+        if (region == null) {
+            region = new Region(key);
+            regions.put(key, region);
+        }
+        if (!region.busy) {
+            region.busy = true;
+            busy.add(region);
+        }
+        return region;
+    }
+
+    private void reset() {
+        for (int i = 0; i < busy.size(); i++) {
+            Region region = busy.get(i);
+            region.npcs.clear();
+            region.fighters.clear();
+            region.handOffs.clear();
+            region.busy = false;
+        }
+        busy.clear();
+    }
+
+    private List<Region> sortBusy() {
+        busy.sort((a, b) -> Integer.compare(a.key, b.key));
+        return busy;
+    }
+}
@@ -1,8 +1,10 @@
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 
@@ -12,17 +14,50 @@ public final class WorldService {
     private static final int DEFAULT_SPAWN_X = 122;
     private static final int DEFAULT_SPAWN_Y = 657;
     private static final int DEFAULT_PLANE = 0;
+    // Used for NPC types missing from npc-respawn.json (the old fixed 50 ticks)
+    private static final int DEFAULT_NPC_RESPAWN_MILLIS = 32_000;
+    // How long an item dropped at runtime stays on the ground
+    private static final int DROPPED_ITEM_MILLIS = 180_000;
 
     // World entities loaded from data files
     private List<Npc> npcs = new ArrayList<>();
+    // Struct-of-arrays state behind every Npc in the world, slot = server id
+    private final NpcStore npcStore = new NpcStore(64);
     private List<DataLoader.GameObjectData> objects = new ArrayList<>();
     private List<DataLoader.WallObjectData> wallObjects = new ArrayList<>();
-    private List<DataLoader.GroundItemData> groundItems = new ArrayList<>();
+    private Collection<DataLoader.GroundItemData> groundItems = new ArrayList<>();
+
+    // Spatial indexes over the lists above, used by the getNearby* queries
+    private final SpatialGrid<Npc> npcGrid = new SpatialGrid<>();
+    private final SpatialGrid<DataLoader.GameObjectData> objectGrid = new SpatialGrid<>();
+    private final SpatialGrid<DataLoader.WallObjectData> wallObjectGrid = new SpatialGrid<>();
+    private final SpatialGrid<DataLoader.GroundItemData> groundItemGrid = new SpatialGrid<>();
+
+    // Exact-tile indexes for the interaction lookups (getObjectAt, removeGroundItem, ...)
+    private TileIndex<DataLoader.GameObjectData> objectIndex = new TileIndex<>();
+    private TileIndex<DataLoader.WallObjectData> wallObjectIndex = new TileIndex<>();
+    private final TileIndex<DataLoader.GroundItemData> groundItemIndex = new TileIndex<>();
 
     // Definitions loaded from config files
     private List<ItemDefinition> itemDefinitions = new ArrayList<>();
     private List<NpcDefinition> npcDefinitions = new ArrayList<>();
     private Map<Integer, Integer> edibleItems = new HashMap<>();
+    private Map<Integer, Integer> npcRespawnTimes = new HashMap<>();
+
+    // Walls, water and solid scenery; open everywhere until loadData builds it
+    private CollisionMap collisionMap = CollisionMap.EMPTY;
+
+    // Id-indexed views of the lists above and of npcs, for constant-time lookups
+    private ItemDefinition[] itemDefinitionsById = new ItemDefinition[0];
+    private NpcDefinition[] npcDefinitionsById = new NpcDefinition[0];
+    private Npc[] npcsByServerId = new Npc[0];
+
+    // Respawns and despawns are scheduled here and run by the game loop
+    private final TimerWheel timers;
+
+    public WorldService(TimerWheel timers) {
+        this.timers = timers;
+    }
 
     public void spawnPlayer(Player player) {
         player.setX(DEFAULT_SPAWN_X);
@@ -35,34 +70,86 @@ public final class WorldService {
      * Call this once during server startup.
      */
     public void loadData(String dataPath) {
-        // Load config definitions first (item defs, NPC defs)
-        try {
-            itemDefinitions = DataLoader.loadItemDefinitions(dataPath + "/config/items.json");
-            DataLoader.loadWieldableData(dataPath + "/wieldable.json", itemDefinitions);
-        } catch (IOException ex) {
-            Logger.error("Failed to load item definitions: " + ex.getMessage());
+        loadData(dataPath, null);
+    }
+
+    /**
+     * Load all world data, from the precompiled snapshot when it is present and
+     * up to date with the JSON files in {@code dataPath}, otherwise from the JSON.
+     *
+     * @param snapshotPath snapshot written by {@link WorldSnapshot}, or null to always read JSON
+     */
+    public void loadData(String dataPath, String snapshotPath) {
+        long start = System.nanoTime();
+
+        WorldSnapshot snapshot = snapshotPath == null ? null : WorldSnapshot.load(snapshotPath, dataPath);
+        String source;
+        if (snapshot != null) {
+            itemDefinitions = snapshot.itemDefinitions;
+            npcDefinitions = snapshot.npcDefinitions;
+            edibleItems = snapshot.edibleItems;
+            npcRespawnTimes = snapshot.npcRespawnTimes;
+            npcs = snapshot.npcs;
+            objects = snapshot.objects;
+            wallObjects = snapshot.wallObjects;
+            groundItems = snapshot.groundItems;
+            collisionMap = snapshot.collisionMap;
+            indexDefinitions();
+            source = "snapshot " + snapshotPath;
+        } else {
+            loadJson(dataPath);
+            loadCollisionMap(dataPath);
+            source = "JSON";
         }
 
-        try {
-            npcDefinitions = DataLoader.loadNpcDefinitions(dataPath + "/config/npcs.json");
-        } catch (IOException ex) {
-            Logger.error("Failed to load NPC definitions: " + ex.getMessage());
+        // Initialize NPC combat stats from definitions and build the spatial indexes
+        npcStore.ensureCapacity(npcs.size());
+        for (Npc npc : npcs) {
+            npc.initFromDefinition(getNpcDefinition(npc.getTypeId()));
+            npcGrid.add(npc, npc.getX(), npc.getY());
+            npc.setGrid(npcGrid);
+            indexNpc(npc);
+        }
+        objectIndex = new TileIndex<>(objects.size());
+        for (DataLoader.GameObjectData obj : objects) {
+            objectGrid.add(obj, obj.x, obj.y);
+            objectIndex.add(obj, obj.x, obj.y);
         }
+        wallObjectIndex = new TileIndex<>(wallObjects.size());
+        for (DataLoader.WallObjectData wall : wallObjects) {
+            wallObjectGrid.add(wall, wall.x, wall.y);
+            wallObjectIndex.add(wall, wall.x, wall.y);
+        }
+        // Ground items come and go at runtime; a linked set keeps removal O(1)
+        groundItems = new LinkedHashSet<>(groundItems);
+        for (DataLoader.GroundItemData item : groundItems) {
+            groundItemGrid.add(item, item.x, item.y);
+            groundItemIndex.add(item, item.x, item.y);
+        }
+
+        Logger.info("World data loaded from " + source + " in " + (System.nanoTime() - start) / 1_000_000 + " ms: " +
+                    npcs.size() + " NPCs, " +
+                    objects.size() + " objects, " + wallObjects.size() + " walls, " +
+                    groundItems.size() + " ground items, " +
+                    itemDefinitions.size() + " item defs, " +
+                    npcDefinitions.size() + " NPC defs");
+    }
 
+    private void loadCollisionMap(String dataPath) {
         try {
-            edibleItems = DataLoader.loadEdibleData(dataPath + "/edible.json");
-        } catch (IOException ex) {
-            Logger.error("Failed to load edible data: " + ex.getMessage());
+            collisionMap = CollisionMap.build(dataPath, objects, wallObjects);
+        } catch (IOException | RuntimeException ex) {
+            Logger.error("Failed to build collision map, movement will not be checked: " + ex.getMessage());
         }
+    }
+
+    private void loadJson(String dataPath) {
+        // Load config definitions first (item defs, NPC defs)
+        loadDefinitions(dataPath);
 
         // Load spawn locations
         try {
             npcs = DataLoader.loadNpcs(dataPath + "/locations/npcs.json");
-            // Initialize NPC combat stats from definitions
-            for (Npc npc : npcs) {
-                NpcDefinition def = getNpcDefinition(npc.getTypeId());
-                npc.initFromDefinition(def);
-            }
         } catch (IOException ex) {
             Logger.error("Failed to load NPCs: " + ex.getMessage());
         }
@@ -84,12 +171,84 @@ public final class WorldService {
         } catch (IOException ex) {
             Logger.error("Failed to load ground items: " + ex.getMessage());
         }
+    }
 
-        Logger.info("World data loaded: " + npcs.size() + " NPCs, " +
-                    objects.size() + " objects, " + wallObjects.size() + " walls, " +
-                    groundItems.size() + " ground items, " +
-                    itemDefinitions.size() + " item defs, " +
-                    npcDefinitions.size() + " NPC defs");
+    /**
+     * Load item/NPC definitions and item metadata without any spawns.
+     */
+    public void loadDefinitions(String dataPath) {
+        try {
+            itemDefinitions = DataLoader.loadItemDefinitions(dataPath + "/config/items.json");
+            DataLoader.loadWieldableData(dataPath + "/wieldable.json", itemDefinitions);
+        } catch (IOException ex) {
+            Logger.error("Failed to load item definitions: " + ex.getMessage());
+        }
+
+        try {
+            npcDefinitions = DataLoader.loadNpcDefinitions(dataPath + "/config/npcs.json");
+        } catch (IOException ex) {
+            Logger.error("Failed to load NPC definitions: " + ex.getMessage());
+        }
+
+        try {
+            edibleItems = DataLoader.loadEdibleData(dataPath + "/edible.json");
+        } catch (IOException ex) {
+            Logger.error("Failed to load edible data: " + ex.getMessage());
+        }
+
+        try {
+            npcRespawnTimes = DataLoader.loadNpcRespawnTimes(dataPath + "/npc-respawn.json");
+        } catch (IOException ex) {
+            Logger.error("Failed to load NPC respawn times: " + ex.getMessage());
+        }
+
+        indexDefinitions();
+    }
+
+    private void indexDefinitions() {
+        int maxItemId = -1;
+        for (ItemDefinition def : itemDefinitions) {
+            maxItemId = Math.max(maxItemId, def.getId());
+        }
+        itemDefinitionsById = new ItemDefinition[maxItemId + 1];
+        for (ItemDefinition def : itemDefinitions) {
+            if (def.getId() >= 0) {
+                itemDefinitionsById[def.getId()] = def;
+            }
+        }
+
+        int maxNpcId = -1;
+        for (NpcDefinition def : npcDefinitions) {
+            maxNpcId = Math.max(maxNpcId, def.getId());
+        }
+        npcDefinitionsById = new NpcDefinition[maxNpcId + 1];
+        for (NpcDefinition def : npcDefinitions) {
+            if (def.getId() >= 0) {
+                npcDefinitionsById[def.getId()] = def;
+            }
+        }
+    }
+
+    private void indexNpc(Npc npc) {
+        int serverId = npc.getServerId();
+        if (serverId >= npcsByServerId.length) {
+            npcsByServerId = Arrays.copyOf(npcsByServerId, Math.max(serverId + 1, npcsByServerId.length * 2));
+        }
+        npcsByServerId[serverId] = npc;
+        npcStore.ensureCapacity(serverId + 1);
+        npc.attach(npcStore, serverId);
+    }
+
+    /**
+     * Spawn an NPC outside the loaded spawn data, e.g. for synthetic benchmark worlds.
+     */
+    public void addNpc(Npc npc) {
+        npc.setServerId(npcs.size());
+        npc.initFromDefinition(getNpcDefinition(npc.getTypeId()));
+        npcs.add(npc);
+        npcGrid.add(npc, npc.getX(), npc.getY());
+        npc.setGrid(npcGrid);
+        indexNpc(npc);
     }
 
     // ===== Query methods =====
@@ -98,9 +257,18 @@ public final class WorldService {
         return Collections.unmodifiableList(npcs);
     }
 
+    /**
+     * State of every NPC in the world, indexed by server id.
+     */
+    public NpcStore getNpcStore() {
+        return npcStore;
+    }
+
     public List<Npc> getNearbyNpcs(int x, int y, int radius) {
+        List<Npc> candidates = new ArrayList<>();
+        npcGrid.query(x, y, radius, candidates);
         List<Npc> result = new ArrayList<>();
-        for (Npc npc : npcs) {
+        for (Npc npc : candidates) {
             if (Math.abs(npc.getX() - x) <= radius && Math.abs(npc.getY() - y) <= radius) {
                 result.add(npc);
             }
@@ -108,9 +276,19 @@ public final class WorldService {
         return result;
     }
 
+    /**
+     * Append the NPCs in the grid buckets around (x, y) to {@code result},
+     * without the exact distance check of {@link #getNearbyNpcs}.
+     */
+    public void queryNpcs(int x, int y, int radius, List<Npc> result) {
+        npcGrid.query(x, y, radius, result);
+    }
+
     public List<DataLoader.GameObjectData> getNearbyObjects(int x, int y, int radius) {
+        List<DataLoader.GameObjectData> candidates = new ArrayList<>();
+        objectGrid.query(x, y, radius, candidates);
         List<DataLoader.GameObjectData> result = new ArrayList<>();
-        for (DataLoader.GameObjectData obj : objects) {
+        for (DataLoader.GameObjectData obj : candidates) {
             if (Math.abs(obj.x - x) <= radius && Math.abs(obj.y - y) <= radius) {
                 result.add(obj);
             }
@@ -119,8 +297,10 @@ public final class WorldService {
     }
 
     public List<DataLoader.WallObjectData> getNearbyWallObjects(int x, int y, int radius) {
+        List<DataLoader.WallObjectData> candidates = new ArrayList<>();
+        wallObjectGrid.query(x, y, radius, candidates);
         List<DataLoader.WallObjectData> result = new ArrayList<>();
-        for (DataLoader.WallObjectData wall : wallObjects) {
+        for (DataLoader.WallObjectData wall : candidates) {
             if (Math.abs(wall.x - x) <= radius && Math.abs(wall.y - y) <= radius) {
                 result.add(wall);
             }
@@ -129,8 +309,10 @@ public final class WorldService {
     }
 
     public List<DataLoader.GroundItemData> getNearbyGroundItems(int x, int y, int radius) {
+        List<DataLoader.GroundItemData> candidates = new ArrayList<>();
+        groundItemGrid.query(x, y, radius, candidates);
         List<DataLoader.GroundItemData> result = new ArrayList<>();
-        for (DataLoader.GroundItemData item : groundItems) {
+        for (DataLoader.GroundItemData item : candidates) {
             if (Math.abs(item.x - x) <= radius && Math.abs(item.y - y) <= radius) {
                 result.add(item);
             }
@@ -138,6 +320,10 @@ public final class WorldService {
         return result;
     }
 
+    public CollisionMap getCollisionMap() {
+        return collisionMap;
+    }
+
     public int getWorldWidth() {
         return WORLD_WIDTH;
     }
@@ -153,17 +339,13 @@ public final class WorldService {
     // ===== Definition Queries =====
 
     public ItemDefinition getItemDefinition(int itemId) {
-        if (itemId >= 0 && itemId < itemDefinitions.size()) {
-            return itemDefinitions.get(itemId);
-        }
-        return null;
+        ItemDefinition[] byId = itemDefinitionsById;
+        return itemId >= 0 && itemId < byId.length ? byId[itemId] : null;
     }
 
     public NpcDefinition getNpcDefinition(int npcTypeId) {
-        if (npcTypeId >= 0 && npcTypeId < npcDefinitions.size()) {
-            return npcDefinitions.get(npcTypeId);
-        }
-        return null;
+        NpcDefinition[] byId = npcDefinitionsById;
+        return npcTypeId >= 0 && npcTypeId < byId.length ? byId[npcTypeId] : null;
     }
 
     public List<ItemDefinition> getItemDefinitions() {
@@ -186,64 +368,91 @@ public final class WorldService {
 
     /**
      * Remove a ground item at the specified position with the given item ID.
-     * Returns true if the item was found and removed.
+     * Returns true if the item was found and removed. Spawned items come back
+     * after their respawn time.
      */
     public boolean removeGroundItem(int x, int y, int itemId) {
-        Iterator<DataLoader.GroundItemData> it = groundItems.iterator();
-        while (it.hasNext()) {
-            DataLoader.GroundItemData item = it.next();
-            if (item.x == x && item.y == y && item.id == itemId) {
-                it.remove();
-                Logger.debug("Removed ground item: id=" + itemId + " at (" + x + "," + y + ")");
-                return true;
-            }
+        DataLoader.GroundItemData item = groundItemIndex.find(x, y, candidate -> candidate.id == itemId);
+        if (item == null || !removeGroundItem(item)) {
+            return false;
         }
-        return false;
+        if (item.respawn > 0) {
+            timers.scheduleMillis(item.respawn, () -> {
+                insertGroundItem(item);
+                PlayerPacketSender.broadcastGroundItem(item, false);
+                Logger.debug("Ground item respawned: id=" + item.id + " at (" + item.x + "," + item.y + ")");
+            });
+        }
+        return true;
     }
 
     /**
-     * Add a ground item to the world.
+     * Add a ground item to the world. It disappears again if nobody picks it up.
      */
     public void addGroundItem(int itemId, int x, int y) {
-        groundItems.add(new DataLoader.GroundItemData(itemId, x, y, 0));
+        DataLoader.GroundItemData item = new DataLoader.GroundItemData(itemId, x, y, 0);
+        insertGroundItem(item);
         Logger.debug("Added ground item: id=" + itemId + " at (" + x + "," + y + ")");
+        timers.scheduleMillis(DROPPED_ITEM_MILLIS, () -> {
+            // A no-op if it was picked up in the meantime
+            if (removeGroundItem(item)) {
+                PlayerPacketSender.broadcastGroundItem(item, true);
+            }
+        });
+    }
+
+    private void insertGroundItem(DataLoader.GroundItemData item) {
+        synchronized (groundItems) {
+            groundItems.add(item);
+        }
+        groundItemGrid.add(item, item.x, item.y);
+        groundItemIndex.add(item, item.x, item.y);
+    }
+
+    /**
+     * Remove this exact item; false if it is no longer on the ground.
+     */
+    private boolean removeGroundItem(DataLoader.GroundItemData item) {
+        if (!groundItemIndex.remove(item, item.x, item.y)) {
+            return false;
+        }
+        synchronized (groundItems) {
+            groundItems.remove(item);
+        }
+        groundItemGrid.remove(item, item.x, item.y);
+        Logger.debug("Removed ground item: id=" + item.id + " at (" + item.x + "," + item.y + ")");
+        return true;
     }
 
     // ===== NPC Management =====
 
+    /**
+     * Bring a dead NPC back after the respawn time of its type.
+     */
+    public void scheduleNpcRespawn(Npc npc) {
+        Integer millis = npcRespawnTimes.get(npc.getTypeId());
+        timers.scheduleMillis(millis != null ? millis : DEFAULT_NPC_RESPAWN_MILLIS, npc::respawn);
+    }
+
     /**
      * Find an NPC by its server index.
      */
     public Npc getNpcByServerId(int serverId) {
-        for (Npc npc : npcs) {
-            if (npc.getServerId() == serverId) {
-                return npc;
-            }
-        }
-        return null;
+        Npc[] byServerId = npcsByServerId;
+        return serverId >= 0 && serverId < byServerId.length ? byServerId[serverId] : null;
     }
 
     /**
      * Find a game object at the specified world coordinates.
      */
     public DataLoader.GameObjectData getObjectAt(int x, int y) {
-        for (DataLoader.GameObjectData obj : objects) {
-            if (obj.x == x && obj.y == y) {
-                return obj;
-            }
-        }
-        return null;
+        return objectIndex.get(x, y);
     }
 
     /**
      * Find a wall object at the specified world coordinates.
      */
     public DataLoader.WallObjectData getWallObjectAt(int x, int y) {
-        for (DataLoader.WallObjectData wall : wallObjects) {
-            if (wall.x == x && wall.y == y) {
-                return wall;
-            }
-        }
-        return null;
+        return wallObjectIndex.get(x, y);
     }
 }
@@ -0,0 +1,426 @@
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Precompiled binary copy of the world data in doc/rs-data, including the
+ * {@link CollisionMap} built from the landscape archives.
+ *
+ * The JSON files stay the source of truth. {@link #main} (ant world-snapshot)
+ * compiles them into one file; at boot {@link #load} memory-maps it and
+ * decodes the definitions and spawns straight from the mapping, which is much
+ * faster than tokenizing the JSON.
+ *
+ * Layout: a fixed header (magic, format version, fingerprint of the source
+ * files, payload length, CRC32 of the payload) followed by the payload
+ * sections in the order they are written by {@link #encode}. All numbers are
+ * big-endian. The fingerprint covers each source file's size and modification
+ * time, so editing any JSON file makes the snapshot stale and the server falls
+ * back to the JSON loader until the snapshot is rebuilt.
+ */
+public final class WorldSnapshot {
+    private static final int MAGIC = 0x52575344; // "RWSD"
+    private static final int VERSION = 3;
+    private static final int HEADER_SIZE = 4 + 4 + 8 + 4 + 4;
+
+    /** Source files, relative to the data directory. */
+    private static final String[] SOURCES = {
+        "config/items.json",
+        "wieldable.json",
+        "config/npcs.json",
+        "edible.json",
+        "npc-respawn.json",
+        "locations/npcs.json",
+        "locations/objects.json",
+        "locations/wall-objects.json",
+        "locations/items.json",
+        "config/tiles.json",
+        "config/objects.json",
+        "config/wall-objects.json",
+        "landscape/maps63.jag",
+        "landscape/maps63.mem"
+    };
+
+    public final List<ItemDefinition> itemDefinitions;
+    public final List<NpcDefinition> npcDefinitions;
+    public final Map<Integer, Integer> edibleItems;
+    public final Map<Integer, Integer> npcRespawnTimes;
+    public final List<Npc> npcs;
+    public final List<DataLoader.GameObjectData> objects;
+    public final List<DataLoader.WallObjectData> wallObjects;
+    public final List<DataLoader.GroundItemData> groundItems;
+    public final CollisionMap collisionMap;
+
+    private WorldSnapshot(List<ItemDefinition> itemDefinitions, List<NpcDefinition> npcDefinitions,
+                          Map<Integer, Integer> edibleItems, Map<Integer, Integer> npcRespawnTimes, List<Npc> npcs,
+                          List<DataLoader.GameObjectData> objects, List<DataLoader.WallObjectData> wallObjects,
+                          List<DataLoader.GroundItemData> groundItems, CollisionMap collisionMap) {
+        this.itemDefinitions = itemDefinitions;
+        this.npcDefinitions = npcDefinitions;
+        this.edibleItems = edibleItems;
+        this.npcRespawnTimes = npcRespawnTimes;
+        this.npcs = npcs;
+        this.objects = objects;
+        this.wallObjects = wallObjects;
+        this.groundItems = groundItems;
+        this.collisionMap = collisionMap;
+    }
+
+    /**
+     * Compile the JSON data directory into a snapshot file.
+     * Usage: WorldSnapshot &lt;dataPath&gt; &lt;snapshotPath&gt;
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: WorldSnapshot <dataPath> <snapshotPath>");
+            System.exit(1);
+        }
+        long start = System.nanoTime();
+        WorldSnapshot snapshot = fromJson(args[0]);
+        int size = snapshot.write(args[1], fingerprint(args[0]));
+        Logger.info("Wrote world snapshot " + args[1] + " (" + size / 1024 + " KB in " +
+                    (System.nanoTime() - start) / 1_000_000 + " ms)");
+    }
+
+    /**
+     * Read every source file with {@link DataLoader}. Any error aborts, so a
+     * half-loaded world is never written out.
+     */
+    public static WorldSnapshot fromJson(String dataPath) throws IOException {
+        List<ItemDefinition> items = DataLoader.loadItemDefinitions(dataPath + "/config/items.json");
+        DataLoader.loadWieldableData(dataPath + "/wieldable.json", items);
+        List<DataLoader.GameObjectData> objects = DataLoader.loadObjects(dataPath + "/locations/objects.json");
+        List<DataLoader.WallObjectData> walls = DataLoader.loadWallObjects(dataPath + "/locations/wall-objects.json");
+        return new WorldSnapshot(
+            items,
+            DataLoader.loadNpcDefinitions(dataPath + "/config/npcs.json"),
+            DataLoader.loadEdibleData(dataPath + "/edible.json"),
+            DataLoader.loadNpcRespawnTimes(dataPath + "/npc-respawn.json"),
+            DataLoader.loadNpcs(dataPath + "/locations/npcs.json"),
+            objects,
+            walls,
+            DataLoader.loadGroundItems(dataPath + "/locations/items.json"),
+            CollisionMap.build(dataPath, objects, walls));
+    }
+
+    /**
+     * Load the snapshot if it exists, is intact and was built from the current
+     * files in {@code dataPath}. Returns null otherwise (after logging why), in
+     * which case the caller should load the JSON files.
+     */
+    public static WorldSnapshot load(String snapshotPath, String dataPath) {
+        Path path = Paths.get(snapshotPath);
+        if (!Files.isRegularFile(path)) {
+            Logger.info("No world snapshot at " + snapshotPath + "; loading JSON data (run 'ant world-snapshot' to speed this up)");
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE) {
+                Logger.warn("World snapshot " + snapshotPath + " is truncated; loading JSON data");
+                return null;
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            int magic = buffer.getInt();
+            int version = buffer.getInt();
+            long sourceFingerprint = buffer.getLong();
+            int payloadLength = buffer.getInt();
+            int payloadCrc = buffer.getInt();
+
+            if (magic != MAGIC || version != VERSION) {
+                Logger.warn("World snapshot " + snapshotPath + " has an unsupported format (version " + version + "); loading JSON data");
+                return null;
+            }
+            if (sourceFingerprint != fingerprint(dataPath)) {
+                Logger.warn("World snapshot " + snapshotPath + " is stale; loading JSON data (rerun 'ant world-snapshot')");
+                return null;
+            }
+            if (payloadLength != buffer.remaining()) {
+                Logger.warn("World snapshot " + snapshotPath + " is truncated; loading JSON data");
+                return null;
+            }
+            CRC32 crc = new CRC32();
+            crc.update(buffer.duplicate());
+            if ((int) crc.getValue() != payloadCrc) {
+                Logger.warn("World snapshot " + snapshotPath + " failed its checksum; loading JSON data");
+                return null;
+            }
+            return decode(buffer);
+        } catch (IOException | RuntimeException ex) {
+            Logger.warn("Failed to read world snapshot " + snapshotPath + ": " + ex + "; loading JSON data");
+            return null;
+        }
+    }
+
+    /**
+     * Combine the size and modification time of every source file into one value.
+     * A missing file contributes -1 for both.
+     */
+    static long fingerprint(String dataPath) {
+        long hash = VERSION;
+        for (String source : SOURCES) {
+            File file = new File(dataPath, source);
+            long size = file.isFile() ? file.length() : -1;
+            long modified = file.isFile() ? file.lastModified() : -1;
+            hash = hash * 31 + source.hashCode();
+            hash = hash * 31 + size;
+            hash = hash * 31 + modified;
+        }
+        return hash;
+    }
+
+    // ===== Writing =====
+
+    private int write(String snapshotPath, long sourceFingerprint) throws IOException {
+        byte[] payload = encode();
+        CRC32 crc = new CRC32();
+        crc.update(payload, 0, payload.length);
+
+        Path target = Paths.get(snapshotPath).toAbsolutePath();
+        Files.createDirectories(target.getParent());
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(temp.toFile()))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(sourceFingerprint);
+            out.writeInt(payload.length);
+            out.writeInt((int) crc.getValue());
+            out.write(payload);
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return HEADER_SIZE + payload.length;
+    }
+
+    private byte[] encode() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(1 << 20);
+        DataOutputStream out = new DataOutputStream(bytes);
+
+        out.writeInt(itemDefinitions.size());
+        for (ItemDefinition def : itemDefinitions) {
+            out.writeInt(def.getId());
+            writeString(out, def.getName());
+            writeString(out, def.getDescription());
+            writeString(out, def.getCommand());
+            out.writeInt(def.getSprite());
+            out.writeInt(def.getPrice());
+            out.writeByte((def.isStackable() ? 1 : 0) | (def.isSpecial() ? 2 : 0) |
+                          (def.isMembers() ? 4 : 0) | (def.isUntradeable() ? 8 : 0));
+            List<String> slots = def.getEquipSlots();
+            out.writeShort(slots == null ? -1 : slots.size());
+            if (slots != null) {
+                for (String slot : slots) {
+                    writeString(out, slot);
+                }
+            }
+            out.writeInt(def.getAnimation());
+            out.writeInt(def.getArmour());
+            out.writeInt(def.getWeaponAim());
+            out.writeInt(def.getWeaponPower());
+            out.writeInt(def.getMagic());
+            out.writeInt(def.getPrayer());
+        }
+
+        out.writeInt(npcDefinitions.size());
+        for (NpcDefinition def : npcDefinitions) {
+            out.writeInt(def.getId());
+            writeString(out, def.getName());
+            writeString(out, def.getDescription());
+            writeString(out, def.getCommand());
+            out.writeInt(def.getAttack());
+            out.writeInt(def.getStrength());
+            out.writeInt(def.getHits());
+            out.writeInt(def.getDefense());
+            writeString(out, def.getHostility());
+            out.writeInt(def.getCombatAnimation());
+        }
+
+        out.writeInt(edibleItems.size());
+        for (Map.Entry<Integer, Integer> entry : edibleItems.entrySet()) {
+            out.writeInt(entry.getKey());
+            out.writeInt(entry.getValue());
+        }
+
+        out.writeInt(npcRespawnTimes.size());
+        for (Map.Entry<Integer, Integer> entry : npcRespawnTimes.entrySet()) {
+            out.writeInt(entry.getKey());
+            out.writeInt(entry.getValue());
+        }
+
+        out.writeInt(npcs.size());
+        for (Npc npc : npcs) {
+            out.writeInt(npc.getTypeId());
+            out.writeInt(npc.getSpawnX());
+            out.writeInt(npc.getSpawnY());
+            out.writeInt(npc.getMinX());
+            out.writeInt(npc.getMaxX());
+            out.writeInt(npc.getMinY());
+            out.writeInt(npc.getMaxY());
+        }
+
+        out.writeInt(objects.size());
+        for (DataLoader.GameObjectData obj : objects) {
+            out.writeInt(obj.id);
+            out.writeInt(obj.direction);
+            out.writeInt(obj.x);
+            out.writeInt(obj.y);
+        }
+
+        out.writeInt(wallObjects.size());
+        for (DataLoader.WallObjectData wall : wallObjects) {
+            out.writeInt(wall.id);
+            out.writeInt(wall.direction);
+            out.writeInt(wall.x);
+            out.writeInt(wall.y);
+        }
+
+        out.writeInt(groundItems.size());
+        for (DataLoader.GroundItemData item : groundItems) {
+            out.writeInt(item.id);
+            out.writeInt(item.x);
+            out.writeInt(item.y);
+            out.writeInt(item.respawn);
+        }
+
+        out.writeInt(collisionMap.getWidth());
+        out.writeInt(collisionMap.getHeight());
+        out.write(collisionMap.flags());
+
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Length-prefixed UTF-8; a length of -1 marks null.
+     */
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeShort(-1);
+            return;
+        }
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        if (utf8.length > Short.MAX_VALUE) {
+            throw new IOException("string too long for snapshot: " + utf8.length + " bytes");
+        }
+        out.writeShort(utf8.length);
+        out.write(utf8);
+    }
+
+    // ===== Reading =====
+
+    private static WorldSnapshot decode(ByteBuffer in) {
+        int itemCount = in.getInt();
+        List<ItemDefinition> items = new ArrayList<>(itemCount);
+        for (int i = 0; i < itemCount; i++) {
+            int id = in.getInt();
+            String name = readString(in);
+            String description = readString(in);
+            String command = readString(in);
+            int sprite = in.getInt();
+            int price = in.getInt();
+            int flags = in.get();
+            int slotCount = in.getShort();
+            List<String> slots = null;
+            if (slotCount >= 0) {
+                slots = new ArrayList<>(slotCount);
+                for (int s = 0; s < slotCount; s++) {
+                    slots.add(readString(in));
+                }
+            }
+            ItemDefinition def = new ItemDefinition(id, name, description, command, sprite, price,
+                (flags & 1) != 0, (flags & 2) != 0, (flags & 4) != 0, (flags & 8) != 0, slots);
+            def.setWieldableStats(in.getInt(), in.getInt(), in.getInt(), in.getInt(), in.getInt(), in.getInt());
+            items.add(def);
+        }
+
+        int npcDefCount = in.getInt();
+        List<NpcDefinition> npcDefs = new ArrayList<>(npcDefCount);
+        for (int i = 0; i < npcDefCount; i++) {
+            int id = in.getInt();
+            String name = readString(in);
+            String description = readString(in);
+            String command = readString(in);
+            int attack = in.getInt();
+            int strength = in.getInt();
+            int hits = in.getInt();
+            int defense = in.getInt();
+            String hostility = readString(in);
+            int combatAnimation = in.getInt();
+            npcDefs.add(new NpcDefinition(id, name, description, command, attack, strength,
+                                          hits, defense, hostility, combatAnimation));
+        }
+
+        int edibleCount = in.getInt();
+        Map<Integer, Integer> edible = new HashMap<>(edibleCount * 2);
+        for (int i = 0; i < edibleCount; i++) {
+            edible.put(in.getInt(), in.getInt());
+        }
+
+        int respawnCount = in.getInt();
+        Map<Integer, Integer> respawnTimes = new HashMap<>(respawnCount * 2);
+        for (int i = 0; i < respawnCount; i++) {
+            respawnTimes.put(in.getInt(), in.getInt());
+        }
+
+        int npcCount = in.getInt();
+        List<Npc> npcs = new ArrayList<>(npcCount);
+        for (int i = 0; i < npcCount; i++) {
+            Npc npc = new Npc(in.getInt(), in.getInt(), in.getInt(), in.getInt(), in.getInt(), in.getInt(), in.getInt());
+            npc.setServerId(i);
+            npcs.add(npc);
+        }
+
+        int objectCount = in.getInt();
+        List<DataLoader.GameObjectData> objects = new ArrayList<>(objectCount);
+        for (int i = 0; i < objectCount; i++) {
+            objects.add(new DataLoader.GameObjectData(in.getInt(), in.getInt(), in.getInt(), in.getInt()));
+        }
+
+        int wallCount = in.getInt();
+        List<DataLoader.WallObjectData> walls = new ArrayList<>(wallCount);
+        for (int i = 0; i < wallCount; i++) {
+            walls.add(new DataLoader.WallObjectData(in.getInt(), in.getInt(), in.getInt(), in.getInt()));
+        }
+
+        int groundCount = in.getInt();
+        List<DataLoader.GroundItemData> groundItems = new ArrayList<>(groundCount);
+        for (int i = 0; i < groundCount; i++) {
+            groundItems.add(new DataLoader.GroundItemData(in.getInt(), in.getInt(), in.getInt(), in.getInt()));
+        }
+
+        int mapWidth = in.getInt();
+        int mapHeight = in.getInt();
+        byte[] flags = new byte[mapWidth * mapHeight];
+        in.get(flags);
+        CollisionMap collisionMap = CollisionMap.fromFlags(mapWidth, mapHeight, flags);
+
+        if (in.hasRemaining()) {
+            throw new IllegalStateException(in.remaining() + " unexpected trailing bytes");
+        }
+        return new WorldSnapshot(items, npcDefs, edible, respawnTimes, npcs, objects, walls, groundItems, collisionMap);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getShort();
+        if (length < 0) {
+            return null;
+        }
+        byte[] utf8 = new byte[length];
+        in.get(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+}
@@ -30,17 +30,16 @@ public class CL_ChatHandler implements IPacketHandler {
             Logger.info(player.getUsername() + " says: [" + message.length + " bytes]");
 
             // Broadcast chat to all nearby players
-            VisibilityService visibility = ServerContext.get().getVisibilityService();
-            players.forEachOnline(viewer -> {
-                if (viewer == player) return;
-                if (!visibility.isWithinRange(viewer, player)) return;
+            int radius = ServerContext.get().getConfig().getVisibilityRadius();
+            for (Player viewer : players.findNearby(player.getX(), player.getY(), radius)) {
+                if (viewer == player) continue;
 
                 try {
                     PlayerPacketSender.sendChat(viewer, player, message);
                 } catch (IOException ex) {
                     Logger.error("Failed to send chat to " + viewer.getUsername() + ": " + ex.getMessage());
                 }
-            });
+            }
 
         } catch (Exception ex) {
             Logger.error("Chat error: " + ex.getMessage());
@@ -16,11 +16,8 @@ public class CL_CloseConnectionHandler implements IPacketHandler {
 
             Logger.info(player.getUsername() + " closed connection");
 
-            // Save player data before removing
-            PlayerPersistence.save(player);
-
-            context.getVisibilityService().handlePlayerRemoval(player);
-            context.getPlayers().removePlayer(player);
+            // The game thread removes and saves it at the next tick boundary
+            context.getLogins().submitRemoval(player);
 
             socket.close();
         } catch (Exception ex) {
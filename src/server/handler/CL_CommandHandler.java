@@ -162,6 +162,7 @@ public class CL_CommandHandler implements IPacketHandler {
 
             player.getBaseStats()[statId] = level;
             player.getCurrentStats()[statId] = level;
+            player.markDirty();
 
             // Send stat update to client
             PlayerPacketSender.sendStatUpdate(player, statId);
@@ -178,6 +179,7 @@ public class CL_CommandHandler implements IPacketHandler {
         for (int i = 0; i < 18; i++) {
             player.getCurrentStats()[i] = player.getBaseStats()[i];
         }
+        player.markDirty();
 
         // Send full stat list update
         PlayerPacketSender.sendPlayerStatList(player);
@@ -200,7 +202,6 @@ public class CL_CommandHandler implements IPacketHandler {
         out.putShort(Opcodes.Server.SV_MESSAGE.value);
         out.putString(message);
 
-        player.getSocket().getOutputStream().write(out.toArrayWithLen());
-        player.getSocket().getOutputStream().flush();
+        player.send(out);
     }
 }
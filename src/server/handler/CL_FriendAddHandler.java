@@ -27,6 +27,7 @@ public class CL_FriendAddHandler implements IPacketHandler {
             
             // Add to friend list
             player.getFriendList().add(usernameHash);
+            player.markDirty();
             
             // Send updated friend list
             sendFriendList(context, player);
@@ -48,8 +49,7 @@ public class CL_FriendAddHandler implements IPacketHandler {
             out.putByte((byte) (context.getPlayers().isOnline(friendHash) ? 1 : 0));
         }
         
-        player.getSocket().getOutputStream().write(out.toArrayWithLen());
-        player.getSocket().getOutputStream().flush();
+        player.send(out);
     }
     
     private void sendMessage(Player player, String message) throws IOException {
@@ -57,7 +57,6 @@ public class CL_FriendAddHandler implements IPacketHandler {
         out.putShort(Opcodes.Server.SV_MESSAGE.value);
         out.putString(message);
         
-        player.getSocket().getOutputStream().write(out.toArrayWithLen());
-        player.getSocket().getOutputStream().flush();
+        player.send(out);
     }
 }
@@ -21,6 +21,7 @@ public class CL_FriendRemoveHandler implements IPacketHandler {
             
             // Remove from friend list
             player.getFriendList().remove(usernameHash);
+            player.markDirty();
             
             // Send updated friend list
             sendFriendList(context, player);
@@ -42,7 +43,6 @@ public class CL_FriendRemoveHandler implements IPacketHandler {
             out.putByte((byte) (context.getPlayers().isOnline(friendHash) ? 1 : 0));
         }
         
-        player.getSocket().getOutputStream().write(out.toArrayWithLen());
-        player.getSocket().getOutputStream().flush();
+        player.send(out);
     }
 }
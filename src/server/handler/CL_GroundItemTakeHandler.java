@@ -42,6 +42,7 @@ public class CL_GroundItemTakeHandler implements IPacketHandler {
                 PlayerPacketSender.sendMessage(player, "That item is no longer there");
                 return;
             }
+            PlayerPacketSender.broadcastGroundItem(new DataLoader.GroundItemData(itemId, worldX, worldY, 0), true);
 
             // Add item to player's inventory
             player.addItem(itemId, 1);
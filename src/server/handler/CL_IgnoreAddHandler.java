@@ -26,6 +26,7 @@ public class CL_IgnoreAddHandler implements IPacketHandler {
             
             // Add to ignore list
             player.getIgnoreList().add(usernameHash);
+            player.markDirty();
             
             // Send updated ignore list
             sendIgnoreList(player);
@@ -46,8 +47,7 @@ public class CL_IgnoreAddHandler implements IPacketHandler {
             out.putLong(ignoreHash);
         }
         
-        player.getSocket().getOutputStream().write(out.toArrayWithLen());
-        player.getSocket().getOutputStream().flush();
+        player.send(out);
     }
     
     private void sendMessage(Player player, String message) throws IOException {
@@ -55,7 +55,6 @@ public class CL_IgnoreAddHandler implements IPacketHandler {
         out.putShort(Opcodes.Server.SV_MESSAGE.value);
         out.putString(message);
         
-        player.getSocket().getOutputStream().write(out.toArrayWithLen());
-        player.getSocket().getOutputStream().flush();
+        player.send(out);
     }
 }
@@ -20,6 +20,7 @@ public class CL_IgnoreRemoveHandler implements IPacketHandler {
             
             // Remove from ignore list
             player.getIgnoreList().remove(usernameHash);
+            player.markDirty();
             
             // Send updated ignore list
             sendIgnoreList(player);
@@ -40,7 +41,6 @@ public class CL_IgnoreRemoveHandler implements IPacketHandler {
             out.putLong(ignoreHash);
         }
         
-        player.getSocket().getOutputStream().write(out.toArrayWithLen());
-        player.getSocket().getOutputStream().flush();
+        player.send(out);
     }
 }
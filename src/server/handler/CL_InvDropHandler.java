@@ -28,6 +28,7 @@ public class CL_InvDropHandler implements IPacketHandler {
 
             // Remove from inventory
             player.getInventory().remove(slotIndex);
+            player.markDirty();
 
             // Send removal to client
             PlayerPacketSender.sendInventoryItemRemove(player, slotIndex);
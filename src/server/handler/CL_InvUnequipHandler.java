@@ -32,6 +32,7 @@ public class CL_InvUnequipHandler implements IPacketHandler {
 
             // Unequip the item
             item.setEquipped(false);
+            player.markDirty();
 
             // Send update to client
             PlayerPacketSender.sendInventoryItemUpdate(player, slotIndex);
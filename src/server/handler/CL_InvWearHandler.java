@@ -32,6 +32,7 @@ public class CL_InvWearHandler implements IPacketHandler {
 
             // Equip the item
             item.setEquipped(true);
+            player.markDirty();
 
             // Send update to client
             PlayerPacketSender.sendInventoryItemUpdate(player, slotIndex);
@@ -8,8 +8,6 @@ public class CL_LoginHandler implements IPacketHandler {
         try {
             ServerContext context = ServerContext.get();
             PlayerRepository players = context.getPlayers();
-            WorldService world = context.getWorldService();
-            VisibilityService visibility = context.getVisibilityService();
 
             OutputStream outStream = socket.getOutputStream();
             
@@ -36,80 +34,75 @@ public class CL_LoginHandler implements IPacketHandler {
             }
             
             Logger.info("Found pending player: " + player.getUsername());
-            
-            // Set default spawn position first
-            world.spawnPlayer(player);
-            
-            // Try to load saved player data (overrides defaults if save exists)
-            boolean hasSave = PlayerPersistence.load(player);
-            
-            players.addPlayer(player);
-            visibility.establishMutualVisibility(player);
-            
-            Logger.info("Login: " + player.getUsername() + " has " + 
-                       player.getAddedPlayers().size() + " nearby players");
-            
-            // Send success response
-            Buffer out = new Buffer();
-            out.putInt(LoginResponse.SUCCESS.getCode());
-            outStream.write(out.toArray());
-            outStream.flush();
-            
-            // Send world info
-            sendWorldInfo(player);
-            
-            // Send player stats
-            sendPlayerStats(player);
-            
-            // Send inventory
-            sendInventory(player);
-            
-            // Send equipment bonuses (after inventory, so bonuses reflect equipped items)
-            PlayerPacketSender.sendEquipmentBonuses(player);
-            
-            // Send game settings
-            PlayerPacketSender.sendGameSettings(player);
-            
-            // Send friend list
-            sendFriendList(player);
-            
-            // Send ignore list
-            sendIgnoreList(player);
-            
-            // Send privacy settings
-            sendPrivacySettings(player);
-            
-            // Send region data (required for client to render world)
-            sendRegionPlayers(player);
-            sendRegionObjects(player);
-            sendRegionWallObjects(player);
-            sendRegionGroundItems(player);
-            sendRegionNPCs(player);
-            
-            // Send player appearance to themselves
-            PlayerPacketSender.sendAppearance(player, player);
 
-            // Send existing nearby players' appearance to the new player
-            for (Player nearby : player.getAddedPlayers()) {
-                PlayerPacketSender.sendAppearance(player, nearby);
-            }
-
-            // Inform nearby players about the new player's appearance
-            for (Player nearby : player.getAddedPlayers()) {
-                PlayerPacketSender.sendAppearance(nearby, player);
-            }
+            // The save is read on a loader thread and the player joins the
+            // world at the start of a tick; see LoginService
+            context.getLogins().submit(player);
 
-            // Send welcome screen (must be after region data)
-            sendWelcome(player);
-            
-            Logger.info("Player " + username + " logged in successfully");
-            
         } catch (IOException ex) {
             Logger.error("Login error: " + ex.getMessage());
         }
     }
+
+    /**
+     * Queue everything a newly joined player needs to see the world. Runs on
+     * the game thread; the packets leave with the tick's flush.
+     */
+    static void sendInitialState(Player player) throws IOException {
+        Logger.info("Login: " + player.getUsername() + " has " +
+                   player.getAddedPlayers().size() + " nearby players");
+
+        // Send world info
+        sendWorldInfo(player);
+
+        // Send player stats
+        sendPlayerStats(player);
+
+        // Send inventory
+        sendInventory(player);
+
+        // Send equipment bonuses (after inventory, so bonuses reflect equipped items)
+        PlayerPacketSender.sendEquipmentBonuses(player);
+
+        // Send game settings
+        PlayerPacketSender.sendGameSettings(player);
+
+        // Send friend list
+        sendFriendList(player);
+
+        // Send ignore list
+        sendIgnoreList(player);
+
+        // Send privacy settings
+        sendPrivacySettings(player);
+
+        // Send region data (required for client to render world)
+        sendRegionPlayers(player);
+        sendRegionObjects(player);
+        sendRegionWallObjects(player);
+        sendRegionGroundItems(player);
+        sendRegionNPCs(player);
+
+        // Send player appearance to themselves
+        PlayerPacketSender.sendAppearance(player, player);
+
+        // Send existing nearby players' appearance to the new player
+        for (Player nearby : player.getAddedPlayers()) {
+            PlayerPacketSender.sendAppearance(player, nearby);
+        }
+
+        // Inform nearby players about the new player's appearance
+        for (Player nearby : player.getAddedPlayers()) {
+            PlayerPacketSender.sendAppearance(nearby, player);
+        }
+
+        // Send welcome screen (must be after region data)
+        sendWelcome(player);
+
+        Logger.info("Player " + player.getUsername() + " logged in successfully");
+    }
     
-    private void sendWorldInfo(Player player) throws IOException {
+    private static void sendWorldInfo(Player player) throws IOException {
         Buffer out = new Buffer();
         out.putShort(Opcodes.Server.SV_WORLD_INFO.value);
         out.putShort((short) player.getServerId());
@@ -118,11 +111,10 @@ public class CL_LoginHandler implements IPacketHandler {
         out.putShort((short) player.getPlaneIndex());
     out.putShort((short) ServerContext.get().getWorldService().getPlaneMultiplier());
         
-        player.getSocket().getOutputStream().write(out.toArrayWithLen());
-        player.getSocket().getOutputStream().flush();
+        player.send(out);
     }
     
-    private void sendPlayerStats(Player player) throws IOException {
+    private static void sendPlayerStats(Player player) throws IOException {
         Buffer out = new Buffer();
         out.putShort(Opcodes.Server.SV_PLAYER_STAT_LIST.value);
         
@@ -144,11 +136,10 @@ public class CL_LoginHandler implements IPacketHandler {
         // Quest points
         out.putByte((byte) player.getQuestPoints());
         
-        player.getSocket().getOutputStream().write(out.toArrayWithLen());
-        player.getSocket().getOutputStream().flush();
+        player.send(out);
     }
     
-    private void sendInventory(Player player) throws IOException {
+    private static void sendInventory(Player player) throws IOException {
         Buffer out = new Buffer();
         out.putShort(Opcodes.Server.SV_INVENTORY_ITEMS.value);
         out.putByte((byte) player.getInventory().size());
@@ -160,11 +151,10 @@ public class CL_LoginHandler implements IPacketHandler {
             }
         }
         
-        player.getSocket().getOutputStream().write(out.toArrayWithLen());
-        player.getSocket().getOutputStream().flush();
+        player.send(out);
     }
     
-    private void sendFriendList(Player player) throws IOException {
+    private static void sendFriendList(Player player) throws IOException {
         Buffer out = new Buffer();
         out.putShort(Opcodes.Server.SV_FRIEND_LIST.value);
         out.putByte((byte) player.getFriendList().size());
@@ -174,11 +164,10 @@ public class CL_LoginHandler implements IPacketHandler {
             out.putByte((byte) (ServerContext.get().getPlayers().isOnline(friendHash) ? 1 : 0));
         }
         
-        player.getSocket().getOutputStream().write(out.toArrayWithLen());
-        player.getSocket().getOutputStream().flush();
+        player.send(out);
     }
     
-    private void sendIgnoreList(Player player) throws IOException {
+    private static void sendIgnoreList(Player player) throws IOException {
         Buffer out = new Buffer();
         out.putShort(Opcodes.Server.SV_IGNORE_LIST.value);
         out.putByte((byte) player.getIgnoreList().size());
@@ -187,11 +176,10 @@ public class CL_LoginHandler implements IPacketHandler {
             out.putLong(ignoreHash);
         }
         
-        player.getSocket().getOutputStream().write(out.toArrayWithLen());
-        player.getSocket().getOutputStream().flush();
+        player.send(out);
     }
     
-    private void sendPrivacySettings(Player player) throws IOException {
+    private static void sendPrivacySettings(Player player) throws IOException {
         Buffer out = new Buffer();
         out.putShort(Opcodes.Server.SV_PRIVACY_SETTINGS.value);
         out.putByte((byte) (player.isBlockChat() ? 1 : 0));
@@ -199,28 +187,27 @@ public class CL_LoginHandler implements IPacketHandler {
         out.putByte((byte) (player.isBlockTrade() ? 1 : 0));
         out.putByte((byte) (player.isBlockDuel() ? 1 : 0));
         
-        player.getSocket().getOutputStream().write(out.toArrayWithLen());
-        player.getSocket().getOutputStream().flush();
+        player.send(out);
     }
     
-    private void sendRegionPlayers(Player player) throws IOException {
+    private static void sendRegionPlayers(Player player) throws IOException {
         // Use the full multiplayer-aware packet sender
         CL_WalkHandler.sendRegionPlayersUpdate(player);
     }
     
-    private void sendRegionObjects(Player player) throws IOException {
+    private static void sendRegionObjects(Player player) throws IOException {
         PlayerPacketSender.sendRegionObjects(player);
     }
     
-    private void sendRegionWallObjects(Player player) throws IOException {
+    private static void sendRegionWallObjects(Player player) throws IOException {
         PlayerPacketSender.sendRegionWallObjects(player);
     }
     
-    private void sendRegionGroundItems(Player player) throws IOException {
+    private static void sendRegionGroundItems(Player player) throws IOException {
         PlayerPacketSender.sendRegionGroundItems(player);
     }
     
-    private void sendRegionNPCs(Player player) throws IOException {
+    private static void sendRegionNPCs(Player player) throws IOException {
         PlayerPacketSender.sendRegionNpcs(player);
     }
 
@@ -228,9 +215,9 @@ public class CL_LoginHandler implements IPacketHandler {
      * Send the welcome screen packet (SV_WELCOME).
      * Format: [int lastIP] [short daysSinceLogin] [byte recoveryDays] [short unreadMessages]
      */
-    private void sendWelcome(Player player) throws IOException {
-        long lastLoginTime = PlayerPersistence.getLastLoginTime(player.getUsername());
-        String lastIPStr = PlayerPersistence.getLastLoginIP(player.getUsername());
+    private static void sendWelcome(Player player) throws IOException {
+        long lastLoginTime = player.getPreviousLoginTime();
+        String lastIPStr = player.getPreviousLoginIP();
 
         // Convert IP string to int  
         int lastIP = 0;
@@ -260,8 +247,7 @@ public class CL_LoginHandler implements IPacketHandler {
         out.putByte((byte) 255);               // Recovery questions set days (255 = not set)
         out.putShort((short) 0);               // Unread messages
 
-        player.getSocket().getOutputStream().write(out.toArrayWithLen());
-        player.getSocket().getOutputStream().flush();
+        player.send(out);
 
         Logger.debug("Sent welcome packet to " + player.getUsername() +
                      " (lastIP=" + lastIPStr + ", days=" + daysSinceLogin + ")");
@@ -17,11 +17,8 @@ public class CL_LogoutHandler implements IPacketHandler {
             
             Logger.info(player.getUsername() + " is logging out");
             
-            // Save player data before removing
-            PlayerPersistence.save(player);
-            
-            context.getVisibilityService().handlePlayerRemoval(player);
-            context.getPlayers().removePlayer(player);
+            // The game thread removes and saves it at the next tick boundary
+            context.getLogins().submitRemoval(player);
             
             // Close the connection
             socket.close();
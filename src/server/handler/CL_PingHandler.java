@@ -6,11 +6,18 @@ public class CL_PingHandler implements IPacketHandler {
     @Override
     public void handle(Socket socket, Buffer data) {
         try {
-            OutputStream outStream = socket.getOutputStream();
-
             Buffer out = new Buffer();
             out.putShort(Opcodes.Server.SV_MESSAGE.value);
             out.putString("Hi from the server");
+
+            // Logged-in players get it with their next tick flush
+            Player player = ServerContext.get().getPlayers().findBySocket(socket).orElse(null);
+            if (player != null) {
+                player.send(out);
+                return;
+            }
+
+            OutputStream outStream = socket.getOutputStream();
             outStream.write(out.toArrayWithLen());
             outStream.flush();
 
@@ -45,7 +45,6 @@ public class CL_PrivacySettingsHandler implements IPacketHandler {
         out.putByte((byte) (player.isBlockTrade() ? 1 : 0));
         out.putByte((byte) (player.isBlockDuel() ? 1 : 0));
         
-        player.getSocket().getOutputStream().write(out.toArrayWithLen());
-        player.getSocket().getOutputStream().flush();
+        player.send(out);
     }
 }
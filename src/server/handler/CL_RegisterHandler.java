@@ -1,5 +1,4 @@
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.Socket;
 
@@ -7,8 +6,6 @@ public class CL_RegisterHandler implements IPacketHandler {
     @Override
     public void handle(Socket socket, Buffer data) {
         try {
-
-            InputStream inStream = socket.getInputStream();
             OutputStream outStream = socket.getOutputStream();
             
             int clientVersion = data.getInt();
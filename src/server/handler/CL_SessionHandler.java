@@ -1,8 +1,11 @@
 import java.io.IOException;
 import java.io.OutputStream;
 import java.net.Socket;
+import java.security.SecureRandom;
 
 public class CL_SessionHandler implements IPacketHandler {
+    private static final SecureRandom random = new SecureRandom();
+
     @Override
     public void handle(Socket socket, Buffer data) {
         try {
@@ -29,6 +32,7 @@ public class CL_SessionHandler implements IPacketHandler {
     }
 
     private long genSessionId(String data) {
-        return System.currentTimeMillis();
+        // Random rather than the clock: sessions opened in the same millisecond must not collide
+        return random.nextLong() & Long.MAX_VALUE;
     }
 }
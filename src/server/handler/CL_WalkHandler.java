@@ -12,6 +12,9 @@ import java.util.Set;
  * 
  * The path contains the steps to follow from the start position.
  * Each step is encoded as two signed bytes (deltaX, deltaY).
+ * 
+ * The server only takes the final waypoint as the destination and routes
+ * there itself with the {@link PathfindingService}.
  */
 public class CL_WalkHandler implements IPacketHandler {
     @Override
@@ -43,43 +46,53 @@ public class CL_WalkHandler implements IPacketHandler {
             // Clear any existing walk queue (new walk command cancels previous)
             player.clearWalkQueue();
             
-            // First, create steps from server's current position to client's start position
-            // This handles any desync between client and server
-            int currentX = player.getX();
-            int currentY = player.getY();
-            
-            if (currentX != startX || currentY != startY) {
-                Logger.debug("Position desync detected - creating intermediate steps");
-                createStraightLineSteps(player, currentX, currentY, startX, startY);
-                currentX = startX;
-                currentY = startY;
-            }
-            
-            // Then process the path steps from the client
             // Each step's delta is CUMULATIVE from the start position (targetX + deltaX)
-            // We need to create smooth steps from current position to each waypoint
+            int[] waypointX = new int[stepCount];
+            int[] waypointY = new int[stepCount];
             for (int i = 0; i < stepCount; i++) {
                 byte deltaX = data.getByte();
                 byte deltaY = data.getByte();
-                Logger.debug("  Raw step " + i + ": deltaX=" + deltaX + " (0x" + 
-                           String.format("%02X", deltaX) + "), deltaY=" + deltaY + 
-                           " (0x" + String.format("%02X", deltaY) + ")");
-                
-                // Calculate target position for this waypoint (cumulative delta from start)
-                int waypointX = startX + deltaX;
-                int waypointY = startY + deltaY;
-                
-                Logger.debug("  Waypoint " + i + ": (" + waypointX + "," + waypointY + ")");
-                
-                // Create smooth steps from current position to this waypoint
-                createStraightLineSteps(player, currentX, currentY, waypointX, waypointY);
-                
-                // Update current position for next waypoint
-                currentX = waypointX;
-                currentY = waypointY;
+                waypointX[i] = startX + deltaX;
+                waypointY[i] = startY + deltaY;
+                Logger.debug("  Waypoint " + i + ": (" + waypointX[i] + "," + waypointY[i] + ")");
+            }
+            
+            int currentX = player.getX();
+            int currentY = player.getY();
+            if (context.getWorldService().getCollisionMap() == CollisionMap.EMPTY) {
+                // No collision data: trust the client's path as it is
+                queueClientPath(player, currentX, currentY, startX, startY, waypointX, waypointY);
+                Logger.info("Queued " + player.getWalkQueue().size() + " total walk steps for " + player.getUsername());
+                return;
             }
             
-            Logger.info("Queued " + player.getWalkQueue().size() + " total walk steps for " + player.getUsername());
+            // Route to where the client wants to end up. The search runs on the game
+            // thread before the next movement step; if it finds nothing, the client's
+            // own path is followed until the collision map stops it.
+            int destX = stepCount > 0 ? waypointX[stepCount - 1] : startX;
+            int destY = stepCount > 0 ? waypointY[stepCount - 1] : startY;
+            PathfindingService.Request request = context.getPathfinding().request(currentX, currentY, destX, destY,
+                (routeX, routeY, count) -> {
+                    player.clearWalkQueue();
+                    int fromX = player.getX();
+                    int fromY = player.getY();
+                    if (count < 0) {
+                        Logger.debug("No route for " + player.getUsername() + " to (" + destX + "," + destY + ")");
+                        queueClientPath(player, fromX, fromY, startX, startY, waypointX, waypointY);
+                        return;
+                    }
+                    // The player may have taken one more step while the request was queued
+                    createStraightLineSteps(player, fromX, fromY, currentX, currentY);
+                    fromX = currentX;
+                    fromY = currentY;
+                    for (int i = 0; i < count; i++) {
+                        createStraightLineSteps(player, fromX, fromY, routeX[i], routeY[i]);
+                        fromX = routeX[i];
+                        fromY = routeY[i];
+                    }
+                    Logger.debug("Queued " + player.getWalkQueue().size() + " walk steps for " + player.getUsername());
+                });
+            player.replacePathRequest(request);
             
             // Note: Actual movement will be processed by game tick system
             // Each tick will process one step from the queue and send position updates
@@ -90,6 +103,26 @@ public class CL_WalkHandler implements IPacketHandler {
         }
     }
     
+    /**
+     * Queue the path exactly as the client sent it: first from the server's
+     * position to the client's start (this handles any desync between client
+     * and server), then through each waypoint.
+     */
+    private static void queueClientPath(Player player, int currentX, int currentY, int startX, int startY,
+                                        int[] waypointX, int[] waypointY) {
+        if (currentX != startX || currentY != startY) {
+            Logger.debug("Position desync detected - creating intermediate steps");
+            createStraightLineSteps(player, currentX, currentY, startX, startY);
+        }
+        currentX = startX;
+        currentY = startY;
+        for (int i = 0; i < waypointX.length; i++) {
+            createStraightLineSteps(player, currentX, currentY, waypointX[i], waypointY[i]);
+            currentX = waypointX[i];
+            currentY = waypointY[i];
+        }
+    }
+    
     /**
      * Create straight-line walk steps from start to end position.
      * This handles client-server position desync by creating intermediate steps.
@@ -97,7 +130,7 @@ public class CL_WalkHandler implements IPacketHandler {
      * Based on server-js createSteps() function - can move in straight lines
      * (only X or Y changing) or perfect diagonals (X and Y changing by same amount).
      */
-    private void createStraightLineSteps(Player player, int startX, int startY, int endX, int endY) {
+    private static void createStraightLineSteps(Player player, int startX, int startY, int endX, int endY) {
         int totalSteps = Math.abs(endX - startX) + Math.abs(endY - startY);
         
         if (totalSteps == 0) {
@@ -167,8 +200,7 @@ public class CL_WalkHandler implements IPacketHandler {
         // Write the bit-packed data
         out.putBytes(bitData);
         
-        player.getSocket().getOutputStream().write(out.toArrayWithLen());
-        player.getSocket().getOutputStream().flush();
+        player.send(out);
         
         Logger.info("Position update sent to " + player.getUsername() + ": (" + newX + ", " + newY + ")");
     }
@@ -193,155 +225,78 @@ public class CL_WalkHandler implements IPacketHandler {
      *   - serverIndex (11), offsetX (5), offsetY (5), animation (4)
      */
     public static void sendRegionPlayersUpdate(Player player) throws IOException {
-        Logger.info("=== sendRegionPlayersUpdate called for " + player.getUsername() + " ===");
-        
         // Get tracking sets
         Set<Player> knownPlayers = player.getKnownPlayers();
         Set<Player> addedPlayers = player.getAddedPlayers();
         Set<Player> movedPlayers = player.getMovedPlayers();
         Set<Player> removedPlayers = player.getRemovedPlayers();
-        
-        Logger.info(">>> Sending SV_REGION_PLAYERS to " + player.getUsername() + ":");
-        Logger.info("    " + player.getUsername() + ": known=" + knownPlayers.size() + 
-                    ", added=" + addedPlayers.size() + ", moved=" + movedPlayers.size() + 
-                    ", removed=" + removedPlayers.size());
-        
-        // Build bit-packed packet
-        Buffer out = new Buffer();
-        out.putShort(Opcodes.Server.SV_REGION_PLAYERS.value);
-        
-        // Allocate buffer for bit-packed data (client has 500 byte max)
-        // CRITICAL: GameConnection adds opcode byte at pdata[0]
-        // Client reads starting at bit 8 (pdata[1], bit 0)
-        // So we write starting at bit 0 here, which becomes bit 8 after opcode insertion
-        byte[] bitData = new byte[500];
-        int bitOffset = 0;  // Start at bit 0 - will become bit 8 in pdata after opcode byte added
-        
+
+        // Bit-packed body (client has 500 byte max).
+        // GameConnection adds the opcode byte at pdata[0] and the client reads
+        // from bit 8, so the body starts at bit 0 here.
+        BitWriter bits = BitWriter.get();
+
         int localX = player.getX();
         int localY = player.getY();
-        int localDir = player.getDirection();
-        
+
         // Local player position (11 + 13 + 4 = 28 bits)
-        NetHelper.setBitMask(bitData, bitOffset, 11, localX);
-        bitOffset += 11;
-        NetHelper.setBitMask(bitData, bitOffset, 13, localY);
-        bitOffset += 13;
-        NetHelper.setBitMask(bitData, bitOffset, 4, localDir);
-        bitOffset += 4;
-        
+        bits.write(11, localX);
+        bits.write(13, localY);
+        bits.write(4, player.getDirection());
+
         // Known player count (8 bits)
-        NetHelper.setBitMask(bitData, bitOffset, 8, knownPlayers.size());
-        bitOffset += 8;
-        
-        Logger.debug("  Local player: X=" + localX + ", Y=" + localY + ", dir=" + localDir);
-        Logger.debug("  Known player count: " + knownPlayers.size());
-        
+        bits.write(8, knownPlayers.size());
+
         // Process known players (moved or removed)
         for (Player knownPlayer : knownPlayers) {
-            boolean hasMoved = movedPlayers.contains(knownPlayer);
-            boolean isRemoving = removedPlayers.contains(knownPlayer);
-            
-            if (hasMoved || isRemoving) {
-                // reqUpdate = 1 (has update)
-                NetHelper.setBitMask(bitData, bitOffset, 1, 1);
-                bitOffset += 1;
-                
-                if (isRemoving) {
-                    // updateType = 1 (removing)
-                    NetHelper.setBitMask(bitData, bitOffset, 1, 1);
-                    bitOffset += 1;
-                    Logger.debug("  Known player REMOVING: " + knownPlayer.getUsername());
-                } else {
-                    // updateType = 0 (moved)
-                    NetHelper.setBitMask(bitData, bitOffset, 1, 0);
-                    bitOffset += 1;
-                    
-                    // Direction (3 bits)
-                    int dir = knownPlayer.getDirection();
-                    NetHelper.setBitMask(bitData, bitOffset, 3, dir);
-                    bitOffset += 3;
-                    Logger.debug("  Known player MOVED: " + knownPlayer.getUsername() + " dir=" + dir);
-                }
+            if (removedPlayers.contains(knownPlayer)) {
+                // reqUpdate = 1, updateType = 1 (removing)
+                bits.write(1, 1);
+                bits.write(1, 1);
+            } else if (movedPlayers.contains(knownPlayer)) {
+                // reqUpdate = 1, updateType = 0 (moved), direction (3 bits)
+                bits.write(1, 1);
+                bits.write(1, 0);
+                bits.write(3, knownPlayer.getDirection());
             } else {
                 // reqUpdate = 0 (no change)
-                NetHelper.setBitMask(bitData, bitOffset, 1, 0);
-                bitOffset += 1;
+                bits.write(1, 0);
             }
         }
-        
+
         // Add new players
-        Logger.info("  Adding " + addedPlayers.size() + " new players to packet");
-        Logger.info("  BEFORE LOOP: addedPlayers.size() = " + addedPlayers.size());
-        int loopCount = 0;
         for (Player newPlayer : addedPlayers) {
-            loopCount++;
-            Logger.info("  LOOP ITERATION " + loopCount + ": Processing " + newPlayer.getUsername());
-            
             // Check if we have space (need 26 bits per new player)
-            if ((bitOffset + 26) / 8 >= 500) {
-                Logger.warn("  Out of space for new players!");
+            if ((bits.bitPosition() + 26) / 8 >= 500) {
+                Logger.warn("Out of space for new players in region update for " + player.getUsername());
                 break;
             }
-            
+
             // serverIndex (11 bits) - player's index in server array
-            int serverIndex = newPlayer.getServerId();
-            NetHelper.setBitMask(bitData, bitOffset, 11, serverIndex);
-            bitOffset += 11;
-            
-            // Offset from local player (-16 to +15 range)
+            bits.write(11, newPlayer.getServerId());
+
+            // Offset from local player, encoded as 5-bit signed values
             int offsetX = newPlayer.getX() - localX;
             int offsetY = newPlayer.getY() - localY;
-            
-            Logger.info("    NEW player " + newPlayer.getUsername() + ":");
-            Logger.info("      serverIndex=" + serverIndex);
-            Logger.info("      position: (" + newPlayer.getX() + ", " + newPlayer.getY() + ")");
-            Logger.info("      local position: (" + localX + ", " + localY + ")");
-            Logger.info("      raw offset: (" + offsetX + ", " + offsetY + ")");
-            
-            // Encode as 5-bit signed values
             if (offsetX < 0) offsetX += 32;
             if (offsetY < 0) offsetY += 32;
-            
-            Logger.info("      encoded offset: (" + offsetX + ", " + offsetY + ")");
-            
-            NetHelper.setBitMask(bitData, bitOffset, 5, offsetX);
-            bitOffset += 5;
-            NetHelper.setBitMask(bitData, bitOffset, 5, offsetY);
-            bitOffset += 5;
-            
+            bits.write(5, offsetX);
+            bits.write(5, offsetY);
+
             // Animation (4 bits)
-            int anim = newPlayer.getDirection();
-            NetHelper.setBitMask(bitData, bitOffset, 4, anim);
-            bitOffset += 4;
-            
+            bits.write(4, newPlayer.getDirection());
+
             // Flag bit (always 0 for now)
-            NetHelper.setBitMask(bitData, bitOffset, 1, 0);
-            bitOffset += 1;
-            
-            Logger.info("      anim=" + anim + ", total bits used=" + bitOffset);
+            bits.write(1, 0);
         }
-        
-        // Calculate how many bytes we actually used
-        int byteCount = (bitOffset + 7) / 8;
-        Logger.info("  Packet size: " + byteCount + " bytes (" + bitOffset + " bits)");
-        
-        // Write the bit-packed data (need to copy subset of array)
-        byte[] packetData = new byte[byteCount];
-        System.arraycopy(bitData, 0, packetData, 0, byteCount);
-        
-        // Debug: Print hex dump of packet data
-        StringBuilder hexDump = new StringBuilder("  Packet hex dump: ");
-        for (int i = 0; i < Math.min(byteCount, 20); i++) {
-            hexDump.append(String.format("%02X ", packetData[i]));
+
+        if (Logger.isDebugEnabled()) {
+            Logger.debug("Region players for " + player.getUsername() + ": known=" + knownPlayers.size()
+                + ", added=" + addedPlayers.size() + ", moved=" + movedPlayers.size()
+                + ", removed=" + removedPlayers.size() + ", " + bits.bitPosition() + " bits");
         }
-        if (byteCount > 20) hexDump.append("...");
-        Logger.info(hexDump.toString());
-        
-        out.putBytes(packetData);
-        
-        // Send packet
-        player.getSocket().getOutputStream().write(out.toArrayWithLen());
-        player.getSocket().getOutputStream().flush();
+
+        player.send(Opcodes.Server.SV_REGION_PLAYERS.value, bits);
 
         // After informing about new players, send their appearance details
         for (Player newPlayer : addedPlayers) {
@@ -359,7 +314,5 @@ public class CL_WalkHandler implements IPacketHandler {
         addedPlayers.clear();
         movedPlayers.clear();
         removedPlayers.clear();
-        
-        Logger.info("  Update complete!");
     }
 }